@@ -0,0 +1,49 @@
+package printersimulation;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Takes the usual JMH command line options
+ * but writes the results as JSON to jmh-result.json unless told otherwise,
+ * so that results can be kept and compared between releases.
+ */
+public class Benchmarks
+{
+	/**
+	 * Runs the benchmarks
+	 * @param args JMH command line options
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		Runner runner = new Runner(cmd);
+		
+		if ( cmd.shouldHelp() )
+		{
+			cmd.showHelp();
+			return;
+		}
+		if ( cmd.shouldList() )
+		{
+			runner.list();
+			return;
+		}
+		
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+		if ( !cmd.getResultFormat().hasValue() )
+		{
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if ( !cmd.getResult().hasValue() )
+		{
+			options.result("jmh-result.json");
+		}
+		
+		new Runner(options.build()).run();
+	}
+}
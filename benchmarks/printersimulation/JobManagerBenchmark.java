@@ -0,0 +1,73 @@
+package printersimulation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures JobManager.getFirstJob followed by JobManager.insert with the
+ * classic hold model: the earliest job is removed and put back a random
+ * exponential time later, which keeps the number of pending jobs fixed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobManagerBenchmark
+{
+	// Number of increments kept, a power of two
+	private final static int INCREMENTS = 1 << 16;
+	
+	@Param({"10", "100", "1000", "10000", "100000", "1000000"})
+	public int queueSize;
+	
+	@Param({"BINARY_HEAP", "PAIRING_HEAP", "CALENDAR_QUEUE"})
+	public EventListType eventList;
+	
+	private JobManager jobs;
+	private JobStore store;
+	
+	// Exponential increments drawn up front so the generator is not measured
+	private double[] increments = new double[INCREMENTS];
+	private int next = 0;
+	
+	@Setup
+	public void setup ()
+	{
+		NumberGenerator generator = new NumberGenerator(12345);
+		for ( int i = 0; i < INCREMENTS; i++ )
+		{
+			increments[i] = generator.exponentialRVG(queueSize);
+		}
+		
+		jobs = new JobManager(eventList);
+		store = jobs.getStore();
+		for ( int i = 0; i < queueSize; i++ )
+		{
+			int j = store.allocate(0, 0, i, 0.0);
+			store.arrivalTime[j] = increments[i & (INCREMENTS - 1)];
+			jobs.insert(j);
+		}
+	}
+	
+	@Benchmark
+	public int hold ()
+	{
+		int j = jobs.getFirstJob();
+		store.arrivalTime[j] += increments[next++ & (INCREMENTS - 1)];
+		jobs.insert(j);
+		return j;
+	}
+}
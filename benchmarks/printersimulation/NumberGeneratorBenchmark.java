@@ -0,0 +1,88 @@
+package printersimulation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the random number generator and of the
+ * exponential random variates drawn for every arrival and service, one at
+ * a time and in bulk, by inversion and with the ziggurat.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberGeneratorBenchmark
+{
+	private NumberGenerator generator;
+	
+	private NumberGenerator inversion;
+	
+	private NumberGenerator ziggurat;
+	
+	private NumberGenerator bufferedZiggurat;
+	
+	private double[] buffer = new double[256];
+	
+	@Setup
+	public void setup ()
+	{
+		generator = new NumberGenerator(12345, false, VariateMethod.INVERSION, 0);
+		inversion = new NumberGenerator(12345, false, VariateMethod.INVERSION, 0);
+		ziggurat = new NumberGenerator(12345, false, VariateMethod.ZIGGURAT, 0);
+		bufferedZiggurat = new NumberGenerator(12345, false, VariateMethod.ZIGGURAT, 256);
+	}
+	
+	@Benchmark
+	public double randomNumberGenerator ()
+	{
+		return generator.randomNumberGenerator();
+	}
+	
+	@Benchmark
+	public double exponentialRVG ()
+	{
+		return generator.exponentialRVG(Constants.JOB_EXECUTION_LASERJET);
+	}
+	
+	@Benchmark
+	public double zigguratRVG ()
+	{
+		return ziggurat.exponentialRVG(Constants.JOB_EXECUTION_LASERJET);
+	}
+	
+	@Benchmark
+	public double bufferedZigguratRVG ()
+	{
+		return bufferedZiggurat.exponentialRVG(Constants.JOB_EXECUTION_LASERJET);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(256)
+	public double[] fillInversion ()
+	{
+		inversion.fillExponential(buffer, 0, buffer.length);
+		return buffer;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(256)
+	public double[] fillZiggurat ()
+	{
+		ziggurat.fillExponential(buffer, 0, buffer.length);
+		return buffer;
+	}
+}
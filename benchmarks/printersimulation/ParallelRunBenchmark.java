@@ -0,0 +1,106 @@
+package printersimulation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures whole replications of a large network split into partitions,
+ * 1 running the sequential event loop. The network is a ring of stations
+ * with a source at every station, every job moves on to the next station
+ * or leaves the system, so every partition sends jobs to the next one.
+ * The events counter reports the steady state events processed per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelRunBenchmark
+{
+	/**
+	 * Counts the events processed by the replications
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Events
+	{
+		public long events;
+		
+		@Setup(Level.Iteration)
+		public void reset ()
+		{
+			events = 0;
+		}
+	}
+	
+	// Replications cycle within the streams available to a master seed
+	private final static int REPLICATIONS = 8;
+	
+	// Probability a job moves on to the next station rather than leaving
+	private final static double STAY = 0.75;
+	
+	@Param({"1", "2", "4", "8"})
+	public int partitions;
+	
+	@Param({"64"})
+	public int stations;
+	
+	private Simulator simulator;
+	private int replication = 0;
+	
+	@Setup
+	public void setup ()
+	{
+		// Constants are read once per JVM, so the partitions are handed over directly,
+		// and the streams are checked for the replications the benchmark cycles through
+		simulator = new Simulator(ring(stations), REPLICATIONS);
+		simulator.setPartitions(partitions);
+	}
+	
+	@Benchmark
+	public SimulationReport replication ( Events counter )
+	{
+		SimulationReport report = simulator.runReplication(replication++ % REPLICATIONS);
+		counter.events += report.numberEvents;
+		return report;
+	}
+	
+	/**
+	 * Builds a ring of stations, each loaded to a utilization of 0.8
+	 * @param size Number of stations
+	 * @return Network
+	 */
+	private static Network ring ( int size )
+	{
+		Network network = new Network();
+		for ( int s = 0; s < size; s++ )
+		{
+			network.addStation(new Station("S" + s, "Station " + s, Distribution.exponential(1.0)));
+		}
+		
+		// Every station sees its own arrivals and those moving on from the one
+		// before it, 1 / (1 - STAY) times its own arrivals in all
+		for ( int s = 0; s < size; s++ )
+		{
+			network.station(s).routeTo((s + 1) % size, STAY);
+			network.station(s).routeTo(Station.EXIT, 1.0 - STAY);
+			network.addSource("Source " + s, 1.0 / (0.8 * (1.0 - STAY)), s);
+		}
+		
+		return network;
+	}
+}
@@ -0,0 +1,77 @@
+package printersimulation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures whole replications of the simulator. Besides the time per
+ * replication the events counter reports the steady state events
+ * processed per second, the warmup events are run but not counted.
+ * Running with -prof gc reports the bytes allocated per replication.
+ * With a warm start the replications branch off one warmup instead of
+ * running their own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulatorBenchmark
+{
+	/**
+	 * Counts the events processed by the replications
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Events
+	{
+		public long events;
+		
+		@Setup(Level.Iteration)
+		public void reset ()
+		{
+			events = 0;
+		}
+	}
+	
+	// Replications cycle within the streams available to a master seed
+	private final static int REPLICATIONS = 256;
+	
+	@Param({"BINARY_HEAP", "PAIRING_HEAP", "CALENDAR_QUEUE"})
+	public EventListType eventList;
+	
+	@Param({"false", "true"})
+	public boolean warmStart;
+	
+	private Simulator simulator;
+	private int replication = 0;
+	
+	@Setup
+	public void setup ()
+	{
+		// Constants are read once per JVM, so the parameters are handed over directly
+		simulator = new Simulator(Network.printerNetwork(), eventList, warmStart);
+	}
+	
+	@Benchmark
+	public SimulationReport replication ( Events counter )
+	{
+		SimulationReport report = simulator.runReplication(replication++ % REPLICATIONS);
+		counter.events += report.numberEvents;
+		return report;
+	}
+}
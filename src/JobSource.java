@@ -1,13 +0,0 @@
-
-/**
- * Enum for various sources of jobs
- * Also known as PC Groups
- * @author Jamie Chung <jfchung@vt.edu>
- *
- */
-public enum JobSource
-{
-	PCGROUP1,
-	PCGROUP2,
-	PCGROUP3
-}
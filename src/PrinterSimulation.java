@@ -1,19 +0,0 @@
-
-/**
- * Wrapper to run main Printer Simulation.
- * @author Jamie Chung <jfchung@vt.edu>
- *
- */
-public class PrinterSimulation
-{	
-	/**
-	 * Wrapper to start simulation
-	 * @param args
-	 */
-	public static void main(String[] args)
-	{
-		// Run the simulator with the settings within Constants!
-		Simulator s = new Simulator();
-		s.run();
-	}
-}
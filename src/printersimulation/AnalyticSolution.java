@@ -0,0 +1,98 @@
+package printersimulation;
+
+/**
+ * Steady state metrics of a network computed by the AnalyticSolver, in
+ * the same order as the metrics of a SimulationReport.
+ */
+public class AnalyticSolution
+{
+	// Rate jobs arrive at each station, including those turned away
+	public double[] arrivalRate;
+	
+	// Rate jobs are taken in by each station
+	public double[] throughput;
+	
+	// Probability a job arriving at each station is turned away
+	public double[] lossProbability;
+	
+	// Utilization per server of each station
+	public double[] utilization;
+	
+	// Average number of jobs at each station, in service or waiting
+	public double[] numberJobs;
+	
+	// Average time a served job spends in the whole system (W)
+	public double averageTime;
+	
+	// Average number of jobs in the whole system (L)
+	public double averageNumberJobs;
+	
+	// Every station can keep up with its arrivals
+	public boolean stable = true;
+	
+	// The network is product form and every service time exponential,
+	// otherwise the values are approximations
+	public boolean exact = true;
+	
+	/**
+	 * Sets up an empty solution
+	 * @param numberStations Number of stations of the network
+	 */
+	public AnalyticSolution ( int numberStations )
+	{
+		arrivalRate = new double[numberStations];
+		throughput = new double[numberStations];
+		lossProbability = new double[numberStations];
+		utilization = new double[numberStations];
+		numberJobs = new double[numberStations];
+	}
+	
+	/**
+	 * Gets a metric of the solution, in the order of Network.metricName
+	 * @param metric Metric index
+	 * @return Value, infinite if the network is not stable
+	 */
+	public double metric ( int metric )
+	{
+		if ( metric < utilization.length ) return utilization[metric];
+		return (metric == utilization.length) ? averageTime : averageNumberJobs;
+	}
+	
+	/**
+	 * Gets the lowest value of a metric expected from a simulation
+	 * @param metric Metric index
+	 * @return Lower bound, NaN if the network is not stable
+	 */
+	public double lower ( int metric )
+	{
+		if ( !stable ) return Double.NaN;
+		if ( metric < utilization.length ) return metric(metric) - Constants.ANALYTIC_UTIL_TOLERANCE;
+		return metric(metric) * (1.0 - Constants.ANALYTIC_RELATIVE_TOLERANCE);
+	}
+	
+	/**
+	 * Gets the highest value of a metric expected from a simulation
+	 * @param metric Metric index
+	 * @return Upper bound, NaN if the network is not stable
+	 */
+	public double upper ( int metric )
+	{
+		if ( !stable ) return Double.NaN;
+		if ( metric < utilization.length ) return metric(metric) + Constants.ANALYTIC_UTIL_TOLERANCE;
+		return metric(metric) * (1.0 + Constants.ANALYTIC_RELATIVE_TOLERANCE);
+	}
+	
+	/**
+	 * Gets the highest utilization of any station
+	 * @return Utilization, infinite if the network is not stable
+	 */
+	public double maxUtilization ()
+	{
+		double max = 0.0;
+		for ( int s = 0; s < utilization.length; s++ )
+		{
+			max = Math.max(max, utilization[s]);
+		}
+		return stable ? max : Double.POSITIVE_INFINITY;
+	}
+}
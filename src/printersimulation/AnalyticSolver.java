@@ -0,0 +1,218 @@
+package printersimulation;
+
+/**
+ * Computes the steady state metrics of a network from queueing theory,
+ * without simulating it. It takes microseconds, so it serves as the oracle
+ * the simulated metrics are checked against and lets a parameter sweep
+ * screen out points before simulating them.
+ */
+public class AnalyticSolver
+{
+	// Iterations of the traffic equations before giving up on convergence
+	private final static int MAX_ITERATIONS = 10000;
+	
+	// Relative change of the arrival rates at which the iterations stop
+	private final static double TOLERANCE = 1e-12;
+	
+	/**
+	 * Solves a network
+	 * @param network Network of stations
+	 * @return AnalyticSolution
+	 */
+	public static AnalyticSolution solve ( Network network )
+	{
+		/**
+		 * ===============================
+		 * Analytic Solution Documentation
+		 * ===============================
+		 * The arrival rate of every station is found from the traffic
+		 * equations, the rate from outside the network plus the rate routed to
+		 * it by the other stations. They are solved by repeated substitution,
+		 * which takes as many rounds as the longest route through a network
+		 * without feedback. With Poisson arrivals and exponential service every
+		 * station with an unlimited buffer is then an M/M/c queue of the Jackson
+		 * network, and a station holding at most K jobs is an M/M/c/K queue
+		 * which turns away a share of its arrivals, so only its throughput is
+		 * passed on downstream. This is exact for the printer network, whose only
+		 * finite buffer is its last station. Service times which are not
+		 * exponential are handled with the Allen-Cunneen approximation.
+		 * L is the sum of the jobs at every station. W of the served jobs is the
+		 * time spent at every station weighted by the number of visits a job
+		 * makes to it, and Little's law gives the time per visit.
+		 */
+		
+		int n = network.size();
+		AnalyticSolution solution = new AnalyticSolution(n);
+		
+		// Arrivals from outside the network
+		double[] external = new double[n];
+		double totalExternal = 0.0;
+		for ( int source = 0; source < network.numberSources(); source++ )
+		{
+			double rate = 1.0 / network.meanArrivalTime(source);
+			external[network.entryStation(source)] += rate;
+			totalExternal += rate;
+		}
+		
+		// Visits per job, from the traffic equations without any losses
+		double[] visits = trafficEquations(network, external, null, solution);
+		
+		// Arrival rates with the losses of the finite buffers
+		double[] rate = trafficEquations(network, external, solution.throughput, solution);
+		
+		// Time spent at every station, weighted by the visits
+		solution.averageTime = 0.0;
+		solution.averageNumberJobs = 0.0;
+		for ( int s = 0; s < n; s++ )
+		{
+			solution.arrivalRate[s] = rate[s];
+			solution.averageNumberJobs += solution.numberJobs[s];
+			
+			if ( solution.throughput[s] > 0.0 )
+			{
+				solution.averageTime += (visits[s] / totalExternal) * solution.numberJobs[s] / solution.throughput[s];
+			}
+			
+			Station station = network.station(s);
+			if ( station.service.getType() != Distribution.Type.EXPONENTIAL ) solution.exact = false;
+			
+			// Jobs passed on by a finite buffer no longer arrive as a Poisson stream
+			if ( station.capacity > 0 )
+			{
+				for ( int target : station.getRoutes() )
+				{
+					if ( target != Station.EXIT ) solution.exact = false;
+				}
+			}
+		}
+		
+		if ( !solution.stable )
+		{
+			solution.averageTime = Double.POSITIVE_INFINITY;
+			solution.averageNumberJobs = Double.POSITIVE_INFINITY;
+		}
+		
+		return solution;
+	}
+	
+	/**
+	 * Solves the traffic equations by repeated substitution, solving
+	 * every station for its arrival rate along the way
+	 * @param network Network of stations
+	 * @param external Rate of arrivals from outside the network at every station
+	 * @param passed Throughput of the stations passed on downstream, null to pass on every arrival
+	 * @param solution Solution the stations are solved into
+	 * @return Arrival rate of every station
+	 */
+	private static double[] trafficEquations ( Network network, double[] external, double[] passed, AnalyticSolution solution )
+	{
+		int n = network.size();
+		double[] rate = external.clone();
+		double[] next = new double[n];
+		
+		for ( int iteration = 0; iteration < MAX_ITERATIONS; iteration++ )
+		{
+			for ( int s = 0; s < n; s++ )
+			{
+				solveStation(network.station(s), rate[s], solution);
+			}
+			
+			System.arraycopy(external, 0, next, 0, n);
+			for ( int s = 0; s < n; s++ )
+			{
+				Station station = network.station(s);
+				double out = (passed != null) ? passed[s] : rate[s];
+				int[] routes = station.getRoutes();
+				for ( int r = 0; r < routes.length; r++ )
+				{
+					if ( routes[r] != Station.EXIT ) next[routes[r]] += out * station.routeProbability(r);
+				}
+			}
+			
+			double change = 0.0;
+			for ( int s = 0; s < n; s++ )
+			{
+				change = Math.max(change, Math.abs(next[s] - rate[s]) / Math.max(1.0, Math.abs(next[s])));
+				rate[s] = next[s];
+			}
+			
+			if ( change < TOLERANCE )
+			{
+				for ( int s = 0; s < n; s++ )
+				{
+					solveStation(network.station(s), rate[s], solution);
+				}
+				return rate;
+			}
+		}
+		
+		// Jobs never leave a loop of the routing
+		solution.stable = false;
+		return rate;
+	}
+	
+	/**
+	 * Solves a single station as an M/M/c queue, or an M/M/c/K queue
+	 * if it holds at most K jobs
+	 * @param station Station to solve
+	 * @param lambda Arrival rate at the station
+	 * @param solution Solution the station is solved into
+	 */
+	private static void solveStation ( Station station, double lambda, AnalyticSolution solution )
+	{
+		int id = station.id;
+		int c = station.servers;
+		double offered = lambda * station.service.mean();
+		
+		// Unnormalized probability of n jobs at the station is t_n = t_(n-1) * a / min(n, c)
+		double term = 1.0;
+		double sum = 1.0;
+		double weighted = 0.0;
+		
+		if ( station.capacity > 0 )
+		{
+			for ( int k = 1; k <= station.capacity; k++ )
+			{
+				term *= offered / Math.min(k, c);
+				sum += term;
+				weighted += k * term;
+			}
+			
+			solution.lossProbability[id] = term / sum;
+			solution.throughput[id] = lambda * (1.0 - term / sum);
+			solution.numberJobs[id] = weighted / sum;
+			solution.utilization[id] = solution.throughput[id] * station.service.mean() / c;
+			return;
+		}
+		
+		double rho = offered / c;
+		solution.lossProbability[id] = 0.0;
+		solution.throughput[id] = lambda;
+		solution.utilization[id] = rho;
+		if ( rho >= 1.0 )
+		{
+			solution.stable = false;
+			solution.numberJobs[id] = Double.POSITIVE_INFINITY;
+			return;
+		}
+		
+		for ( int k = 1; k <= c; k++ )
+		{
+			term *= offered / k;
+			if ( k < c )
+			{
+				sum += term;
+				weighted += k * term;
+			}
+		}
+		
+		// The states from c jobs on form a geometric series of ratio rho
+		sum += term / (1.0 - rho);
+		weighted += term * (c / (1.0 - rho) + rho / ((1.0 - rho) * (1.0 - rho)));
+		
+		// Allen-Cunneen scales the queue by the variability of the service times
+		double queue = weighted / sum - offered;
+		double variability = (1.0 + station.service.squaredCoefficientOfVariation()) / 2.0;
+		solution.numberJobs[id] = offered + queue * variability;
+	}
+}
@@ -0,0 +1,239 @@
+package printersimulation;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Streams the arrivals of a production print log, one job at a time, so
+ * that logs far larger than the heap can be replayed. A record is the
+ * timestamp the job arrived at, its source and optionally its page count.
+ * Sources are resolved against the sources of the network being simulated,
+ * so a log can feed any source of a sources file, not just the PC groups.
+ * The timestamps have to be in order, and are turned into simulation
+ * time by taking off the first timestamp and multiplying by a scale.
+ * CsvArrivalLog reads text logs through a small buffer and
+ * BinaryArrivalLog maps compact binary logs window by window.
+ */
+public abstract class ArrivalLog
+{
+	// Timestamp of the current record as written in the log
+	public double timestamp;
+	
+	// Source id of the current record within the network
+	public int source;
+	
+	// Pages of the current record, 0 if not known
+	public int pages;
+	
+	// Arrival time of the current record in simulation time
+	public double time;
+	
+	// Path of the log, used in error messages
+	protected String path;
+	
+	// Network the sources of the log are looked up in
+	protected Network network;
+	
+	// Multiplies the timestamps into simulation time
+	private double scale;
+	
+	// Timestamp of the first record, the start of the simulation clock
+	private double origin;
+	
+	// Number of records read since the start of the log
+	private long records = 0;
+	
+	/**
+	 * Opens a log, binary if it starts with BinaryArrivalLog.MAGIC and CSV otherwise
+	 * @param path Path of the log
+	 * @param scale Multiplies the timestamps into simulation time
+	 * @param network Network the sources of the log are looked up in
+	 * @return ArrivalLog positioned before its first record
+	 */
+	public static ArrivalLog open ( String path, double scale, Network network )
+	{
+		try
+		{
+			long magic = 0;
+			DataInputStream in = new DataInputStream(new FileInputStream(path));
+			try
+			{
+				magic = Long.reverseBytes(in.readLong());
+			}
+			catch ( IOException e )
+			{
+				// Shorter than a header, so it can only be a CSV log
+			}
+			finally
+			{
+				in.close();
+			}
+			
+			if ( magic == BinaryArrivalLog.MAGIC )
+			{
+				return new BinaryArrivalLog(path, scale, network);
+			}
+			return new CsvArrivalLog(path, scale, network);
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not open arrival log " + path, e);
+		}
+	}
+	
+	/**
+	 * Sets up a log
+	 * @param path Path of the log
+	 * @param scale Multiplies the timestamps into simulation time
+	 * @param network Network the sources of the log are looked up in
+	 */
+	protected ArrivalLog ( String path, double scale, Network network )
+	{
+		this.path = path;
+		this.scale = scale;
+		this.network = network;
+	}
+	
+	/**
+	 * Moves on to the next record
+	 * @return True if there was one, false at the end of the log
+	 */
+	public boolean next ()
+	{
+		double previous = timestamp;
+		
+		try
+		{
+			if ( !read() ) return false;
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not read arrival log " + path, e);
+		}
+		
+		if ( records == 0 )
+		{
+			origin = timestamp;
+		}
+		else if ( timestamp < previous )
+		{
+			throw new IllegalStateException("Arrival log " + path + " goes back in time at record " + (records + 1));
+		}
+		
+		records++;
+		time = (timestamp - origin) * scale;
+		return true;
+	}
+	
+	/**
+	 * Goes back to the start of the log, so that the next record is the first
+	 */
+	public void rewind ()
+	{
+		records = 0;
+		
+		try
+		{
+			seek(0);
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not rewind arrival log " + path, e);
+		}
+	}
+	
+	/**
+	 * Gets the number of records read since the start of the log
+	 * @return Number of records
+	 */
+	public long getRecords ()
+	{
+		return records;
+	}
+	
+	/**
+	 * Writes how far the log has been read to a checkpoint
+	 * @param out Checkpoint being written
+	 * @throws IOException
+	 */
+	public void writeState ( DataOutput out ) throws IOException
+	{
+		out.writeLong(records);
+		out.writeDouble(origin);
+		out.writeDouble(timestamp);
+		out.writeLong(offset());
+	}
+	
+	/**
+	 * Carries on reading the log from where a checkpoint left it
+	 * @param in Checkpoint being read
+	 * @throws IOException
+	 */
+	public void readState ( DataInput in ) throws IOException
+	{
+		records = in.readLong();
+		origin = in.readDouble();
+		timestamp = in.readDouble();
+		seek(in.readLong());
+	}
+	
+	/**
+	 * Looks up a source by its group number, the first source of the network being 1
+	 * @param group Group number
+	 * @return Source id
+	 */
+	protected int group ( int group )
+	{
+		if ( group < 1 || group > network.numberSources() )
+		{
+			throw new IllegalStateException("Arrival log " + path + " has an unknown source group " + group + " at record " + (records + 1) +
+					", the network has " + network.numberSources() + " job sources");
+		}
+		return group - 1;
+	}
+	
+	/**
+	 * Looks up a source by its name
+	 * @param name Name of the source within the network
+	 * @return Source id
+	 */
+	protected int named ( String name )
+	{
+		try
+		{
+			return network.source(name);
+		}
+		catch ( IllegalArgumentException e )
+		{
+			throw new IllegalStateException("Arrival log " + path + " has an unknown source " + name + " at record " + (records + 1));
+		}
+	}
+	
+	/**
+	 * Reads the next record into timestamp, source and pages
+	 * @return True if there was one, false at the end of the log
+	 * @throws IOException
+	 */
+	protected abstract boolean read () throws IOException;
+	
+	/**
+	 * Gets where the next record starts
+	 * @return Offset to hand back to seek
+	 */
+	protected abstract long offset ();
+	
+	/**
+	 * Positions the log before a record
+	 * @param offset Offset given by offset, 0 for the first record
+	 * @throws IOException
+	 */
+	protected abstract void seek ( long offset ) throws IOException;
+	
+	/**
+	 * Closes the file of the log
+	 */
+	public abstract void close ();
+}
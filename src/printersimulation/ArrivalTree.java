@@ -0,0 +1,158 @@
+package printersimulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tournament tree over the next arrival time of every job source. Each
+ * inner node holds the source with the earlier time of its two children,
+ * so the next source to fire sits at the root and replacing the time of a
+ * source replays only the matches on its path, O(log k) for k sources.
+ * A pending arrival is only a time in the tree, the job itself is created
+ * once the arrival fires.
+ */
+public class ArrivalTree
+{
+	// Number of sources
+	private int sources;
+	
+	// Number of leaves, the number of sources rounded up to a power of two
+	private int leaves;
+	
+	// Next arrival time of every leaf, infinite for the leaves without a source
+	private double[] time;
+	
+	// Source winning every match, node 1 is the root and node i plays 2i against 2i + 1
+	private int[] winner;
+	
+	/**
+	 * Sets up a tree with no arrival pending for any source
+	 * @param sources Number of job sources
+	 */
+	public ArrivalTree ( int sources )
+	{
+		this.sources = sources;
+		leaves = 1;
+		while ( leaves < sources ) leaves <<= 1;
+		
+		time = new double[leaves];
+		winner = new int[2 * leaves];
+		clear();
+	}
+	
+	/**
+	 * Gets the number of sources
+	 * @return Number of sources
+	 */
+	public int size ()
+	{
+		return sources;
+	}
+	
+	/**
+	 * Gets the source whose arrival comes first, ties going to the lowest source
+	 * @return Source id
+	 */
+	public int first ()
+	{
+		return winner[1];
+	}
+	
+	/**
+	 * Gets the time of the first arrival
+	 * @return Arrival time, infinite if no arrival is pending
+	 */
+	public double firstTime ()
+	{
+		return time[winner[1]];
+	}
+	
+	/**
+	 * Gets the next arrival time of a source
+	 * @param source Source id
+	 * @return Arrival time, infinite if none is pending
+	 */
+	public double time ( int source )
+	{
+		return time[source];
+	}
+	
+	/**
+	 * Sets the next arrival time of a source and replays its matches
+	 * @param source Source id
+	 * @param t Arrival time, infinite if none is pending
+	 */
+	public void update ( int source, double t )
+	{
+		time[source] = t;
+		
+		int node = (source + leaves) >> 1;
+		while ( node > 0 )
+		{
+			int a = winner[2 * node];
+			int b = winner[2 * node + 1];
+			winner[node] = (time[b] < time[a]) ? b : a;
+			node >>= 1;
+		}
+	}
+	
+	/**
+	 * Takes every pending arrival out of the tree
+	 */
+	public void clear ()
+	{
+		Arrays.fill(time, Double.POSITIVE_INFINITY);
+		build();
+	}
+	
+	/**
+	 * Plays every match from the leaves up
+	 */
+	private void build ()
+	{
+		for ( int i = 0; i < leaves; i++ )
+		{
+			winner[leaves + i] = i;
+		}
+		for ( int node = leaves - 1; node > 0; node-- )
+		{
+			int a = winner[2 * node];
+			int b = winner[2 * node + 1];
+			winner[node] = (time[b] < time[a]) ? b : a;
+		}
+	}
+	
+	/**
+	 * Writes the pending arrival times to a checkpoint
+	 * @param out Checkpoint being written
+	 * @throws IOException
+	 */
+	public void writeState ( DataOutput out ) throws IOException
+	{
+		out.writeInt(sources);
+		for ( int i = 0; i < sources; i++ )
+		{
+			out.writeDouble(time[i]);
+		}
+	}
+	
+	/**
+	 * Reads the pending arrival times back from a checkpoint
+	 * @param in Checkpoint being read
+	 * @throws IOException
+	 */
+	public void readState ( DataInput in ) throws IOException
+	{
+		if ( in.readInt() != sources )
+		{
+			throw new IOException("Checkpoint holds a different number of job sources");
+		}
+		for ( int i = 0; i < sources; i++ )
+		{
+			time[i] = in.readDouble();
+		}
+		build();
+	}
+}
@@ -0,0 +1,214 @@
+package printersimulation;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Arrival log of fixed width binary records, read through a memory mapped
+ * window which slides along the file, so logs of hundreds of millions of
+ * jobs are replayed without being read into the heap and without the 2 GB
+ * limit of a single mapping. Convert a CSV log with
+ * java printersimulation.BinaryArrivalLog <log.csv> <log.bin>
+ * where the sources of the log are looked up in the printer network, with
+ * the sources of -Dsimulation.sources when it is set.
+ */
+public class BinaryArrivalLog extends ArrivalLog
+{
+	/**
+	 * ===============================
+	 * Record Format Documentation
+	 * ===============================
+	 * Little endian, a HEADER_SIZE byte header holding MAGIC and the
+	 * record size, then RECORD_SIZE bytes per record:
+	 *  0 double  timestamp
+	 *  8 int     pages, 0 if not known
+	 * 12 int     source id, the position of the source within the network
+	 * Logs written when this was a byte followed by 3 unused zero bytes
+	 * read the same.
+	 */
+	
+	// Marks a binary arrival log, PSARRIV1 in ASCII
+	public final static long MAGIC = 0x3156495252415350L;
+	
+	// Size of the header and of a record in bytes
+	public final static int HEADER_SIZE = 16;
+	public final static int RECORD_SIZE = 16;
+	
+	// Records mapped at a time, 64 MB
+	private final static int WINDOW_RECORDS = 1 << 22;
+	
+	// Channel the windows are mapped from
+	private FileChannel channel;
+	
+	// Number of records in the file
+	private long numberRecords;
+	
+	// Window of the file being read
+	private MappedByteBuffer window = null;
+	
+	// Record the window starts at and how many it holds
+	private long windowStart;
+	private int windowRecords;
+	
+	// Record read next
+	private long index;
+	
+	/**
+	 * Opens a binary log
+	 * @param path Path of the log
+	 * @param scale Multiplies the timestamps into simulation time
+	 * @param network Network the sources of the log are looked up in
+	 * @throws IOException
+	 */
+	public BinaryArrivalLog ( String path, double scale, Network network ) throws IOException
+	{
+		super(path, scale, network);
+		channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+		
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		while ( header.hasRemaining() && channel.read(header) >= 0 );
+		if ( header.position() < HEADER_SIZE || header.getLong(0) != MAGIC || header.getInt(8) != RECORD_SIZE )
+		{
+			channel.close();
+			throw new IOException(path + " is not a binary arrival log");
+		}
+		
+		numberRecords = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+		seek(0);
+	}
+	
+	/**
+	 * Reads the next record, mapping the next window when the current one is used up
+	 * @return True if there was one, false at the end of the log
+	 * @throws IOException
+	 */
+	protected boolean read () throws IOException
+	{
+		if ( index == numberRecords ) return false;
+		
+		if ( window == null || index == windowStart + windowRecords )
+		{
+			windowStart = index;
+			windowRecords = (int) Math.min(WINDOW_RECORDS, numberRecords - index);
+			window = channel.map(FileChannel.MapMode.READ_ONLY,
+					HEADER_SIZE + windowStart * RECORD_SIZE, (long) windowRecords * RECORD_SIZE);
+			window.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		
+		int p = (int) (index - windowStart) * RECORD_SIZE;
+		timestamp = window.getDouble(p);
+		pages = window.getInt(p + 8);
+		source = group(window.getInt(p + 12) + 1);
+		index++;
+		
+		return true;
+	}
+	
+	/**
+	 * Gets the number of the next record
+	 * @return Record number
+	 */
+	protected long offset ()
+	{
+		return index;
+	}
+	
+	/**
+	 * Goes to a record, mapping its window when it is read
+	 * @param offset Record number, 0 for the first record
+	 */
+	protected void seek ( long offset )
+	{
+		index = offset;
+		window = null;
+	}
+	
+	/**
+	 * Closes the file of the log
+	 */
+	public void close ()
+	{
+		window = null;
+		try
+		{
+			channel.close();
+		}
+		catch ( IOException e )
+		{
+			// Nothing was written, so there is nothing to lose
+		}
+	}
+	
+	/**
+	 * Writes the header of a binary log
+	 * @param out Stream the log is written to
+	 * @throws IOException
+	 */
+	public static void writeHeader ( OutputStream out ) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.putLong(MAGIC);
+		header.putInt(RECORD_SIZE);
+		out.write(header.array());
+	}
+	
+	/**
+	 * Writes a record of a binary log
+	 * @param out Stream the log is written to
+	 * @param record Buffer of RECORD_SIZE bytes to build the record in
+	 * @param timestamp Time the job arrived at
+	 * @param source Source id of the job
+	 * @param pages Pages of the job, 0 if not known
+	 * @throws IOException
+	 */
+	public static void writeRecord ( OutputStream out, ByteBuffer record, double timestamp, int source, int pages ) throws IOException
+	{
+		record.order(ByteOrder.LITTLE_ENDIAN);
+		record.putDouble(0, timestamp);
+		record.putInt(8, pages);
+		record.putInt(12, source);
+		out.write(record.array(), 0, RECORD_SIZE);
+	}
+	
+	/**
+	 * Converts a CSV arrival log to a binary one
+	 * @param args <log.csv> <log.bin>
+	 * @throws IOException
+	 */
+	public static void main ( String[] args ) throws IOException
+	{
+		if ( args.length != 2 )
+		{
+			System.err.println("Usage: BinaryArrivalLog <log.csv> <log.bin>");
+			System.exit(1);
+		}
+		
+		ArrivalLog log = new CsvArrivalLog(args[0], 1.0, Network.printerNetwork());
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(args[1]), 1 << 16);
+		ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		
+		try
+		{
+			writeHeader(out);
+			while ( log.next() )
+			{
+				writeRecord(out, record, log.timestamp, log.source, log.pages);
+			}
+		}
+		finally
+		{
+			out.close();
+			log.close();
+		}
+		
+		System.out.println("Wrote " + log.getRecords() + " arrivals to " + args[1]);
+	}
+}
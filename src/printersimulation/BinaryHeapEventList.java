@@ -0,0 +1,129 @@
+package printersimulation;
+
+import java.util.Arrays;
+
+/**
+ * Future event list backed by an array based binary min heap.
+ * Insert and poll are both O(log n) in the number of pending jobs.
+ */
+public class BinaryHeapEventList implements FutureEventList
+{
+	// Store holding the arrival times and insertion order of the jobs
+	private JobStore store;
+	
+	// Heap ordered array of job handles, the earliest job is at index 0
+	private int[] heap = new int[16];
+	
+	// Number of jobs in the heap
+	private int size = 0;
+	
+	// Next insertion order value handed to an inserted job
+	private long nextSequence = 0;
+	
+	/**
+	 * Sets up an empty heap
+	 * @param store Store holding the jobs
+	 */
+	public BinaryHeapEventList ( JobStore store )
+	{
+		this.store = store;
+	}
+	
+	/**
+	 * Inserts a job event into the heap
+	 * @param j Handle of the job
+	 */
+	public void insert ( int j )
+	{
+		if ( size == heap.length )
+		{
+			int[] grown = new int[heap.length * 2];
+			System.arraycopy(heap, 0, grown, 0, size);
+			heap = grown;
+		}
+		
+		store.sequence[j] = nextSequence++;
+		
+		// Sift the new job up from the bottom of the heap
+		int i = size++;
+		while ( i > 0 )
+		{
+			int parent = (i - 1) >>> 1;
+			if ( !store.before(j, heap[parent]) ) break;
+			
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = j;
+	}
+	
+	/**
+	 * Gets the earliest job event without removing it
+	 * @return Handle of the earliest job, JobStore.NONE if the heap is empty
+	 */
+	public int peek ()
+	{
+		return (size == 0) ? JobStore.NONE : heap[0];
+	}
+	
+	/**
+	 * Removes the earliest job event from the heap
+	 * @return Handle of the earliest job, JobStore.NONE if the heap is empty
+	 */
+	public int poll ()
+	{
+		if ( size == 0 ) return JobStore.NONE;
+		
+		int first = heap[0];
+		int last = heap[--size];
+		
+		if ( size > 0 )
+		{
+			// Sift the last job down from the top of the heap
+			int i = 0;
+			int half = size >>> 1;
+			while ( i < half )
+			{
+				int child = 2 * i + 1;
+				int right = child + 1;
+				if ( right < size && store.before(heap[right], heap[child]) )
+				{
+					child = right;
+				}
+				if ( !store.before(heap[child], last) ) break;
+				
+				heap[i] = heap[child];
+				i = child;
+			}
+			heap[i] = last;
+		}
+		
+		return first;
+	}
+	
+	/**
+	 * Returns the number of job events in the heap
+	 * @return Number of jobs in the heap
+	 */
+	public int size ()
+	{
+		return size;
+	}
+	
+	/**
+	 * Copies the handles of the job events in the heap
+	 * @return Handles of the jobs in heap order
+	 */
+	public int[] toArray ()
+	{
+		return Arrays.copyOf(heap, size);
+	}
+	
+	/**
+	 * Removes all the job events from the heap
+	 */
+	public void clear ()
+	{
+		size = 0;
+	}
+}
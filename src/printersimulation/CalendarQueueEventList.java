@@ -0,0 +1,344 @@
+package printersimulation;
+
+import java.util.Arrays;
+
+/**
+ * Future event list backed by a calendar queue (R. Brown, 1988).
+ * Jobs are hashed by arrival time into an array of "day" buckets which
+ * each hold a short sorted list. The number of buckets is doubled or
+ * halved as the list grows or shrinks and the bucket width is re-estimated
+ * from the spacing of the earliest events, giving O(1) amortized insert
+ * and poll when the event times are reasonably spread out.
+ * The bucket lists are linked through an array indexed by job handle.
+ * The bucket array only grows, a calendar halved or doubled again within
+ * the largest size it has had reuses it, so the steady state of a
+ * replication resizes without allocating.
+ */
+public class CalendarQueueEventList implements FutureEventList
+{
+	// Smallest number of buckets the calendar will shrink to
+	private final static int MIN_BUCKETS = 16;
+	
+	// Number of earliest events sampled when estimating the bucket width
+	private final static int WIDTH_SAMPLE = 25;
+	
+	// Store holding the arrival times and insertion order of the jobs
+	private JobStore store;
+	
+	// First job of every day bucket, of which numberBuckets are in use
+	private int[] buckets = new int[MIN_BUCKETS];
+	private int numberBuckets = MIN_BUCKETS;
+	
+	// Next job within the bucket of every job in the calendar
+	private int[] next;
+	
+	// Time covered by a single bucket
+	private double width = 1.0;
+	
+	// Absolute bucket number (arrival time / width) currently being dequeued
+	private long currentDay = 0;
+	
+	// Number of jobs in the calendar
+	private int size = 0;
+	
+	// Next insertion order value handed to an inserted job
+	private long nextSequence = 0;
+	
+	// Set while the calendar is being rebuilt so that it is not resized again
+	private boolean resizing = false;
+	
+	// Scratch space used while rebuilding the calendar
+	private int[] sampled = new int[WIDTH_SAMPLE];
+	private int[] gathered = new int[4 * MIN_BUCKETS];
+	
+	/**
+	 * Sets up an empty calendar
+	 * @param store Store holding the jobs
+	 */
+	public CalendarQueueEventList ( JobStore store )
+	{
+		this.store = store;
+		next = new int[store.capacity()];
+		Arrays.fill(buckets, JobStore.NONE);
+	}
+	
+	/**
+	 * Inserts a job event into the calendar
+	 * @param j Handle of the job
+	 */
+	public void insert ( int j )
+	{
+		if ( j >= next.length )
+		{
+			next = Arrays.copyOf(next, store.capacity());
+		}
+		
+		store.sequence[j] = nextSequence++;
+		enqueue(j);
+		
+		if ( !resizing && size > 2 * numberBuckets )
+		{
+			resize(numberBuckets * 2);
+		}
+	}
+	
+	/**
+	 * Gets the earliest job event without removing it, moving the current
+	 * day up to the day of that event
+	 * @return Handle of the earliest job, JobStore.NONE if the calendar is empty
+	 */
+	public int peek ()
+	{
+		int i = earliestBucket();
+		return (i < 0) ? JobStore.NONE : buckets[i];
+	}
+	
+	/**
+	 * Removes the earliest job event from the calendar
+	 * @return Handle of the earliest job, JobStore.NONE if the calendar is empty
+	 */
+	public int poll ()
+	{
+		int j = dequeue();
+		if ( j == JobStore.NONE ) return JobStore.NONE;
+		
+		if ( !resizing && numberBuckets > MIN_BUCKETS && size < numberBuckets / 2 )
+		{
+			resize(numberBuckets / 2);
+		}
+		
+		return j;
+	}
+	
+	/**
+	 * Returns the number of job events in the calendar
+	 * @return Number of jobs in the calendar
+	 */
+	public int size ()
+	{
+		return size;
+	}
+	
+	/**
+	 * Copies the handles of the job events in the calendar
+	 * @return Handles of the jobs, bucket by bucket
+	 */
+	public int[] toArray ()
+	{
+		int[] jobs = new int[size];
+		int count = 0;
+		for ( int i = 0; i < numberBuckets; i++ )
+		{
+			for ( int j = buckets[i]; j != JobStore.NONE; j = next[j] )
+			{
+				jobs[count++] = j;
+			}
+		}
+		
+		return jobs;
+	}
+	
+	/**
+	 * Removes all the job events from the calendar
+	 */
+	public void clear ()
+	{
+		numberBuckets = MIN_BUCKETS;
+		Arrays.fill(buckets, 0, numberBuckets, JobStore.NONE);
+		width = 1.0;
+		currentDay = 0;
+		size = 0;
+	}
+	
+	/**
+	 * Absolute bucket number for a given time
+	 * @param time Arrival time of an event
+	 * @return Day of the event
+	 */
+	private long day ( double time )
+	{
+		return (long) Math.floor(time / width);
+	}
+	
+	/**
+	 * Places a job in its bucket without changing its insertion order
+	 * @param j Handle of the job
+	 */
+	private void enqueue ( int j )
+	{
+		long d = day(store.arrivalTime[j]);
+		
+		// Events in the past rewind the calendar so they are found first
+		if ( d < currentDay ) currentDay = d;
+		
+		int i = (int) (d & (numberBuckets - 1));
+		
+		// Keep the bucket sorted, ties are placed after by insertion order
+		int prev = JobStore.NONE;
+		int cur = buckets[i];
+		while ( cur != JobStore.NONE && store.before(cur, j) )
+		{
+			prev = cur;
+			cur = next[cur];
+		}
+		
+		next[j] = cur;
+		if ( prev == JobStore.NONE )
+		{
+			buckets[i] = j;
+		}
+		else
+		{
+			next[prev] = j;
+		}
+		
+		size++;
+	}
+	
+	/**
+	 * Removes the earliest job from the calendar
+	 * @return Handle of the earliest job, JobStore.NONE if the calendar is empty
+	 */
+	private int dequeue ()
+	{
+		int i = earliestBucket();
+		return (i < 0) ? JobStore.NONE : removeHead(i);
+	}
+	
+	/**
+	 * Finds the bucket whose first job is the earliest, moving the current
+	 * day up to the day of that job
+	 * @return Bucket index, -1 if the calendar is empty
+	 */
+	private int earliestBucket ()
+	{
+		if ( size == 0 ) return -1;
+		
+		int mask = numberBuckets - 1;
+		
+		// Walk one year of the calendar looking for an event due today
+		for ( int k = 0; k < numberBuckets; k++ )
+		{
+			int i = (int) (currentDay & mask);
+			int head = buckets[i];
+			if ( head != JobStore.NONE && day(store.arrivalTime[head]) <= currentDay )
+			{
+				return i;
+			}
+			currentDay++;
+		}
+		
+		// Nothing due within a year, jump directly to the earliest event
+		int best = -1;
+		for ( int i = 0; i < numberBuckets; i++ )
+		{
+			int head = buckets[i];
+			if ( head != JobStore.NONE && (best < 0 || store.before(head, buckets[best])) )
+			{
+				best = i;
+			}
+		}
+		
+		currentDay = day(store.arrivalTime[buckets[best]]);
+		return best;
+	}
+	
+	/**
+	 * Unlinks the first job of a bucket
+	 * @param i Bucket index
+	 * @return Handle of the removed job
+	 */
+	private int removeHead ( int i )
+	{
+		int head = buckets[i];
+		buckets[i] = next[head];
+		size--;
+		return head;
+	}
+	
+	/**
+	 * Rebuilds the calendar with a new number of buckets and a bucket
+	 * width estimated from the average spacing of the earliest events
+	 * @param newSize New number of buckets, a power of two
+	 */
+	private void resize ( int newSize )
+	{
+		resizing = true;
+		
+		// Sample the earliest events to estimate the new width
+		int samples = Math.min(size, WIDTH_SAMPLE);
+		for ( int i = 0; i < samples; i++ )
+		{
+			sampled[i] = dequeue();
+		}
+		double newWidth = estimateWidth(samples);
+		
+		// Gather every remaining job
+		if ( gathered.length < size + samples )
+		{
+			gathered = new int[2 * (size + samples)];
+		}
+		int count = 0;
+		for ( int i = 0; i < samples; i++ )
+		{
+			gathered[count++] = sampled[i];
+		}
+		for ( int i = 0; i < numberBuckets; i++ )
+		{
+			int j = buckets[i];
+			while ( j != JobStore.NONE )
+			{
+				gathered[count++] = j;
+				j = next[j];
+			}
+		}
+		
+		// Re-distribute into the new calendar starting from the earliest event
+		if ( buckets.length < newSize )
+		{
+			buckets = new int[newSize];
+		}
+		numberBuckets = newSize;
+		Arrays.fill(buckets, 0, numberBuckets, JobStore.NONE);
+		width = newWidth;
+		size = 0;
+		currentDay = (count > 0) ? day(store.arrivalTime[gathered[0]]) : 0;
+		for ( int i = 0; i < count; i++ )
+		{
+			enqueue(gathered[i]);
+		}
+		
+		resizing = false;
+	}
+	
+	/**
+	 * Estimates the bucket width as three times the average separation
+	 * of the sampled events, ignoring separations more than twice the
+	 * average so that a few outliers do not widen every bucket
+	 * @param samples Number of earliest events held in sampled, in order
+	 * @return Bucket width
+	 */
+	private double estimateWidth ( int samples )
+	{
+		if ( samples < 2 ) return width;
+		
+		double[] time = store.arrivalTime;
+		double total = time[sampled[samples - 1]] - time[sampled[0]];
+		double average = total / (samples - 1);
+		
+		double sum = 0.0;
+		int count = 0;
+		for ( int i = 1; i < samples; i++ )
+		{
+			double separation = time[sampled[i]] - time[sampled[i - 1]];
+			if ( separation <= 2.0 * average )
+			{
+				sum += separation;
+				count++;
+			}
+		}
+		
+		if ( count == 0 || sum <= 0.0 ) return width;
+		return 3.0 * sum / count;
+	}
+}
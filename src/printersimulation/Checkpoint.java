@@ -0,0 +1,417 @@
+package printersimulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Saves a running simulation to a binary file now and then, so that a run
+ * which crashes or is preempted can be resumed with the same output as if
+ * it had never stopped.
+ */
+public class Checkpoint
+{
+	/**
+	 * ===============================
+	 * Checkpoint Documentation
+	 * ===============================
+	 * Replications are reproduced from the master seed alone, so for them the
+	 * checkpoint only holds the master seed and the rows of the replications
+	 * recorded so far. A resumed run records those rows again and carries on
+	 * with the next replication. The long run of the batch means mode is
+	 * saved between two events instead: the jobs and the event list, the
+	 * station queues and servers, the seeds of every random number stream,
+	 * the report accumulators, the measurement series and the number of jobs
+	 * that have exited. The event loop only copies that state into a byte
+	 * array, which takes well under a millisecond, and a background thread
+	 * writes it to a temporary file and moves it over the checkpoint, so a
+	 * crash while writing never leaves a broken checkpoint behind. When the
+	 * previous write has not finished yet the snapshot is skipped rather than
+	 * waited for.
+	 */
+	
+	// Marks a checkpoint file, PSCHECK1 in ASCII
+	public final static long MAGIC = 0x314b434548435350L;
+	
+	// Events between two looks at the clock to see if a checkpoint is due
+	public final static int CHECK_EVENTS = 1 << 14;
+	
+	// File the checkpoint is written to
+	private File file;
+	
+	// Network of the simulation, the checkpoint has to match it
+	private Network network;
+	
+	// Master seed of the simulation
+	private long masterSeed;
+	
+	// Wall time between two checkpoints in nanoseconds
+	private long interval;
+	
+	// Wall time the next checkpoint is due
+	private long due;
+	
+	// Rows of the replications recorded so far, every metric, the warmup jobs then any percentiles
+	private ArrayList<double[]> rows = new ArrayList<double[]>();
+	
+	// Number of rows read back from the file when resuming
+	private int resumedRows = 0;
+	
+	// State of the long run of the batch means mode read back when resuming, null if none
+	private byte[] resumedRun = null;
+	
+	// Store the rows are appended to, flushed with every checkpoint, null if there is none
+	private ResultsStore results = null;
+	
+	// Rows the store held at the checkpoint read back when resuming, -1 if it had none
+	private long resultsRows = -1;
+	
+	// Writes the checkpoints one after the other off the event loop
+	private ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactory()
+	{
+		public Thread newThread ( Runnable r )
+		{
+			Thread thread = new Thread(r, "checkpoint-writer");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+	
+	// Set while a checkpoint is being written
+	private AtomicBoolean writing = new AtomicBoolean(false);
+	
+	/**
+	 * Sets up the checkpoints of a simulation using the interval configured in Constants
+	 * @param path File the checkpoint is written to
+	 * @param network Network of the simulation
+	 * @param masterSeed Master seed of the simulation
+	 */
+	public Checkpoint ( String path, Network network, long masterSeed )
+	{
+		this(path, network, masterSeed, Constants.CHECKPOINT_INTERVAL);
+	}
+	
+	/**
+	 * Sets up the checkpoints of a simulation
+	 * @param path File the checkpoint is written to
+	 * @param network Network of the simulation
+	 * @param masterSeed Master seed of the simulation
+	 * @param seconds Wall time between two checkpoints in seconds
+	 */
+	public Checkpoint ( String path, Network network, long masterSeed, double seconds )
+	{
+		this.file = new File(path);
+		this.network = network;
+		this.masterSeed = masterSeed;
+		this.interval = (long) (seconds * 1e9);
+		this.due = System.nanoTime() + interval;
+	}
+	
+	/**
+	 * Reads the checkpoint file back if there is one
+	 * @return True if the simulation resumes from it
+	 */
+	public boolean resume ()
+	{
+		if ( !file.exists() ) return false;
+		
+		try
+		{
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try
+			{
+				if ( in.readLong() != MAGIC )
+				{
+					throw new IllegalStateException(file + " is not a checkpoint");
+				}
+				
+				masterSeed = in.readLong();
+				boolean batchMeans = in.readBoolean();
+				int stations = in.readInt();
+				if ( batchMeans != Constants.BATCH_MEANS || stations != network.size() )
+				{
+					throw new IllegalStateException("Checkpoint " + file + " was written by a different configuration");
+				}
+				
+				int numberRows = in.readInt();
+				for ( int r = 0; r < numberRows; r++ )
+				{
+					double[] row = new double[in.readInt()];
+					for ( int i = 0; i < row.length; i++ )
+					{
+						row[i] = in.readDouble();
+					}
+					rows.add(row);
+				}
+				resumedRows = numberRows;
+				
+				int length = in.readInt();
+				if ( length > 0 )
+				{
+					resumedRun = new byte[length];
+					in.readFully(resumedRun);
+				}
+				resultsRows = in.readLong();
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not read checkpoint " + file, e);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Gets the master seed of the simulation, the one of the checkpoint once resumed
+	 * @return Master seed
+	 */
+	public long getMasterSeed ()
+	{
+		return masterSeed;
+	}
+	
+	/**
+	 * Gets the number of replications recorded before the run was resumed
+	 * @return Number of rows
+	 */
+	public int resumedRows ()
+	{
+		return resumedRows;
+	}
+	
+	/**
+	 * Gets the row of a replication
+	 * @param i Replication number starting at 0
+	 * @return Every metric, the warmup jobs then any percentiles
+	 */
+	public double[] row ( int i )
+	{
+		return rows.get(i);
+	}
+	
+	/**
+	 * Gets the number of rows the results store held at the checkpoint
+	 * @return Number of rows, -1 if there was no store
+	 */
+	public long resultsRows ()
+	{
+		return resultsRows;
+	}
+	
+	/**
+	 * Flushes a results store with every checkpoint, so that the rows of
+	 * the checkpoint are always in the store
+	 * @param results Store the rows are appended to
+	 */
+	public void setResults ( ResultsStore results )
+	{
+		this.results = results;
+	}
+	
+	/**
+	 * Checks whether the long run of the batch means mode was saved
+	 * @return True if there is a run to carry on with
+	 */
+	public boolean hasRun ()
+	{
+		return resumedRun != null;
+	}
+	
+	/**
+	 * Checks whether the next checkpoint is due
+	 * @return True once the interval has passed since the last one
+	 */
+	public boolean due ()
+	{
+		return System.nanoTime() - due >= 0;
+	}
+	
+	/**
+	 * Adds the row of a recorded replication, and saves the rows if a checkpoint is due
+	 * @param row Every metric, the warmup jobs then any percentiles
+	 */
+	public void addRow ( double[] row )
+	{
+		rows.add(row);
+		
+		if ( due() )
+		{
+			save(null);
+		}
+	}
+	
+	/**
+	 * Saves the long run of the batch means mode, between two events
+	 * @param context Replication state the jobs are run in
+	 * @param report Report of the run
+	 * @param series Series of the measurements of the run
+	 * @param completed Number of jobs that have exited the system
+	 */
+	public void saveRun ( SimulationContext context, SimulationReport report, MeasurementSeries series, int completed )
+	{
+		// Skip the snapshot rather than wait for the last one to be written
+		if ( writing.get() ) return;
+		
+		try
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(completed);
+			report.writeState(out);
+			series.writeState(out);
+			context.writeState(out);
+			out.flush();
+			
+			save(bytes.toByteArray());
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not save checkpoint " + file, e);
+		}
+	}
+	
+	/**
+	 * Puts the long run of the batch means mode back in the saved state
+	 * @param context Replication state the jobs are run in, reset
+	 * @param report Empty report of the run
+	 * @param series Empty series of the measurements of the run
+	 * @return Number of jobs that had exited the system
+	 */
+	public int restoreRun ( SimulationContext context, SimulationReport report, MeasurementSeries series )
+	{
+		try
+		{
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(resumedRun));
+			int completed = in.readInt();
+			report.readState(in);
+			series.readState(in);
+			context.readState(in);
+			
+			resumedRun = null;
+			return completed;
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not read checkpoint " + file, e);
+		}
+	}
+	
+	/**
+	 * Waits for the last checkpoint to be written and deletes the file,
+	 * called once the simulation has finished
+	 */
+	public void finish ()
+	{
+		writer.shutdown();
+		try
+		{
+			writer.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+		}
+		
+		file.delete();
+	}
+	
+	/**
+	 * Hands a copy of the rows and the state of the run to the writer
+	 * @param run State of the long run, null if there is none
+	 */
+	private void save ( byte[] run )
+	{
+		if ( !writing.compareAndSet(false, true) ) return;
+		due = System.nanoTime() + interval;
+		
+		final double[][] snapshot = rows.toArray(new double[rows.size()][]);
+		final byte[] state = run;
+		final long stored = (results != null) ? results.flush() : -1;
+		writer.execute(new Runnable()
+		{
+			public void run ()
+			{
+				try
+				{
+					write(snapshot, state, stored);
+				}
+				catch ( IOException e )
+				{
+					// A failed checkpoint does not stop the simulation, the next one may work
+					System.err.println("Could not write checkpoint " + file + ": " + e.getMessage());
+				}
+				finally
+				{
+					writing.set(false);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Writes a checkpoint to a temporary file and moves it over the checkpoint
+	 * @param snapshot Rows of the replications recorded so far
+	 * @param run State of the long run, null if there is none
+	 * @param stored Rows in the results store, -1 if there is none
+	 * @throws IOException
+	 */
+	private void write ( double[][] snapshot, byte[] run, long stored ) throws IOException
+	{
+		File temporary = new File(file.getPath() + ".tmp");
+		FileOutputStream stream = new FileOutputStream(temporary);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+		try
+		{
+			out.writeLong(MAGIC);
+			out.writeLong(masterSeed);
+			out.writeBoolean(Constants.BATCH_MEANS);
+			out.writeInt(network.size());
+			
+			out.writeInt(snapshot.length);
+			for ( double[] row : snapshot )
+			{
+				out.writeInt(row.length);
+				for ( int i = 0; i < row.length; i++ )
+				{
+					out.writeDouble(row[i]);
+				}
+			}
+			
+			out.writeInt(run != null ? run.length : 0);
+			if ( run != null )
+			{
+				out.write(run);
+			}
+			out.writeLong(stored);
+			
+			out.flush();
+			stream.getFD().sync();
+		}
+		finally
+		{
+			out.close();
+		}
+		
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
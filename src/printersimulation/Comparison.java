@@ -0,0 +1,211 @@
+package printersimulation;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Compares the printer network against an alternative configuration by
+ * running both on the same replications and reporting the confidence
+ * interval of the difference of every metric between them.
+ * With common random numbers both configurations of a replication draw from
+ * the same streams, one per arrival source and one per station, so the same
+ * jobs arrive at the same times and ask for the same service in both. Their
+ * metrics are then strongly correlated and the paired differences vary far
+ * less than the metrics themselves, which is what makes the interval of the
+ * difference narrow after only a few replications.
+ */
+public class Comparison
+{
+	// Parameter changes of the alternative configuration
+	private String changes;
+	
+	// Simulators of the base and the alternative configuration
+	private Simulator base;
+	private Simulator alternative;
+	
+	// Whether the alternative branches off the warmed up system of the base
+	private boolean sharedWarmStart = false;
+	
+	// Running statistics of the base, the alternative and their differences
+	private ReportStatistics baseStatistics;
+	private ReportStatistics alternativeStatistics;
+	private ReportStatistics differences;
+	
+	/**
+	 * Sets up a comparison of the printer network with a variation of it
+	 * @param changes Parameter changes, <name>=<value> separated by commas
+	 */
+	public Comparison ( String changes )
+	{
+		this.changes = changes;
+		
+		Network network = Network.printerNetwork();
+		for ( String change : changes.split(",") )
+		{
+			int equals = change.indexOf('=');
+			if ( equals < 0 )
+			{
+				throw new IllegalArgumentException("Change " + change + " is not <name>=<value>");
+			}
+			network.setParameter(change.substring(0, equals).trim(), Double.parseDouble(change.substring(equals + 1).trim()));
+		}
+		
+		base = new Simulator();
+		alternative = new Simulator(network);
+		
+		// Without common random numbers the alternative runs on the
+		// replications past those of the base
+		if ( !Constants.COMMON_RANDOM_NUMBERS ) alternative.checkStreams(2 * Constants.SIMULATION_REPLICATION);
+		
+		// Both configurations branch off the warmed up system of the base,
+		// unless the changes alter the layout the base warmed up with
+		if ( Constants.WARM_START && base.warmStart().fits(network) )
+		{
+			alternative.setWarmStart(base.warmStart());
+			sharedWarmStart = true;
+		}
+		
+		int metrics = network.numberMetrics();
+		baseStatistics = new ReportStatistics(metrics);
+		alternativeStatistics = new ReportStatistics(metrics);
+		differences = new ReportStatistics(metrics);
+	}
+	
+	/**
+	 * Runs the replications of both configurations and prints the comparison
+	 */
+	public void run ()
+	{
+		int replications = Constants.SIMULATION_REPLICATION;
+		Network network = alternative.getNetwork();
+		
+		System.out.println("Master Seed: " + new RandomStreams(Constants.MASTER_SEED, 1).getMasterSeed());
+		System.out.println("Comparing with: " + changes + (Constants.COMMON_RANDOM_NUMBERS
+				? " (common random numbers)" : " (independent random numbers)") +
+				(Constants.ANTITHETIC ? " with antithetic pairs" : "") +
+				(sharedWarmStart ? " from one warm start" : Constants.WARM_START ? " from separate warm starts" : "") + "\n");
+		
+		StringBuilder header = new StringBuilder("Difference");
+		for ( int m = 0; m < network.numberMetrics(); m++ )
+		{
+			header.append("\t\t").append(network.metricName(m));
+		}
+		System.out.println(header.toString());
+		
+		// Pairs are independent of each other so they are handed to a work stealing pool
+		ForkJoinPool pool = Constants.REPLICATION_THREADS > 0
+				? new ForkJoinPool(Constants.REPLICATION_THREADS) : new ForkJoinPool();
+		int window = 2 * pool.getParallelism();
+		ArrayDeque<ForkJoinTask<SimulationReport[]>> tasks = new ArrayDeque<ForkJoinTask<SimulationReport[]>>();
+		int submitted = 0;
+		
+		for ( int i = 0; i < replications; i++ )
+		{
+			while ( submitted < replications && tasks.size() < window )
+			{
+				tasks.add(pool.submit(new Pair(submitted++)));
+			}
+			
+			record(i, tasks.poll().join());
+		}
+		pool.shutdown();
+		
+		printReport();
+	}
+	
+	/**
+	 * Folds a pair of reports into the running statistics and prints the
+	 * differences of the pair
+	 * @param replication Replication number starting at 0
+	 * @param pair Reports of the base and the alternative configuration
+	 */
+	private void record ( int replication, SimulationReport[] pair )
+	{
+		baseStatistics.add(pair[0]);
+		alternativeStatistics.add(pair[1]);
+		
+		StringBuilder row = new StringBuilder("Run " + (replication + 1));
+		for ( int m = 0; m < differences.metrics.length; m++ )
+		{
+			double difference = pair[1].metric(m) - pair[0].metric(m);
+			differences.metrics[m].add(difference);
+			row.append("\t\t").append(difference);
+		}
+		differences.warmupJobs.add(pair[1].warmupJobs - pair[0].warmupJobs);
+		System.out.println(row.toString());
+	}
+	
+	/**
+	 * Prints every metric of both configurations and their difference
+	 */
+	private void printReport ()
+	{
+		/**
+		 * ===============================
+		 * Comparison Output Documentation
+		 * ===============================
+		 * For every metric we print the confidence intervals of both
+		 * configurations and of their paired difference. The difference is
+		 * significant when its interval does not hold 0. The variance
+		 * reduction is how many times smaller the variance of the difference
+		 * is than it would be with independent streams, which is roughly how
+		 * many times fewer replications the comparison needed.
+		 */
+		
+		Network network = alternative.getNetwork();
+		double confidence = Constants.CONFIDENCE_LEVEL;
+		
+		// Line break
+		System.out.println("\n------------\n");
+		
+		for ( int m = 0; m < network.numberMetrics(); m++ )
+		{
+			RunningStatistics a = baseStatistics.metrics[m];
+			RunningStatistics b = alternativeStatistics.metrics[m];
+			RunningStatistics d = differences.metrics[m];
+			
+			System.out.println(network.metricDescription(m) + ":");
+			System.out.println("\tBase: " + base.confidenceInterval(a));
+			System.out.println("\tAlternative: " + base.confidenceInterval(b));
+			System.out.println("\tDifference: " + base.confidenceInterval(d) +
+					((d.lower(confidence) > 0.0 || d.upper(confidence) < 0.0) ? " SIGNIFICANT" : " not significant"));
+			
+			if ( d.variance() > 0.0 )
+			{
+				System.out.println("\tVariance reduction: " + ((a.variance() + b.variance()) / d.variance()));
+			}
+		}
+	}
+	
+	/**
+	 * A replication of both configurations to run on the pool
+	 */
+	private class Pair implements Callable<SimulationReport[]>
+	{
+		// Replication number starting at 0
+		private int replication;
+		
+		/**
+		 * Sets up a pair
+		 * @param replication Replication number starting at 0
+		 */
+		public Pair ( int replication )
+		{
+			this.replication = replication;
+		}
+		
+		/**
+		 * Runs the replication of both configurations. Without common
+		 * random numbers the alternative runs on the streams of a
+		 * replication the base never uses.
+		 * @return Reports of the base and the alternative configuration
+		 */
+		public SimulationReport[] call ()
+		{
+			int other = Constants.COMMON_RANDOM_NUMBERS ? replication : replication + Constants.SIMULATION_REPLICATION;
+			return new SimulationReport[] { base.runReplication(replication), alternative.runReplication(other) };
+		}
+	}
+}
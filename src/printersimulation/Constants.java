@@ -0,0 +1,223 @@
+package printersimulation;
+
+/**
+ * Constants which are setup in the simulation environment.
+ * @author Jamie Chung <jfchung@vt.edu>
+ *
+ */
+public class Constants {
+
+	// Number of times to run simulation
+	public final static int SIMULATION_REPLICATION = 30;
+	
+	// Keep running replications until the confidence intervals are tight enough
+	// instead of a fixed number, turned on with -Dsimulation.sequentialStopping=true
+	public final static boolean SEQUENTIAL_STOPPING = Boolean.parseBoolean(System.getProperty("simulation.sequentialStopping", "false"));
+	
+	// Metrics whose confidence intervals must reach the target precision, by the
+	// names in the table of replications (pMac, pNeXT, W, ...), empty for every metric
+	public final static String STOPPING_METRICS = System.getProperty("simulation.stoppingMetrics", "");
+	
+	// Target half width of the confidence intervals, relative to the mean
+	// unless -Dsimulation.relativePrecision=false makes it absolute
+	public final static double TARGET_PRECISION = Double.parseDouble(System.getProperty("simulation.targetPrecision", "0.01"));
+	public final static boolean RELATIVE_PRECISION = Boolean.parseBoolean(System.getProperty("simulation.relativePrecision", "true"));
+	
+	// Replications run before the precision is first checked, and the most that are run
+	public final static int MIN_REPLICATIONS = Integer.getInteger("simulation.minReplications", 10);
+	public final static int MAX_REPLICATIONS = Integer.getInteger("simulation.maxReplications", 300);
+	
+	// Run the replications in parallel on a work stealing pool
+	// Can be turned off at startup with -Dsimulation.parallel=false
+	public final static boolean PARALLEL_REPLICATIONS = Boolean.parseBoolean(System.getProperty("simulation.parallel", "true"));
+	
+	// Number of threads running replications, 0 uses every available processor
+	public final static int REPLICATION_THREADS = Integer.getInteger("simulation.threads", 0);
+	
+	// Split the stations of every run into this many partitions, each running
+	// its own events on its own thread, 0 or 1 to run the events in one loop
+	// Set with -Dsimulation.partitions=<n>, at most one partition per station
+	public final static int PARTITIONS = Integer.getInteger("simulation.partitions", 0);
+	
+	// Parameters of a parameter sweep, <name>=<low>:<high>:<levels> separated by
+	// commas, for example -Dsimulation.sweep=service.LaserJet=5:7:5,capacity.LaserJet=5:20:4
+	// Names are those of Network.setParameter, empty runs the simulation once
+	public final static String SWEEP = System.getProperty("simulation.sweep", "");
+	
+	// Number of points of a Latin hypercube sweep, 0 sweeps the full grid of levels
+	public final static int SWEEP_SAMPLES = Integer.getInteger("simulation.sweepSamples", 0);
+	
+	// Number of replications run at every point of a sweep
+	public final static int SWEEP_REPLICATIONS = Integer.getInteger("simulation.sweepReplications", SIMULATION_REPLICATION);
+	
+	// Points of a sweep whose analytic solution has a station utilization at or
+	// above this are not simulated, which always skips points that are not stable
+	public final static double SWEEP_MAX_UTILIZATION = Double.parseDouble(System.getProperty("simulation.sweepMaxUtilization", "1.0"));
+	
+	// Only write the analytic solution of every point of a sweep, without simulating
+	public final static boolean SWEEP_ANALYTIC_ONLY = Boolean.parseBoolean(System.getProperty("simulation.sweepAnalyticOnly", "false"));
+	
+	// CSV file the results of a sweep are written to
+	public final static String SWEEP_OUTPUT = System.getProperty("simulation.sweepOutput", "sweep.csv");
+	
+	// Run every replication as an antithetic pair, once on the streams and once
+	// on 1 - U of the streams, turned on with -Dsimulation.antithetic=true
+	public final static boolean ANTITHETIC = Boolean.parseBoolean(System.getProperty("simulation.antithetic", "false"));
+	
+	// Parameter changes of a configuration to compare against the printer network,
+	// <name>=<value> separated by commas, for example -Dsimulation.compare=capacity.LaserJet=12
+	// Names are those of Network.setParameter, empty runs the simulation once
+	public final static String COMPARE = System.getProperty("simulation.compare", "");
+	
+	// Run both configurations of a comparison on the same random numbers
+	// Turned off with -Dsimulation.commonRandomNumbers=false for independent streams
+	public final static boolean COMMON_RANDOM_NUMBERS = Boolean.parseBoolean(System.getProperty("simulation.commonRandomNumbers", "true"));
+	
+	// Count events, rejections and wall times and publish them through JMX and
+	// Flight Recorder, turned on with -Dsimulation.metrics=true
+	public final static boolean METRICS = Boolean.parseBoolean(System.getProperty("simulation.metrics", "false"));
+	
+	// Write every event of the replications to a binary trace, segment files are
+	// <prefix>-<n>.trace, set with -Dsimulation.trace=<prefix>, empty for no trace
+	public final static String TRACE = System.getProperty("simulation.trace", "");
+	
+	// Size of a trace segment file in bytes, and the most segments kept (0 keeps all)
+	public final static long TRACE_SEGMENT_SIZE = Long.getLong("simulation.traceSegmentSize", 64L << 20);
+	public final static int TRACE_SEGMENTS = Integer.getInteger("simulation.traceSegments", 0);
+	
+	// Replay the arrivals of every source from a log instead of sampling them,
+	// a CSV file of timestamp,source[,pages] lines or a binary log written by
+	// BinaryArrivalLog, set with -Dsimulation.arrivalLog=<file>, empty to sample
+	public final static String ARRIVAL_LOG = System.getProperty("simulation.arrivalLog", "");
+	
+	// Multiplies the timestamps of an arrival log into simulation time
+	public final static double ARRIVAL_LOG_SCALE = Double.parseDouble(System.getProperty("simulation.arrivalLogScale", "1.0"));
+	
+	// File listing the job sources as name,meanInterval[,entryStation] lines, empty for the three PC groups
+	public final static String SOURCES = System.getProperty("simulation.sources", "");
+	
+	// LaserJet service time per page of logged jobs with a page count,
+	// 0 samples the service time of every job
+	public final static double PAGE_TIME = Double.parseDouble(System.getProperty("simulation.pageTime", "0.0"));
+	
+	// Save the simulation to this file now and then, set with
+	// -Dsimulation.checkpoint=<file>, empty for no checkpoints
+	public final static String CHECKPOINT = System.getProperty("simulation.checkpoint", "");
+	
+	// Wall time between two checkpoints in seconds
+	public final static double CHECKPOINT_INTERVAL = Double.parseDouble(System.getProperty("simulation.checkpointInterval", "60"));
+	
+	// Carry on from the checkpoint file if there is one, turned on with -Dsimulation.resume=true
+	public final static boolean RESUME = Boolean.parseBoolean(System.getProperty("simulation.resume", "false"));
+	
+	// Run the replications, or the replications of the points of a sweep, on
+	// this many worker processes started on this machine, 0 for none
+	// Set with -Dsimulation.workers=<n>
+	public final static int WORKERS = Integer.getInteger("simulation.workers", 0);
+	
+	// Port workers on other machines connect to, 0 to only use the workers
+	// started on this machine through any free port
+	public final static int COORDINATOR_PORT = Integer.getInteger("simulation.coordinatorPort", 0);
+	
+	// Seconds without any connected worker after which the simulation gives up,
+	// and without any result from a worker holding tasks after it is dropped
+	public final static double WORKER_TIMEOUT = Double.parseDouble(System.getProperty("simulation.workerTimeout", "60"));
+	
+	// Confidence level of the confidence intervals reported over the replications
+	public final static double CONFIDENCE_LEVEL = 0.95;
+	
+	// Directory of the columnar store every replication is appended to, none if empty
+	// Set with -Dsimulation.results=<directory>
+	public final static String RESULTS = System.getProperty("simulation.results", "");
+	
+	// Percentiles of the time in the system, the waiting times and the queue
+	// lengths reported over the replications, none if empty
+	// Set with -Dsimulation.percentiles=50,90,99,99.9
+	public final static String PERCENTILES = System.getProperty("simulation.percentiles", "");
+	
+	// Master seed every random number stream is derived from, random if not set
+	// Can be set at startup with -Dsimulation.seed=<seed> to reproduce a run
+	public final static long MASTER_SEED = Long.getLong("simulation.seed", new java.util.Random().nextLong());
+	
+	// Random numbers available to each random source of a replication before
+	// its stream would run into the next one, 2^31 / 2^20 gives 2048 streams
+	public final static long STREAM_SPACING = Long.getLong("simulation.streamSpacing", 1L << 20);
+	
+	// Random numbers available to the arrival stream of each job source, a
+	// network of thousands of sources only fits within the cycle of the
+	// generator with far shorter arrival streams than service streams
+	public final static long SOURCE_SPACING = Long.getLong("simulation.sourceSpacing", STREAM_SPACING);
+	
+	// Number of jobs to warm up simulation
+	public final static int NUMBER_JOBS_WARMUP = 1000;
+	
+	// Run the warmup once and branch every replication off a copy of the warmed
+	// up system, each on its own streams, turned on with -Dsimulation.warmStart=true
+	public final static boolean WARM_START = Boolean.parseBoolean(System.getProperty("simulation.warmStart", "false"));
+	
+	// Number of jobs to process after warm up
+	public final static int NUMBER_JOBS = 10000;
+	
+	// How the end of the warmup is found, one of WarmupMode
+	// FIXED discards NUMBER_JOBS_WARMUP jobs, MSER finds the truncation point
+	// from the time jobs spend in the system, set with -Dsimulation.warmup=<mode>
+	public final static String WARMUP = System.getProperty("simulation.warmup", "FIXED");
+	
+	// Number of jobs in each batch mean of the MSER-5 rule
+	public final static int MSER_BATCH_SIZE = 5;
+	
+	// Most snapshots kept of a run before they are thinned out
+	public final static int SERIES_CAPACITY = 1 << 16;
+	
+	// Run one long run split into batches instead of replications
+	// turned on with -Dsimulation.batchMeans=true
+	public final static boolean BATCH_MEANS = Boolean.parseBoolean(System.getProperty("simulation.batchMeans", "false"));
+	
+	// Number of jobs in the long run of the batch means mode, warmup included
+	public final static int BATCH_MEANS_JOBS = Integer.getInteger("simulation.batchMeansJobs", 
+			SIMULATION_REPLICATION * (NUMBER_JOBS_WARMUP + NUMBER_JOBS));
+	
+	// Range of the number of batches and the largest lag 1 autocorrelation
+	// of the batch means for the batches to be treated as independent
+	public final static int MIN_BATCHES = 10;
+	public final static int MAX_BATCHES = 80;
+	public final static double BATCH_CORRELATION = 0.2;
+	
+	// Future event list implementation used by the JobManager, one of EventListType
+	// Can be chosen at startup with -Dsimulation.eventList=<type>
+	public final static String EVENT_LIST = System.getProperty("simulation.eventList", "BINARY_HEAP");
+	
+	// Method of drawing exponential variates, one of VariateMethod
+	// Can be chosen at startup with -Dsimulation.variates=<method>
+	public final static String VARIATES = System.getProperty("simulation.variates", "INVERSION");
+	
+	// Exponential variates drawn ahead in bulk by every random number stream, 0 to draw them one at a time
+	public final static int VARIATE_BUFFER = Integer.getInteger("simulation.variateBuffer", 256);
+	
+	// Number of jobs that can be in the printer queue
+	public final static int MAX_NUMBER_JOBS_PRINTER = 10;
+	
+	// Mean interval average value for user groups
+	public final static double JOB_INTERVAL_USER_GROUP_1 = 20.0;
+	public final static double JOB_INTERVAL_USER_GROUP_2 = 40.0;
+	public final static double JOB_INTERVAL_USER_GROUP_3 = 12.5;
+	
+	// Mean execution values for processing stations
+	public final static double JOB_EXECUTION_MACINTOSH = 4.5;
+	public final static double JOB_EXECUTION_NEXTSTATION = 5.0;
+	public final static double JOB_EXECUTION_LASERJET = 5.8;
+
+	
+	/**
+	 * ANALYTIC SOLUTION BOUNDS
+	 */
+	
+	// The simulated utilizations are expected within this distance of the
+	// utilizations computed by the AnalyticSolver
+	public final static double ANALYTIC_UTIL_TOLERANCE = 0.02;
+	
+	// The simulated W and L are expected within this fraction of the
+	// values computed by the AnalyticSolver
+	public final static double ANALYTIC_RELATIVE_TOLERANCE = 0.1;
+	
+}
@@ -0,0 +1,667 @@
+package printersimulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Hands replications out to worker processes over sockets and gathers
+ * their reports back, so a simulation is no longer bound to the heap and
+ * the collector of a single JVM. Workers are started on this machine by
+ * the coordinator, or anywhere else with
+ * java printersimulation.Worker <host>:<port> [threads]
+ * and may join or die at any time while the simulation runs.
+ */
+public class Coordinator
+{
+	/**
+	 * ===============================
+	 * Protocol Documentation
+	 * ===============================
+	 * A worker connects and sends MAGIC, PROTOCOL_VERSION and the number of
+	 * tasks it runs side by side. The coordinator answers with its simulation.*
+	 * system properties and the master seed, which the worker sets before it
+	 * loads Constants, so every worker simulates exactly what the coordinator
+	 * would. The coordinator then sends TASK messages (task id, point of a
+	 * sweep or -1, replication) as long as the worker has a free slot, and
+	 * the worker answers each with RESULT (task id, the SimulationReport) or
+	 * FAILED (task id, message), in any order. STOP ends the worker.
+	 * A task is only done once its report is back. When a worker dies every
+	 * task it held is put back at the front of the queue for the workers
+	 * still alive. A worker holding tasks which sends nothing back for the
+	 * worker timeout is taken to be hung and dropped the same way, so the
+	 * timeout has to be longer than a replication takes. Every connection
+	 * says hello on its own thread, so a slow or silent client does not hold
+	 * up the workers connecting after it. Replications are reproduced from
+	 * the master seed alone, so a report is the same whichever worker ran
+	 * it, and the callers take them in task order, which makes the output
+	 * the same as within one JVM.
+	 */
+	
+	// Marks the start of a worker connection, PSWORKER in ASCII
+	public final static long MAGIC = 0x52454b524f575350L;
+	
+	// Version of the protocol, bumped whenever a message changes
+	public final static int PROTOCOL_VERSION = 1;
+	
+	// Messages from the coordinator
+	public final static byte TASK = 1;
+	public final static byte STOP = 2;
+	
+	// Messages from a worker
+	public final static byte RESULT = 1;
+	public final static byte FAILED = 2;
+	
+	// Properties that only make sense for the coordinator, never sent to workers
+	private final static String[] LOCAL_PROPERTIES = { "simulation.workers", "simulation.coordinatorPort",
+			"simulation.workerTimeout", "simulation.trace", "simulation.checkpoint", "simulation.resume" };
+	
+	// Listens for workers
+	private ServerSocket server;
+	
+	// Worker processes started on this machine
+	private ArrayList<Process> processes = new ArrayList<Process>();
+	
+	// Tasks waiting for a worker, those of dead workers go back to the front
+	private LinkedBlockingDeque<Task> queue = new LinkedBlockingDeque<Task>();
+	
+	// Workers connected right now
+	private ArrayList<Connection> connections = new ArrayList<Connection>();
+	
+	// Id of the next task
+	private int nextTask = 0;
+	
+	// Master seed of the simulation, sent to every worker
+	private long masterSeed;
+	
+	// Wall time without any worker after which the simulation gives up, and
+	// without any word from a worker holding tasks after which it is dropped,
+	// in milliseconds
+	private long timeout;
+	
+	// Set once the coordinator is closed
+	private volatile boolean closed = false;
+	
+	/**
+	 * A replication waiting to be run or running on a worker
+	 */
+	private static class Task
+	{
+		// Id of the task, in the order it was submitted
+		int id;
+		
+		// Point of a sweep, -1 for the network of Constants
+		int point;
+		
+		// Replication number starting at 0
+		int replication;
+		
+		// Completed with the report of the replication
+		CompletableFuture<SimulationReport> report = new CompletableFuture<SimulationReport>();
+	}
+	
+	/**
+	 * Sets up a coordinator using the settings in Constants
+	 * @param masterSeed Master seed of the simulation
+	 * @return Coordinator with its local workers started and connected
+	 */
+	public static Coordinator fromConstants ( long masterSeed )
+	{
+		Coordinator coordinator = new Coordinator(masterSeed, Constants.COORDINATOR_PORT, Constants.WORKER_TIMEOUT);
+		coordinator.startWorkers(Constants.WORKERS);
+		return coordinator;
+	}
+	
+	/**
+	 * Sets up a coordinator listening for workers
+	 * @param masterSeed Master seed of the simulation
+	 * @param port Port the workers connect to, 0 for any free port
+	 * @param timeout Seconds without any worker after which the simulation
+	 * gives up, or without any word from a worker holding tasks
+	 */
+	public Coordinator ( long masterSeed, int port, double timeout )
+	{
+		this.masterSeed = masterSeed;
+		this.timeout = (long) (timeout * 1000);
+		
+		try
+		{
+			server = new ServerSocket(port);
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not listen for workers on port " + port, e);
+		}
+		
+		Thread acceptor = new Thread(new Runnable()
+		{
+			public void run ()
+			{
+				accept();
+			}
+		}, "coordinator-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		
+		System.err.println("Coordinator listening for workers on port " + getPort());
+	}
+	
+	/**
+	 * Gets the port the workers connect to
+	 * @return Port
+	 */
+	public int getPort ()
+	{
+		return server.getLocalPort();
+	}
+	
+	/**
+	 * Starts worker processes on this machine and waits for them to connect
+	 * @param count Number of worker processes
+	 */
+	public void startWorkers ( int count )
+	{
+		if ( count <= 0 ) return;
+		
+		// The processors of the machine are shared out between the workers
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / count);
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		
+		try
+		{
+			for ( int i = 0; i < count; i++ )
+			{
+				ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+						Worker.class.getName(), "127.0.0.1:" + getPort(), Integer.toString(threads));
+				builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+				builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+				processes.add(builder.start());
+			}
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not start the worker processes", e);
+		}
+		
+		// Wait for them so the work is spread from the start
+		long end = System.currentTimeMillis() + timeout;
+		synchronized ( connections )
+		{
+			while ( connections.size() < count && System.currentTimeMillis() < end )
+			{
+				try
+				{
+					connections.wait(100);
+				}
+				catch ( InterruptedException e )
+				{
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Gets the number of tasks the connected workers run side by side
+	 * @return Number of slots, at least 1
+	 */
+	public int slots ()
+	{
+		int slots = 0;
+		synchronized ( connections )
+		{
+			for ( Connection connection : connections )
+			{
+				slots += connection.slots;
+			}
+		}
+		return Math.max(1, slots);
+	}
+	
+	/**
+	 * Queues a replication for the workers
+	 * @param point Point of the sweep of Constants, -1 for the network of Constants
+	 * @param replication Replication number starting at 0
+	 * @return Completed with the report of the replication once a worker sent it back
+	 */
+	public synchronized CompletableFuture<SimulationReport> submit ( int point, int replication )
+	{
+		Task task = new Task();
+		task.id = nextTask++;
+		task.point = point;
+		task.replication = replication;
+		queue.add(task);
+		return task.report;
+	}
+	
+	/**
+	 * Waits for the report of a replication, giving up if no worker is left for too long
+	 * @param report Report handed out by submit
+	 * @return SimulationReport of the replication
+	 */
+	public SimulationReport join ( CompletableFuture<SimulationReport> report )
+	{
+		long alone = 0;
+		while ( true )
+		{
+			try
+			{
+				return report.get(100, TimeUnit.MILLISECONDS);
+			}
+			catch ( TimeoutException e )
+			{
+				boolean anyone;
+				synchronized ( connections )
+				{
+					anyone = !connections.isEmpty();
+				}
+				alone = anyone ? 0 : alone + 100;
+				if ( alone >= timeout )
+				{
+					throw new IllegalStateException("No worker connected for " + (timeout / 1000) + " seconds");
+				}
+			}
+			catch ( InterruptedException e )
+			{
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for a worker", e);
+			}
+			catch ( ExecutionException e )
+			{
+				throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+			}
+		}
+	}
+	
+	/**
+	 * Stops every worker and the processes started on this machine
+	 */
+	public void close ()
+	{
+		closed = true;
+		
+		try
+		{
+			server.close();
+		}
+		catch ( IOException e )
+		{
+			// The workers are stopped below either way
+		}
+		
+		ArrayList<Connection> open;
+		synchronized ( connections )
+		{
+			open = new ArrayList<Connection>(connections);
+		}
+		for ( Connection connection : open )
+		{
+			connection.stop();
+		}
+		
+		for ( Process process : processes )
+		{
+			try
+			{
+				if ( !process.waitFor(5, TimeUnit.SECONDS) ) process.destroyForcibly();
+			}
+			catch ( InterruptedException e )
+			{
+				process.destroyForcibly();
+			}
+		}
+	}
+	
+	/**
+	 * Accepts workers until the coordinator is closed
+	 */
+	private void accept ()
+	{
+		while ( !closed )
+		{
+			try
+			{
+				Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+				socket.setKeepAlive(true);
+				new Connection(socket).start();
+			}
+			catch ( IOException e )
+			{
+				// A closed server ends the loop
+			}
+		}
+	}
+	
+	/**
+	 * Gets the properties a worker needs to simulate what the coordinator would
+	 * @param masterSeed Master seed of the simulation
+	 * @return simulation.* system properties with the master seed
+	 */
+	static Map<String, String> workerProperties ( long masterSeed )
+	{
+		LinkedHashMap<String, String> properties = new LinkedHashMap<String, String>();
+		Properties system = System.getProperties();
+		for ( Enumeration<?> names = system.propertyNames(); names.hasMoreElements(); )
+		{
+			String name = (String) names.nextElement();
+			if ( name.startsWith("simulation.") ) properties.put(name, system.getProperty(name));
+		}
+		
+		for ( String name : LOCAL_PROPERTIES )
+		{
+			properties.remove(name);
+		}
+		properties.put("simulation.seed", Long.toString(masterSeed));
+		return properties;
+	}
+	
+	/**
+	 * A connected worker, with a thread sending it tasks and one reading its
+	 * hello and then its results
+	 */
+	private class Connection
+	{
+		// Socket to the worker
+		private Socket socket;
+		
+		// Streams of the socket
+		private DataInputStream in;
+		private DataOutputStream out;
+		
+		// Number of tasks the worker runs side by side
+		int slots;
+		
+		// Free slots of the worker
+		private Semaphore free;
+		
+		// Tasks sent to the worker and not finished yet, by id
+		private LinkedHashMap<Integer, Task> running = new LinkedHashMap<Integer, Task>();
+		
+		// Set once the worker is gone
+		private volatile boolean dead = false;
+		
+		// Wall time the worker last sent a result, or was given a task while it held none
+		private volatile long heard;
+		
+		/**
+		 * Sets up a connection
+		 * @param socket Socket to the worker
+		 * @throws IOException
+		 */
+		Connection ( Socket socket ) throws IOException
+		{
+			this.socket = socket;
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+		
+		/**
+		 * Reads the hello of the worker and answers it with the settings
+		 * @throws IOException
+		 */
+		private void hello () throws IOException
+		{
+			try
+			{
+				// A worker gets a few seconds to say hello before it is dropped
+				socket.setSoTimeout(10000);
+				if ( in.readLong() != MAGIC || in.readInt() != PROTOCOL_VERSION )
+				{
+					throw new IOException("Not a worker of this version");
+				}
+				slots = Math.max(1, in.readInt());
+				free = new Semaphore(slots);
+				
+				Map<String, String> properties = workerProperties(masterSeed);
+				out.writeInt(properties.size());
+				for ( Map.Entry<String, String> property : properties.entrySet() )
+				{
+					out.writeUTF(property.getKey());
+					out.writeUTF(property.getValue());
+				}
+				out.flush();
+				socket.setSoTimeout(0);
+			}
+			catch ( IOException e )
+			{
+				socket.close();
+				throw e;
+			}
+		}
+		
+		/**
+		 * Starts the thread of the connection, which says hello before the
+		 * worker is taken on and then reads its results
+		 */
+		void start ()
+		{
+			Thread receiver = new Thread(new Runnable()
+			{
+				public void run ()
+				{
+					try
+					{
+						hello();
+					}
+					catch ( IOException e )
+					{
+						// A worker that fails to say hello is dropped
+						return;
+					}
+					register();
+					receive();
+				}
+			}, "coordinator-receive-" + socket.getPort());
+			receiver.setDaemon(true);
+			receiver.start();
+		}
+		
+		/**
+		 * Takes the worker on and starts the thread sending it tasks
+		 */
+		private void register ()
+		{
+			synchronized ( connections )
+			{
+				connections.add(this);
+				connections.notifyAll();
+			}
+			
+			Thread sender = new Thread(new Runnable()
+			{
+				public void run ()
+				{
+					send();
+				}
+			}, "coordinator-send-" + socket.getPort());
+			sender.setDaemon(true);
+			sender.start();
+		}
+		
+		/**
+		 * Sends tasks to the worker whenever it has a free slot
+		 */
+		private void send ()
+		{
+			try
+			{
+				while ( !dead )
+				{
+					if ( hung() )
+					{
+						System.err.println("Worker " + socket.getRemoteSocketAddress() + " sent nothing back for " +
+								(timeout / 1000) + " seconds");
+						fail();
+						return;
+					}
+					
+					if ( !free.tryAcquire(100, TimeUnit.MILLISECONDS) ) continue;
+					
+					Task task = queue.poll(100, TimeUnit.MILLISECONDS);
+					if ( task == null )
+					{
+						free.release();
+						continue;
+					}
+					
+					synchronized ( this )
+					{
+						if ( dead )
+						{
+							// Lost the worker while waiting, the task goes back first in line
+							queue.addFirst(task);
+							return;
+						}
+						if ( running.isEmpty() ) heard = System.currentTimeMillis();
+						running.put(task.id, task);
+					}
+					
+					synchronized ( out )
+					{
+						out.writeByte(TASK);
+						out.writeInt(task.id);
+						out.writeInt(task.point);
+						out.writeInt(task.replication);
+						out.flush();
+					}
+				}
+			}
+			catch ( IOException e )
+			{
+				fail();
+			}
+			catch ( InterruptedException e )
+			{
+				fail();
+			}
+		}
+		
+		/**
+		 * Reads the results of the worker and completes their tasks
+		 */
+		private void receive ()
+		{
+			try
+			{
+				while ( true )
+				{
+					byte message = in.readByte();
+					int id = in.readInt();
+					
+					Task task;
+					synchronized ( this )
+					{
+						task = running.remove(id);
+						heard = System.currentTimeMillis();
+					}
+					if ( task == null ) throw new IOException("Worker sent back task " + id + " it was not given");
+					
+					if ( message == RESULT )
+					{
+						int stations = in.readInt();
+						SimulationReport report = new SimulationReport(0, stations);
+						report.readState(in);
+						task.report.complete(report);
+					}
+					else
+					{
+						// A replication that fails fails on every worker, so it is not run again
+						task.report.completeExceptionally(new IllegalStateException("Replication " +
+								(task.replication + 1) + " failed on a worker: " + in.readUTF()));
+					}
+					free.release();
+				}
+			}
+			catch ( IOException e )
+			{
+				fail();
+			}
+		}
+		
+		/**
+		 * Checks whether the worker holds tasks but has sent nothing back for the timeout
+		 * @return True if the worker is taken to be hung
+		 */
+		private synchronized boolean hung ()
+		{
+			return !running.isEmpty() && System.currentTimeMillis() - heard > timeout;
+		}
+		
+		/**
+		 * Drops the worker and puts its tasks back first in line, in order
+		 */
+		private void fail ()
+		{
+			ArrayList<Task> lost;
+			synchronized ( this )
+			{
+				if ( dead ) return;
+				dead = true;
+				lost = new ArrayList<Task>(running.values());
+				running.clear();
+			}
+			
+			synchronized ( connections )
+			{
+				connections.remove(this);
+			}
+			
+			for ( int i = lost.size() - 1; i >= 0; i-- )
+			{
+				queue.addFirst(lost.get(i));
+			}
+			
+			if ( !closed )
+			{
+				System.err.println("Lost worker " + socket.getRemoteSocketAddress() + ", " + lost.size() + " replications handed out again");
+			}
+			
+			try
+			{
+				socket.close();
+			}
+			catch ( IOException e )
+			{
+				// Already gone
+			}
+		}
+		
+		/**
+		 * Tells the worker to stop
+		 */
+		void stop ()
+		{
+			try
+			{
+				synchronized ( out )
+				{
+					out.writeByte(STOP);
+					out.flush();
+				}
+			}
+			catch ( IOException e )
+			{
+				// Already gone
+			}
+			fail();
+		}
+	}
+}
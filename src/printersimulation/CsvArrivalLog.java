@@ -0,0 +1,376 @@
+package printersimulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Arrival log of text lines timestamp,source[,pages], where the source is
+ * the name of a source of the network (PCGROUP2) or its position starting
+ * at 1 (2). Blank lines, lines
+ * starting with # and a header line before the first record are skipped.
+ * The file is read through one reused buffer and lines are parsed straight
+ * out of it, so the log is never held in the heap.
+ */
+public class CsvArrivalLog extends ArrivalLog
+{
+	// Size of the read buffer in bytes
+	private final static int BUFFER_SIZE = 1 << 16;
+	
+	// Most digits of a timestamp parsed straight from the line, any
+	// more and the digits may no longer be held exactly in a double
+	private final static int MAX_DIGITS = 15;
+	
+	// Powers of ten a timestamp with up to MAX_DIGITS digits is divided by
+	private final static double[] POWERS_OF_TEN = new double[MAX_DIGITS + 1];
+	
+	static
+	{
+		POWERS_OF_TEN[0] = 1.0;
+		for ( int i = 1; i <= MAX_DIGITS; i++ )
+		{
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+		}
+	}
+	
+	// Channel the log is read through
+	private FileChannel channel;
+	
+	// Bytes read from the channel and not parsed yet
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	
+	// Line being parsed, grown for lines longer than it
+	private byte[] line = new byte[256];
+	
+	// Number of the line being parsed, used in error messages
+	private long lineNumber;
+	
+	// Source of the last record given by name, -1 before the first
+	private int lastSource = -1;
+	
+	/**
+	 * Opens a CSV log
+	 * @param path Path of the log
+	 * @param scale Multiplies the timestamps into simulation time
+	 * @param network Network the sources of the log are looked up in
+	 * @throws IOException
+	 */
+	public CsvArrivalLog ( String path, double scale, Network network ) throws IOException
+	{
+		super(path, scale, network);
+		channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+		seek(0);
+	}
+	
+	/**
+	 * Reads the next line holding a record
+	 * @return True if there was one, false at the end of the log
+	 * @throws IOException
+	 */
+	protected boolean read () throws IOException
+	{
+		int length;
+		while ( (length = readLine()) >= 0 )
+		{
+			lineNumber++;
+			
+			// Trim the line, and skip it if nothing is left or it is a comment
+			int start = 0;
+			while ( start < length && line[start] <= ' ' ) start++;
+			while ( length > start && line[length - 1] <= ' ' ) length--;
+			if ( start == length || line[start] == '#' ) continue;
+			
+			// A line not starting with a number can only be the header
+			byte first = line[start];
+			if ( !(first >= '0' && first <= '9') && first != '.' && first != '-' && first != '+' )
+			{
+				if ( getRecords() == 0 ) continue;
+				throw new IllegalStateException("Arrival log " + path + " has no timestamp on line " + lineNumber);
+			}
+			
+			parse(start, length);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Parses the fields of a record out of the line
+	 * @param start First byte of the record
+	 * @param end End of the record
+	 */
+	private void parse ( int start, int end )
+	{
+		int comma = indexOf(',', start, end);
+		if ( comma < 0 )
+		{
+			throw new IllegalStateException("Arrival log " + path + " has no source on line " + lineNumber);
+		}
+		
+		timestamp = parseTimestamp(start, comma);
+		
+		int sourceStart = skipSpaces(comma + 1, end);
+		int sourceEnd = indexOf(',', sourceStart, end);
+		int pagesStart = (sourceEnd < 0) ? end : skipSpaces(sourceEnd + 1, end);
+		if ( sourceEnd < 0 ) sourceEnd = end;
+		while ( sourceEnd > sourceStart && line[sourceEnd - 1] <= ' ' ) sourceEnd--;
+		
+		source = parseSource(sourceStart, sourceEnd);
+		pages = (pagesStart < end) ? parseInt(pagesStart, end) : 0;
+	}
+	
+	/**
+	 * Parses a timestamp. A plain decimal number of up to MAX_DIGITS digits
+	 * is parsed straight from the line: its digits and the power of ten it
+	 * is divided by are both exact doubles, so their correctly rounded
+	 * quotient is the value Double.parseDouble gives. Anything else, an
+	 * exponent or more digits, is handed to Double.parseDouble.
+	 * @param start First byte of the field
+	 * @param end End of the field
+	 * @return Timestamp
+	 */
+	private double parseTimestamp ( int start, int end )
+	{
+		while ( end > start && line[end - 1] <= ' ' ) end--;
+		
+		int i = start;
+		boolean negative = (i < end && line[i] == '-');
+		if ( i < end && (line[i] == '-' || line[i] == '+') ) i++;
+		
+		long digits = 0;
+		int count = 0;
+		int decimals = -1;
+		for ( ; i < end && count <= MAX_DIGITS; i++ )
+		{
+			byte b = line[i];
+			if ( b >= '0' && b <= '9' )
+			{
+				digits = digits * 10 + (b - '0');
+				count++;
+				if ( decimals >= 0 ) decimals++;
+			}
+			else if ( b == '.' && decimals < 0 )
+			{
+				decimals = 0;
+			}
+			else
+			{
+				break;
+			}
+		}
+		
+		if ( i == end && count > 0 && count <= MAX_DIGITS )
+		{
+			double value = digits / POWERS_OF_TEN[Math.max(decimals, 0)];
+			return negative ? -value : value;
+		}
+		
+		try
+		{
+			return Double.parseDouble(new String(line, start, end - start, StandardCharsets.US_ASCII));
+		}
+		catch ( NumberFormatException e )
+		{
+			throw new IllegalStateException("Arrival log " + path + " has a bad timestamp on line " + lineNumber);
+		}
+	}
+	
+	/**
+	 * Parses the source of a record, a source name or a group number
+	 * @param start First byte of the field
+	 * @param end End of the field
+	 * @return Source id
+	 */
+	private int parseSource ( int start, int end )
+	{
+		if ( start < end && line[start] >= '0' && line[start] <= '9' )
+		{
+			return group(parseInt(start, end));
+		}
+		
+		// Logs tend to repeat a source, which then needs no lookup
+		if ( lastSource >= 0 && matches(network.sourceName(lastSource), start, end) )
+		{
+			return lastSource;
+		}
+		
+		lastSource = named(new String(line, start, end - start, StandardCharsets.US_ASCII));
+		return lastSource;
+	}
+	
+	/**
+	 * Compares a field of the line with a name
+	 * @param name Name
+	 * @param start First byte of the field
+	 * @param end End of the field
+	 * @return True if the field holds the name
+	 */
+	private boolean matches ( String name, int start, int end )
+	{
+		if ( name.length() != end - start ) return false;
+		
+		int i = 0;
+		while ( i < name.length() && name.charAt(i) == line[start + i] ) i++;
+		return i == name.length();
+	}
+	
+	/**
+	 * Parses a non negative whole number
+	 * @param start First byte of the number
+	 * @param end End of the field
+	 * @return Number
+	 */
+	private int parseInt ( int start, int end )
+	{
+		int value = 0;
+		int i = start;
+		while ( i < end && line[i] >= '0' && line[i] <= '9' )
+		{
+			value = value * 10 + (line[i] - '0');
+			i++;
+		}
+		
+		if ( i == start || skipSpaces(i, end) != end )
+		{
+			throw new IllegalStateException("Arrival log " + path + " has a bad number on line " + lineNumber);
+		}
+		return value;
+	}
+	
+	/**
+	 * Finds a byte within the line
+	 * @param b Byte to find
+	 * @param start First byte to look at
+	 * @param end End of the search
+	 * @return Position of the byte, -1 if not found
+	 */
+	private int indexOf ( char b, int start, int end )
+	{
+		for ( int i = start; i < end; i++ )
+		{
+			if ( line[i] == b ) return i;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Skips blanks
+	 * @param start First byte to look at
+	 * @param end End of the field
+	 * @return Position of the first byte which is not blank, end if there is none
+	 */
+	private int skipSpaces ( int start, int end )
+	{
+		while ( start < end && line[start] <= ' ' ) start++;
+		return start;
+	}
+	
+	/**
+	 * Copies the next line out of the buffer, refilling it from the channel
+	 * @return Length of the line without the line break, -1 at the end of the log
+	 * @throws IOException
+	 */
+	private int readLine () throws IOException
+	{
+		int length = 0;
+		
+		while ( true )
+		{
+			if ( !buffer.hasRemaining() )
+			{
+				buffer.clear();
+				int read = channel.read(buffer);
+				buffer.flip();
+				if ( read < 0 )
+				{
+					// The last line may not end with a line break
+					return (length > 0) ? length : -1;
+				}
+			}
+			
+			while ( buffer.hasRemaining() )
+			{
+				byte b = buffer.get();
+				if ( b == '\n' ) return length;
+				
+				if ( length == line.length )
+				{
+					line = Arrays.copyOf(line, line.length * 2);
+				}
+				line[length++] = b;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the position in the file of the next line
+	 * @return Byte offset
+	 */
+	protected long offset ()
+	{
+		try
+		{
+			return channel.position() - buffer.remaining();
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not read arrival log " + path, e);
+		}
+	}
+	
+	/**
+	 * Goes to a line of the file
+	 * @param offset Byte offset of the line, 0 for the first line
+	 * @throws IOException
+	 */
+	protected void seek ( long offset ) throws IOException
+	{
+		channel.position(offset);
+		buffer.clear();
+		buffer.flip();
+		if ( offset == 0 ) lineNumber = 0;
+	}
+	
+	/**
+	 * Writes how far the log has been read to a checkpoint
+	 * @param out Checkpoint being written
+	 * @throws IOException
+	 */
+	public void writeState ( DataOutput out ) throws IOException
+	{
+		super.writeState(out);
+		out.writeLong(lineNumber);
+	}
+	
+	/**
+	 * Carries on reading the log from where a checkpoint left it
+	 * @param in Checkpoint being read
+	 * @throws IOException
+	 */
+	public void readState ( DataInput in ) throws IOException
+	{
+		super.readState(in);
+		lineNumber = in.readLong();
+	}
+	
+	/**
+	 * Closes the file of the log
+	 */
+	public void close ()
+	{
+		try
+		{
+			channel.close();
+		}
+		catch ( IOException e )
+		{
+			// Nothing was written, so there is nothing to lose
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package printersimulation;
+
+/**
+ * Distribution of the service times of a station.
+ */
+public class Distribution
+{
+	/**
+	 * Families of distributions available for service times
+	 */
+	public enum Type
+	{
+		EXPONENTIAL,
+		DETERMINISTIC,
+		UNIFORM
+	}
+	
+	// Family of the distribution
+	private Type type;
+	
+	// Parameters, the mean or the lower and upper bounds
+	private double a;
+	private double b;
+	
+	private Distribution ( Type type, double a, double b )
+	{
+		this.type = type;
+		this.a = a;
+		this.b = b;
+	}
+	
+	/**
+	 * Exponentially distributed values
+	 * @param mean Mean value
+	 * @return Distribution
+	 */
+	public static Distribution exponential ( double mean )
+	{
+		return new Distribution(Type.EXPONENTIAL, mean, 0.0);
+	}
+	
+	/**
+	 * Always the same value
+	 * @param value Value
+	 * @return Distribution
+	 */
+	public static Distribution deterministic ( double value )
+	{
+		return new Distribution(Type.DETERMINISTIC, value, 0.0);
+	}
+	
+	/**
+	 * Uniformly distributed values
+	 * @param lower Lower bound
+	 * @param upper Upper bound
+	 * @return Distribution
+	 */
+	public static Distribution uniform ( double lower, double upper )
+	{
+		return new Distribution(Type.UNIFORM, lower, upper);
+	}
+	
+	/**
+	 * Gets the family of the distribution
+	 * @return Type
+	 */
+	public Type getType ()
+	{
+		return type;
+	}
+	
+	/**
+	 * Gets the mean of the distribution
+	 * @return Mean value
+	 */
+	public double mean ()
+	{
+		switch ( type )
+		{
+			case UNIFORM:
+				return (a + b) / 2.0;
+				
+			default:
+				return a;
+		}
+	}
+	
+	/**
+	 * Gets the squared coefficient of variation, the variance over the squared mean
+	 * @return 1 for exponential, 0 for deterministic values
+	 */
+	public double squaredCoefficientOfVariation ()
+	{
+		switch ( type )
+		{
+			case EXPONENTIAL:
+				return 1.0;
+				
+			case UNIFORM:
+				return (b - a) * (b - a) / 12.0 / (mean() * mean());
+				
+			default:
+				return 0.0;
+		}
+	}
+	
+	/**
+	 * Gets the same family of distribution moved to another mean. Uniform
+	 * bounds are scaled so that they keep their ratio to the mean.
+	 * @param mean New mean value
+	 * @return Distribution
+	 */
+	public Distribution withMean ( double mean )
+	{
+		if ( type == Type.UNIFORM )
+		{
+			double scale = mean / mean();
+			return uniform(a * scale, b * scale);
+		}
+		return new Distribution(type, mean, 0.0);
+	}
+	
+	/**
+	 * Draws a value from the distribution
+	 * @param generator Random number stream to draw from
+	 * @return Random variate
+	 */
+	public double sample ( NumberGenerator generator )
+	{
+		switch ( type )
+		{
+			case EXPONENTIAL:
+				return generator.exponentialRVG(a);
+				
+			case UNIFORM:
+				return a + (b - a) * generator.randomNumberGenerator();
+				
+			default:
+				return a;
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package printersimulation;
+
+/**
+ * Available future event list implementations.
+ * The implementation is chosen at startup through Constants.EVENT_LIST
+ * which can be set with -Dsimulation.eventList=<type>
+ */
+public enum EventListType
+{
+	// O(log n) insert and poll on an array backed binary heap
+	BINARY_HEAP,
+	
+	// O(1) insert and O(log n) amortized poll on a two pass pairing heap
+	PAIRING_HEAP,
+	
+	// O(1) amortized insert and poll on a resizing calendar queue
+	CALENDAR_QUEUE;
+	
+	/**
+	 * Creates a new empty future event list of this type
+	 * @param store Store holding the jobs the list will order
+	 * @return FutureEventList
+	 */
+	public FutureEventList create ( JobStore store )
+	{
+		switch ( this )
+		{
+			case PAIRING_HEAP:
+				return new PairingHeapEventList(store);
+				
+			case CALENDAR_QUEUE:
+				return new CalendarQueueEventList(store);
+				
+			default:
+				return new BinaryHeapEventList(store);
+		}
+	}
+}
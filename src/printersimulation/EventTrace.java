@@ -0,0 +1,184 @@
+package printersimulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+
+/**
+ * Binary trace of every event of a simulation, written to memory mapped
+ * segment files named <prefix>-<n>.trace. Every event is a fixed width
+ * record of RECORD_SIZE bytes, so writing one is a handful of stores into
+ * mapped memory and the operating system writes the pages out in the
+ * background. Replications running side by side each claim a chunk of a
+ * segment at a time and fill it on their own, so they only synchronize
+ * once per chunk. When a segment is full the next one is mapped, and only
+ * the latest Constants.TRACE_SEGMENTS segments are kept if that is set.
+ * Read the trace back with TraceReader.
+ */
+public class EventTrace
+{
+	/**
+	 * ===============================
+	 * Record Format Documentation
+	 * ===============================
+	 * Little endian, RECORD_SIZE bytes per record:
+	 *  0 double  clock of the event
+	 *  8 double  service time finished at the from station, 0 for arrivals
+	 * 16 int     job id
+	 * 20 int     replication
+	 * 24 short   from station, -1 for jobs arriving at the system
+	 * 26 short   to station, -1 for jobs leaving the system
+	 * 28 byte    source id, low byte
+	 * 29 byte    kind of event, 0 for padding at the end of a chunk
+	 * 30 byte    flags, FLAG_ANTITHETIC
+	 * 31 byte    source id, high byte
+	 * The first record of every segment is a header holding MAGIC, the
+	 * record size and the segment number.
+	 */
+	
+	// Size of a record in bytes
+	public final static int RECORD_SIZE = 32;
+	
+	// Records of a chunk claimed by a replication at a time
+	public final static int CHUNK_RECORDS = 2048;
+	
+	// Marks the header of a segment, PSTRACE1 in ASCII
+	public final static long MAGIC = 0x3145434152545350L;
+	
+	// Kinds of events
+	public final static byte PADDING = 0;
+	public final static byte ENTER = 1;
+	public final static byte MOVE = 2;
+	public final static byte EXIT = 3;
+	public final static byte REJECT = 4;
+	
+	// Flags of a record
+	public final static byte FLAG_ANTITHETIC = 1;
+	
+	// Segment files are <prefix>-<n>.trace
+	private String prefix;
+	
+	// Size of a segment file in bytes, a whole number of chunks plus the header
+	private long segmentSize;
+	
+	// Most segments kept, 0 keeps every segment
+	private int maxSegments;
+	
+	// Segment being handed out and where its next chunk starts
+	private MappedByteBuffer segment = null;
+	private int segmentNumber = -1;
+	private long position;
+	
+	// Segment files still on disk, oldest first
+	private ArrayDeque<File> files = new ArrayDeque<File>();
+	
+	/**
+	 * Sets up a trace using the sizes configured in Constants
+	 * @param prefix Segment files are <prefix>-<n>.trace
+	 */
+	public EventTrace ( String prefix )
+	{
+		this(prefix, Constants.TRACE_SEGMENT_SIZE, Constants.TRACE_SEGMENTS);
+	}
+	
+	/**
+	 * Sets up a trace
+	 * @param prefix Segment files are <prefix>-<n>.trace
+	 * @param segmentSize Size of a segment file in bytes, rounded to whole chunks
+	 * @param maxSegments Most segments kept, 0 keeps every segment
+	 */
+	public EventTrace ( String prefix, long segmentSize, int maxSegments )
+	{
+		long chunk = (long) CHUNK_RECORDS * RECORD_SIZE;
+		this.prefix = prefix;
+		this.segmentSize = RECORD_SIZE + Math.max(1, Math.min(segmentSize / chunk, Integer.MAX_VALUE / chunk - 1)) * chunk;
+		this.maxSegments = maxSegments;
+	}
+	
+	/**
+	 * Gets a writer for a run of a replication
+	 * @param replication Replication number starting at 0
+	 * @param antithetic Run on the antithetic streams of the replication
+	 * @return TraceWriter
+	 */
+	public TraceWriter writer ( int replication, boolean antithetic )
+	{
+		return new TraceWriter(this, replication, antithetic ? FLAG_ANTITHETIC : 0);
+	}
+	
+	/**
+	 * Hands out the next chunk, mapping a new segment when the current one is full
+	 * @return Buffer over the chunk, little endian
+	 */
+	synchronized ByteBuffer claimChunk ()
+	{
+		int chunk = CHUNK_RECORDS * RECORD_SIZE;
+		if ( segment == null || position + chunk > segmentSize )
+		{
+			nextSegment();
+		}
+		
+		ByteBuffer buffer = segment.duplicate();
+		buffer.position((int) position);
+		buffer.limit((int) position + chunk);
+		position += chunk;
+		
+		return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	/**
+	 * Maps the next segment file and drops the oldest one if there are too many
+	 */
+	private void nextSegment ()
+	{
+		segmentNumber++;
+		File file = new File(prefix + "-" + segmentNumber + ".trace");
+		
+		try
+		{
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try
+			{
+				raf.setLength(0);
+				segment = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+			}
+			finally
+			{
+				// The mapping stays valid once the file is closed
+				raf.close();
+			}
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not map trace segment " + file, e);
+		}
+		
+		segment.order(ByteOrder.LITTLE_ENDIAN);
+		segment.putLong(0, MAGIC);
+		segment.putInt(8, RECORD_SIZE);
+		segment.putInt(12, segmentNumber);
+		position = RECORD_SIZE;
+		
+		files.add(file);
+		if ( maxSegments > 0 && files.size() > maxSegments )
+		{
+			files.poll().delete();
+		}
+	}
+	
+	/**
+	 * Flushes the segment being written to disk
+	 */
+	public synchronized void close ()
+	{
+		if ( segment != null )
+		{
+			segment.force();
+		}
+	}
+}
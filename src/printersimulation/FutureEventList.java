@@ -0,0 +1,46 @@
+package printersimulation;
+
+/**
+ * Future event list which orders the pending job events of the simulation.
+ * Jobs are referred to by their JobStore handle and are ordered by their
+ * arrival time in the current state. Ties are broken by the order in which
+ * the jobs were inserted into the list, so that events occurring at the same
+ * time are always processed in a deterministic order.
+ */
+public interface FutureEventList
+{
+	/**
+	 * Inserts a job event into the list
+	 * @param j Handle of the job
+	 */
+	public void insert ( int j );
+	
+	/**
+	 * Removes the earliest job event from the list
+	 * @return Handle of the earliest job, JobStore.NONE if the list is empty
+	 */
+	public int poll ();
+	
+	/**
+	 * Gets the earliest job event without removing it
+	 * @return Handle of the earliest job, JobStore.NONE if the list is empty
+	 */
+	public int peek ();
+	
+	/**
+	 * Returns the number of job events in the list
+	 * @return Number of jobs in the list
+	 */
+	public int size ();
+	
+	/**
+	 * Copies the handles of the job events in the list, in no particular order
+	 * @return Handles of the jobs in the list
+	 */
+	public int[] toArray ();
+	
+	/**
+	 * Removes all the job events from the list
+	 */
+	public void clear ();
+}
@@ -0,0 +1,208 @@
+package printersimulation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free single producer single consumer ring of the jobs one partition
+ * of a ParallelRun sends to another, in the order of the time they arrive.
+ * The producer never waits for room: jobs which do not fit are held back
+ * on its side until there is. Besides the jobs the channel carries the
+ * promise of the producer, the earliest time any job it has yet to send
+ * can arrive, which is the null message of a conservative simulation.
+ */
+public class JobChannel
+{
+	// Fields of the jobs, indexed by position within the ring
+	private double[] time;
+	private double[] start;
+	private int[] station;
+	
+	// Size of the ring minus one, the size is a power of two
+	private int mask;
+	
+	// Jobs sent and jobs received since the start
+	private AtomicLong tail = new AtomicLong(0);
+	private AtomicLong head = new AtomicLong(0);
+	
+	// Copies of the other side's position, only refreshed once they run out
+	private long cachedHead = 0;
+	private long cachedTail = 0;
+	
+	// Jobs held back by the producer while the ring is full, oldest first
+	private double[] heldTime = new double[16];
+	private double[] heldStart = new double[16];
+	private int[] heldStation = new int[16];
+	private int heldFirst = 0;
+	private int heldCount = 0;
+	
+	// Earliest time of any job still to be sent
+	private volatile double promise = 0.0;
+	
+	/**
+	 * Sets up an empty channel
+	 * @param capacity Number of jobs the ring holds, rounded up to a power of two
+	 */
+	public JobChannel ( int capacity )
+	{
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		mask = size - 1;
+		time = new double[size];
+		start = new double[size];
+		station = new int[size];
+	}
+	
+	/**
+	 * Sends a job, called by the producer
+	 * @param t Time the job arrives at the station
+	 * @param systemStart Time the job entered the system
+	 * @param to Station the job arrives at
+	 */
+	public void send ( double t, double systemStart, int to )
+	{
+		if ( heldCount == 0 && offer(t, systemStart, to) ) return;
+		
+		if ( heldCount == heldTime.length )
+		{
+			// Unroll the held jobs into larger arrays
+			int n = heldTime.length;
+			double[] times = new double[2 * n];
+			double[] starts = new double[2 * n];
+			int[] stations = new int[2 * n];
+			for ( int i = 0; i < n; i++ )
+			{
+				int k = (heldFirst + i) % n;
+				times[i] = heldTime[k];
+				starts[i] = heldStart[k];
+				stations[i] = heldStation[k];
+			}
+			heldTime = times;
+			heldStart = starts;
+			heldStation = stations;
+			heldFirst = 0;
+		}
+		
+		int k = (heldFirst + heldCount) % heldTime.length;
+		heldTime[k] = t;
+		heldStart[k] = systemStart;
+		heldStation[k] = to;
+		heldCount++;
+	}
+	
+	/**
+	 * Moves the jobs held back into the ring as far as there is room, called by the producer
+	 */
+	public void flush ()
+	{
+		while ( heldCount > 0 && offer(heldTime[heldFirst], heldStart[heldFirst], heldStation[heldFirst]) )
+		{
+			heldFirst = (heldFirst + 1) % heldTime.length;
+			heldCount--;
+		}
+	}
+	
+	/**
+	 * Puts a job into the ring if there is room
+	 * @param t Time the job arrives at the station
+	 * @param systemStart Time the job entered the system
+	 * @param to Station the job arrives at
+	 * @return True if the job was sent
+	 */
+	private boolean offer ( double t, double systemStart, int to )
+	{
+		long position = tail.get();
+		if ( position - cachedHead > mask )
+		{
+			cachedHead = head.get();
+			if ( position - cachedHead > mask ) return false;
+		}
+		
+		int k = (int) position & mask;
+		time[k] = t;
+		start[k] = systemStart;
+		station[k] = to;
+		tail.lazySet(position + 1);
+		return true;
+	}
+	
+	/**
+	 * Sets the earliest time any job still to be sent can arrive, called by the producer
+	 * @param t Promise of the producer for the jobs it has not sent yet
+	 */
+	public void setPromise ( double t )
+	{
+		// Jobs held back are not in the ring yet, so they bound the promise too
+		if ( heldCount > 0 ) t = Math.min(t, heldTime[heldFirst]);
+		if ( t > promise ) promise = t;
+	}
+	
+	/**
+	 * Gets the earliest time any job still to be sent can arrive
+	 * @return Promise of the producer
+	 */
+	public double getPromise ()
+	{
+		return promise;
+	}
+	
+	/**
+	 * Finds the oldest job, called by the consumer
+	 * @return Slot of the job, -1 if the ring is empty
+	 */
+	public int peek ()
+	{
+		long h = head.get();
+		if ( h == cachedTail )
+		{
+			cachedTail = tail.get();
+			if ( h == cachedTail ) return -1;
+		}
+		return (int) h & mask;
+	}
+	
+	/**
+	 * Gets the time a job arrives at its station
+	 * @param k Slot of the job
+	 * @return Arrival time
+	 */
+	public double time ( int k )
+	{
+		return time[k];
+	}
+	
+	/**
+	 * Gets the time a job entered the system
+	 * @param k Slot of the job
+	 * @return Time it entered the system
+	 */
+	public double start ( int k )
+	{
+		return start[k];
+	}
+	
+	/**
+	 * Gets the station a job arrives at
+	 * @param k Slot of the job
+	 * @return Station id
+	 */
+	public int station ( int k )
+	{
+		return station[k];
+	}
+	
+	/**
+	 * Frees the slot of the oldest job, called by the consumer
+	 */
+	public void consume ()
+	{
+		head.lazySet(head.get() + 1);
+	}
+	
+	/**
+	 * Checks whether the producer holds jobs back
+	 * @return True if some jobs are not in the ring yet
+	 */
+	public boolean holding ()
+	{
+		return heldCount > 0;
+	}
+}
@@ -0,0 +1,159 @@
+package printersimulation;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Manages and organizes the jobs within the system
+ * @author Jamie Chung <jfchung@vt.edu>
+ *
+ */
+public class JobManager
+{
+	/**
+	 * ===============================
+	 * Data Structures Documentation
+	 * ===============================
+	 * We decided to implement an over arching manager which handles
+	 * the basic creation, deletion and ordering of the jobs. This provided
+	 * a layer of abstraction for the simulation to not worry about the
+	 * underlying data structure. Originally a linked list was sorted before
+	 * every event, which was fine while there were only around 10 jobs in the
+	 * system but costs O(n log n) per event once the queue grows.
+	 * The jobs are now kept in a future event list which only ever hands
+	 * out the earliest job. Binary and pairing heaps give O(log n) insert and
+	 * removal and the calendar queue gives O(1) amortized insert and removal.
+	 * Every list breaks ties in arrival time by insertion order, the same
+	 * order the stable sort of the linked list used to give.
+	 * The jobs themselves live in a JobStore and are passed around as int
+	 * handles, so that processing an event does not allocate any objects.
+	 */
+	
+	// Holds the fields of every job in the system
+	private JobStore store = new JobStore(64);
+	
+	// Future event list ordering all the jobs
+	private FutureEventList jobs;
+	
+	// Largest number of jobs held by the event list, only kept with Constants.METRICS
+	private int highWaterMark = 0;
+	
+	/**
+	 * Sets up a manager using the event list configured in Constants
+	 */
+	public JobManager ()
+	{
+		this(EventListType.valueOf(Constants.EVENT_LIST));
+	}
+	
+	/**
+	 * Sets up a manager using a specific event list
+	 * @param type Future event list implementation
+	 */
+	public JobManager ( EventListType type )
+	{
+		jobs = type.create(store);
+	}
+	
+	/**
+	 * Gets the store holding the fields of the jobs
+	 * @return JobStore
+	 */
+	public JobStore getStore ()
+	{
+		return store;
+	}
+	
+	/**
+	 * Inserts a job in the system
+	 * @param j Handle of the job
+	 * @return True if successful
+	 */
+	public boolean insert ( int j )
+	{
+		jobs.insert(j);
+		
+		if ( Constants.METRICS && jobs.size() > highWaterMark )
+		{
+			highWaterMark = jobs.size();
+		}
+		return true;
+	}
+	
+	/**
+	 * Gets the first job in the system and removes it
+	 * This is so that if it the station is updated, it can be reinserted
+	 * @return Handle of the first job in the system, JobStore.NONE if non available
+	 */
+	public int getFirstJob ()
+	{
+		return jobs.poll();
+	}
+	
+	/**
+	 * Gets the first job in the system without removing it
+	 * @return Handle of the first job in the system, JobStore.NONE if non available
+	 */
+	public int peekFirstJob ()
+	{
+		return jobs.peek();
+	}
+	
+	/**
+	 * Returns the size of the jobs in the system
+	 * @return Number of jobs in the system
+	 */
+	public int size ()
+	{
+		return jobs.size();
+	}
+	
+	/**
+	 * Copies the jobs in the event list in the order they were inserted,
+	 * so that inserting them again in that order breaks ties the same way
+	 * @return Handles of the jobs in the event list
+	 */
+	public int[] pendingJobs ()
+	{
+		int[] handles = jobs.toArray();
+		Integer[] sorted = new Integer[handles.length];
+		for ( int i = 0; i < handles.length; i++ )
+		{
+			sorted[i] = handles[i];
+		}
+		
+		Arrays.sort(sorted, new Comparator<Integer>()
+		{
+			public int compare ( Integer a, Integer b )
+			{
+				return Long.compare(store.sequence[a], store.sequence[b]);
+			}
+		});
+		
+		for ( int i = 0; i < handles.length; i++ )
+		{
+			handles[i] = sorted[i];
+		}
+		return handles;
+	}
+	
+	/**
+	 * Gets the largest number of jobs the event list has held since it was
+	 * last cleared, only kept when Constants.METRICS is on
+	 * @return High water mark
+	 */
+	public int getHighWaterMark ()
+	{
+		return highWaterMark;
+	}
+	
+	/**
+	 * Clears the jobs in the system
+	 */
+	public void clear ()
+	{
+		jobs.clear();
+		store.clear();
+		highWaterMark = 0;
+	}
+}
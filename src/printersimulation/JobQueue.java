@@ -0,0 +1,126 @@
+package printersimulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * First in first out queue of job handles, kept in a ring buffer which
+ * doubles in size when full, so adding and taking a job never allocates
+ * once the queue has grown to its longest length.
+ */
+public class JobQueue
+{
+	// Job handles, the queue runs from head and wraps around the end
+	private int[] jobs;
+	
+	// Position of the first job
+	private int head = 0;
+	
+	// Number of jobs in the queue
+	private int size = 0;
+	
+	/**
+	 * Sets up an empty queue
+	 * @param capacity Number of jobs the queue can hold before growing
+	 */
+	public JobQueue ( int capacity )
+	{
+		jobs = new int[Math.max(1, capacity)];
+	}
+	
+	/**
+	 * Adds a job to the back of the queue
+	 * @param j Handle of the job
+	 */
+	public void add ( int j )
+	{
+		if ( size == jobs.length )
+		{
+			grow();
+		}
+		
+		int tail = head + size;
+		if ( tail >= jobs.length ) tail -= jobs.length;
+		jobs[tail] = j;
+		size++;
+	}
+	
+	/**
+	 * Takes the job at the front of the queue
+	 * @return Handle of the job, JobStore.NONE if the queue is empty
+	 */
+	public int poll ()
+	{
+		if ( size == 0 ) return JobStore.NONE;
+		
+		int j = jobs[head];
+		head++;
+		if ( head == jobs.length ) head = 0;
+		size--;
+		
+		return j;
+	}
+	
+	/**
+	 * Returns the number of jobs in the queue
+	 * @return Number of jobs
+	 */
+	public int size ()
+	{
+		return size;
+	}
+	
+	/**
+	 * Removes every job from the queue
+	 */
+	public void clear ()
+	{
+		head = 0;
+		size = 0;
+	}
+	
+	/**
+	 * Writes the jobs of the queue to a checkpoint, first to last
+	 * @param out Checkpoint being written
+	 * @throws IOException
+	 */
+	public void writeState ( DataOutput out ) throws IOException
+	{
+		out.writeInt(size);
+		for ( int i = 0; i < size; i++ )
+		{
+			out.writeInt(jobs[(head + i) % jobs.length]);
+		}
+	}
+	
+	/**
+	 * Replaces the jobs of the queue with those of a checkpoint
+	 * @param in Checkpoint being read
+	 * @throws IOException
+	 */
+	public void readState ( DataInput in ) throws IOException
+	{
+		clear();
+		int count = in.readInt();
+		for ( int i = 0; i < count; i++ )
+		{
+			add(in.readInt());
+		}
+	}
+	
+	/**
+	 * Doubles the size of the buffer, unwrapping the jobs to its start
+	 */
+	private void grow ()
+	{
+		int[] grown = new int[jobs.length * 2];
+		int first = jobs.length - head;
+		System.arraycopy(jobs, head, grown, 0, first);
+		System.arraycopy(jobs, 0, grown, first, head);
+		
+		jobs = grown;
+		head = 0;
+	}
+}
@@ -0,0 +1,33 @@
+package printersimulation;
+
+/**
+ * Enum for various sources of jobs
+ * Also known as PC Groups
+ * @author Jamie Chung <jfchung@vt.edu>
+ *
+ */
+public enum JobSource
+{
+	PCGROUP1,
+	PCGROUP2,
+	PCGROUP3;
+	
+	/**
+	 * Gets the mean time between two jobs arriving from this source
+	 * @return Mean interval time
+	 */
+	public double meanArrivalTime ()
+	{
+		switch ( this )
+		{
+			case PCGROUP1:
+				return Constants.JOB_INTERVAL_USER_GROUP_1;
+				
+			case PCGROUP2:
+				return Constants.JOB_INTERVAL_USER_GROUP_2;
+				
+			default:
+				return Constants.JOB_INTERVAL_USER_GROUP_3;
+		}
+	}
+}
@@ -0,0 +1,276 @@
+package printersimulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Stores every job of a replication in primitive arrays, one array per
+ * field, and refers to a job by its int handle (the index into the arrays).
+ * Slots of jobs which have left the system are recycled through a free
+ * list, so once the arrays have grown to the largest number of jobs in
+ * the system the simulation no longer allocates anything per job.
+ */
+public class JobStore
+{
+	// Marks the end of the free list
+	public final static int NONE = -1;
+	
+	// Station of a job which has not entered the system yet
+	public final static int ARRIVING = -1;
+	
+	// Time of the next event of the job, its arrival or the end of its service
+	public double[] arrivalTime;
+	
+	// How long it takes to execute the current service
+	public double[] executionTime;
+	
+	// Time that Job enters the system
+	public double[] systemStartTime;
+	
+	// Insertion order into the future event list, used to break ties
+	public long[] sequence;
+	
+	// Unique ID for a job in the system
+	public int[] id;
+	
+	// Station the job is being served at, ARRIVING before it enters the system
+	public int[] station;
+	
+	// Server of the station the job is being served by
+	public int[] server;
+	
+	// Source id of the job, see Network.addSource
+	public int[] source;
+	
+	// Pages of the job as given by an arrival log, 0 if not known
+	public int[] pages;
+	
+	// Next free slot for every free slot
+	private int[] nextFree;
+	
+	// First free slot
+	private int freeHead;
+	
+	// Number of jobs held in the store
+	private int size = 0;
+	
+	/**
+	 * Sets up an empty store
+	 * @param capacity Number of jobs the store can hold before growing
+	 */
+	public JobStore ( int capacity )
+	{
+		arrivalTime = new double[capacity];
+		executionTime = new double[capacity];
+		systemStartTime = new double[capacity];
+		sequence = new long[capacity];
+		id = new int[capacity];
+		station = new int[capacity];
+		server = new int[capacity];
+		source = new int[capacity];
+		pages = new int[capacity];
+		nextFree = new int[capacity];
+		
+		clear();
+	}
+	
+	/**
+	 * Takes a free slot for a new job
+	 * @param _source Source id of the job to enter the system
+	 * @param _station Initial station of the job, ARRIVING if it has not entered the system yet
+	 * @param _id Unique ID of the job
+	 * @param clock Current time of the system clock
+	 * @return Handle of the job
+	 */
+	public int allocate ( int _source, int _station, int _id, double clock )
+	{
+		if ( freeHead == NONE )
+		{
+			grow();
+		}
+		
+		int j = freeHead;
+		freeHead = nextFree[j];
+		size++;
+		
+		source[j] = _source;
+		station[j] = _station;
+		server[j] = 0;
+		id[j] = _id;
+		arrivalTime[j] = clock;
+		systemStartTime[j] = clock;
+		executionTime[j] = 0.0;
+		sequence[j] = 0;
+		pages[j] = 0;
+		
+		return j;
+	}
+	
+	/**
+	 * Returns the slot of a job which has left the system
+	 * @param j Handle of the job
+	 */
+	public void release ( int j )
+	{
+		nextFree[j] = freeHead;
+		freeHead = j;
+		size--;
+	}
+	
+	/**
+	 * Gets the source of a job
+	 * @param j Handle of the job
+	 * @return Source id
+	 */
+	public int getJobSource ( int j )
+	{
+		return source[j];
+	}
+	
+	/**
+	 * Orders two jobs by arrival time and then by insertion order
+	 * @param a Handle of the first job
+	 * @param b Handle of the second job
+	 * @return True if job a comes before job b
+	 */
+	public boolean before ( int a, int b )
+	{
+		double ta = arrivalTime[a];
+		double tb = arrivalTime[b];
+		return ta < tb || (ta == tb && sequence[a] < sequence[b]);
+	}
+	
+	/**
+	 * Returns the number of jobs held in the store
+	 * @return Number of jobs
+	 */
+	public int size ()
+	{
+		return size;
+	}
+	
+	/**
+	 * Returns the number of jobs the store can hold before growing
+	 * @return Number of slots
+	 */
+	public int capacity ()
+	{
+		return id.length;
+	}
+	
+	/**
+	 * Frees every slot of the store
+	 */
+	public void clear ()
+	{
+		for ( int i = 0; i < nextFree.length - 1; i++ )
+		{
+			nextFree[i] = i + 1;
+		}
+		nextFree[nextFree.length - 1] = NONE;
+		freeHead = 0;
+		size = 0;
+	}
+	
+	/**
+	 * Writes every slot and the free list to a checkpoint
+	 * @param out Checkpoint being written
+	 * @throws IOException
+	 */
+	public void writeState ( DataOutput out ) throws IOException
+	{
+		out.writeInt(id.length);
+		out.writeInt(freeHead);
+		out.writeInt(size);
+		
+		for ( int j = 0; j < id.length; j++ )
+		{
+			out.writeDouble(arrivalTime[j]);
+			out.writeDouble(executionTime[j]);
+			out.writeDouble(systemStartTime[j]);
+			out.writeLong(sequence[j]);
+			out.writeInt(id[j]);
+			out.writeInt(station[j]);
+			out.writeInt(server[j]);
+			out.writeInt(pages[j]);
+			out.writeInt(nextFree[j]);
+			out.writeInt(source[j]);
+		}
+	}
+	
+	/**
+	 * Replaces every slot and the free list with those of a checkpoint
+	 * @param in Checkpoint being read
+	 * @throws IOException
+	 */
+	public void readState ( DataInput in ) throws IOException
+	{
+		int capacity = in.readInt();
+		freeHead = in.readInt();
+		size = in.readInt();
+		
+		arrivalTime = new double[capacity];
+		executionTime = new double[capacity];
+		systemStartTime = new double[capacity];
+		sequence = new long[capacity];
+		id = new int[capacity];
+		station = new int[capacity];
+		server = new int[capacity];
+		pages = new int[capacity];
+		nextFree = new int[capacity];
+		source = new int[capacity];
+		
+		for ( int j = 0; j < capacity; j++ )
+		{
+			arrivalTime[j] = in.readDouble();
+			executionTime[j] = in.readDouble();
+			systemStartTime[j] = in.readDouble();
+			sequence[j] = in.readLong();
+			id[j] = in.readInt();
+			station[j] = in.readInt();
+			server[j] = in.readInt();
+			pages[j] = in.readInt();
+			nextFree[j] = in.readInt();
+			source[j] = in.readInt();
+		}
+	}
+	
+	/**
+	 * Easy string representation of a job for debugging
+	 * @param j Handle of the job
+	 * @return Job: <id> [<station>] - Arrival Time: <arrivalTime>
+	 */
+	public String toString ( int j )
+	{
+		return "Job: " + id[j] + " [" + (station[j] == ARRIVING ? "ARRIVING" : "Station " + station[j]) + "]  - Arrival Time: " + arrivalTime[j];
+	}
+	
+	/**
+	 * Doubles the size of every array and adds the new slots to the free list
+	 */
+	private void grow ()
+	{
+		int oldCapacity = id.length;
+		int newCapacity = oldCapacity * 2;
+		
+		arrivalTime = Arrays.copyOf(arrivalTime, newCapacity);
+		executionTime = Arrays.copyOf(executionTime, newCapacity);
+		systemStartTime = Arrays.copyOf(systemStartTime, newCapacity);
+		sequence = Arrays.copyOf(sequence, newCapacity);
+		id = Arrays.copyOf(id, newCapacity);
+		station = Arrays.copyOf(station, newCapacity);
+		server = Arrays.copyOf(server, newCapacity);
+		source = Arrays.copyOf(source, newCapacity);
+		pages = Arrays.copyOf(pages, newCapacity);
+		nextFree = Arrays.copyOf(nextFree, newCapacity);
+		
+		for ( int i = oldCapacity; i < newCapacity - 1; i++ )
+		{
+			nextFree[i] = i + 1;
+		}
+		nextFree[newCapacity - 1] = freeHead;
+		freeHead = oldCapacity;
+	}
+}
@@ -0,0 +1,200 @@
+package printersimulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Histogram of positive values in log spaced buckets of fixed memory, in
+ * the manner of HdrHistogram. Every power of two is split into
+ * 2^PRECISION_BITS buckets, so any value is known to within 1/128 of itself
+ * whether it is a millisecond or a day. Recording a value only increments a
+ * bucket found from the bits of the double, so it never allocates. Values
+ * can be weighted, which gives time weighted histograms of queue lengths.
+ */
+public class LogHistogram
+{
+	/**
+	 * ===============================
+	 * Bucket Documentation
+	 * ===============================
+	 * The bits of a positive double grow with its value, the exponent above
+	 * the mantissa. Keeping the exponent and the top PRECISION_BITS of the
+	 * mantissa gives a bucket number which is linear within a power of two
+	 * and logarithmic across them. Bucket 0 holds every value below
+	 * 2^MIN_EXPONENT, zero included, and the last bucket every value from
+	 * 2^(MAX_EXPONENT + 1) on. A quantile is given as the lowest value of
+	 * its bucket, which is exact for whole numbers below 2^PRECISION_BITS.
+	 */
+	
+	// Bits of the mantissa kept, 128 buckets per power of two
+	public final static int PRECISION_BITS = 7;
+	
+	// Smallest and largest powers of two with buckets of their own
+	public final static int MIN_EXPONENT = -16;
+	public final static int MAX_EXPONENT = 47;
+	
+	// Bits of a double dropped to get to its bucket
+	private final static int SHIFT = 52 - PRECISION_BITS;
+	
+	// Bits of 2^MIN_EXPONENT after the shift, the start of bucket 1
+	private final static long BASE = Double.doubleToRawLongBits(Math.scalb(1.0, MIN_EXPONENT)) >>> SHIFT;
+	
+	// Number of buckets, with the bucket below 2^MIN_EXPONENT
+	public final static int BUCKETS = 1 + ((MAX_EXPONENT - MIN_EXPONENT + 1) << PRECISION_BITS);
+	
+	// Smallest value with a bucket of its own
+	private final static double MIN_VALUE = Math.scalb(1.0, MIN_EXPONENT);
+	
+	// Weight recorded in every bucket
+	private double[] counts = new double[BUCKETS];
+	
+	// Weight recorded in all
+	private double total = 0.0;
+	
+	/**
+	 * Records a value once
+	 * @param value Value
+	 */
+	public void record ( double value )
+	{
+		counts[bucket(value)] += 1.0;
+		total += 1.0;
+	}
+	
+	/**
+	 * Records a value with a weight, such as the time a queue had a length
+	 * @param value Value
+	 * @param weight Weight of the value
+	 */
+	public void record ( double value, double weight )
+	{
+		counts[bucket(value)] += weight;
+		total += weight;
+	}
+	
+	/**
+	 * Gets the total weight recorded
+	 * @return Number of values, or their total weight
+	 */
+	public double total ()
+	{
+		return total;
+	}
+	
+	/**
+	 * Adds the values of another histogram
+	 * @param other Histogram
+	 */
+	public void add ( LogHistogram other )
+	{
+		for ( int i = 0; i < BUCKETS; i++ )
+		{
+			counts[i] += other.counts[i];
+		}
+		total += other.total;
+	}
+	
+	/**
+	 * Forgets every value
+	 */
+	public void clear ()
+	{
+		Arrays.fill(counts, 0.0);
+		total = 0.0;
+	}
+	
+	/**
+	 * Finds quantiles in one pass over the buckets
+	 * @param levels Quantiles between 0 and 1, in increasing order
+	 * @param values Where the quantiles are written
+	 * @param offset Index of values the first quantile is written to
+	 */
+	public void quantiles ( double[] levels, double[] values, int offset )
+	{
+		int q = 0;
+		double cumulative = 0.0;
+		for ( int i = 0; i < BUCKETS && q < levels.length; i++ )
+		{
+			if ( counts[i] == 0.0 ) continue;
+			cumulative += counts[i];
+			
+			// The quantile is the first bucket holding that share of the weight
+			while ( q < levels.length && cumulative >= levels[q] * total )
+			{
+				values[offset + q++] = lowest(i);
+			}
+		}
+		
+		// Nothing was recorded
+		while ( q < levels.length )
+		{
+			values[offset + q++] = Double.NaN;
+		}
+	}
+	
+	/**
+	 * Gets the bucket of a value
+	 * @param value Value
+	 * @return Bucket number
+	 */
+	public static int bucket ( double value )
+	{
+		if ( !(value >= MIN_VALUE) ) return 0;
+		
+		long bucket = (Double.doubleToRawLongBits(value) >>> SHIFT) - BASE + 1;
+		return (bucket < BUCKETS) ? (int) bucket : BUCKETS - 1;
+	}
+	
+	/**
+	 * Gets the lowest value of a bucket
+	 * @param bucket Bucket number
+	 * @return Lowest value, 0 for the bucket below 2^MIN_EXPONENT
+	 */
+	public static double lowest ( int bucket )
+	{
+		if ( bucket == 0 ) return 0.0;
+		return Double.longBitsToDouble((bucket - 1 + BASE) << SHIFT);
+	}
+	
+	/**
+	 * Writes the buckets which are not empty
+	 * @param out Stream written to
+	 * @throws IOException
+	 */
+	public void writeState ( DataOutput out ) throws IOException
+	{
+		int used = 0;
+		for ( int i = 0; i < BUCKETS; i++ )
+		{
+			if ( counts[i] != 0.0 ) used++;
+		}
+		
+		out.writeInt(used);
+		for ( int i = 0; i < BUCKETS; i++ )
+		{
+			if ( counts[i] == 0.0 ) continue;
+			out.writeShort(i);
+			out.writeDouble(counts[i]);
+		}
+		out.writeDouble(total);
+	}
+	
+	/**
+	 * Reads the buckets written by writeState
+	 * @param in Stream read from
+	 * @throws IOException
+	 */
+	public void readState ( DataInput in ) throws IOException
+	{
+		Arrays.fill(counts, 0.0);
+		int used = in.readInt();
+		for ( int i = 0; i < used; i++ )
+		{
+			int bucket = in.readUnsignedShort();
+			counts[bucket] = in.readDouble();
+		}
+		total = in.readDouble();
+	}
+}
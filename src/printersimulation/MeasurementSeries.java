@@ -0,0 +1,372 @@
+package printersimulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Series of snapshots of the cumulative measurements of a run, taken every
+ * time a set number of jobs has exited the system. The difference between
+ * two snapshots gives the measurements over the jobs in between, which is
+ * used to find where the warmup of a run ends (MSER) and to split one long
+ * run into batches (batch means).
+ * The series has a fixed capacity. When it fills up every other snapshot is
+ * dropped and snapshots are taken half as often, so the memory used does not
+ * depend on the length of the run.
+ */
+public class MeasurementSeries
+{
+	// Cumulative measurements at every snapshot
+	private double[] clock;
+	private double[] stationHistory;
+	private double[] area;
+	private double[] jobHistory;
+	private long[] completed;
+	private long[] served;
+	
+	// Number of stations, stationHistory holds one row of them per snapshot
+	private int stations;
+	
+	// Most snapshots kept
+	private int capacity;
+	
+	// Number of snapshots taken
+	private int size = 0;
+	
+	// Number of jobs exiting the system between two snapshots
+	private long granularity;
+	
+	/**
+	 * Sets up an empty series using the sizes configured in Constants
+	 * @param stations Number of stations of the network
+	 */
+	public MeasurementSeries ( int stations )
+	{
+		this(stations, Constants.MSER_BATCH_SIZE, Constants.SERIES_CAPACITY);
+	}
+	
+	/**
+	 * Sets up an empty series
+	 * @param stations Number of stations of the network
+	 * @param granularity Number of jobs between two snapshots
+	 * @param capacity Most snapshots kept, an even number
+	 */
+	public MeasurementSeries ( int stations, long granularity, int capacity )
+	{
+		this.stations = stations;
+		this.granularity = granularity;
+		this.capacity = capacity;
+		
+		// The arrays grow up to the capacity as snapshots are taken
+		int initial = Math.min(capacity, 1024);
+		clock = new double[initial];
+		stationHistory = new double[initial * stations];
+		area = new double[initial];
+		jobHistory = new double[initial];
+		completed = new long[initial];
+		served = new long[initial];
+	}
+	
+	/**
+	 * Takes a snapshot of the report if the number of jobs that have
+	 * exited the system is the next multiple of the granularity
+	 * @param report Report of the run
+	 * @param numberCompletedJobs Number of jobs that have exited the system since the series started
+	 */
+	public void record ( SimulationReport report, long numberCompletedJobs )
+	{
+		if ( numberCompletedJobs != size * granularity ) return;
+		
+		if ( size == capacity )
+		{
+			thin();
+			if ( numberCompletedJobs != size * granularity ) return;
+		}
+		else if ( size == clock.length )
+		{
+			grow();
+		}
+		
+		clock[size] = report.clock;
+		System.arraycopy(report.stationHistory, 0, stationHistory, size * stations, stations);
+		area[size] = report.currentArea();
+		jobHistory[size] = report.jobHistory;
+		completed[size] = numberCompletedJobs;
+		served[size] = report.completedJobs;
+		size++;
+	}
+	
+	/**
+	 * Writes the snapshots taken so far to a checkpoint
+	 * @param out Checkpoint being written
+	 * @throws IOException
+	 */
+	public void writeState ( DataOutput out ) throws IOException
+	{
+		out.writeInt(size);
+		out.writeLong(granularity);
+		for ( int i = 0; i < size; i++ )
+		{
+			out.writeDouble(clock[i]);
+			for ( int s = 0; s < stations; s++ )
+			{
+				out.writeDouble(stationHistory[i * stations + s]);
+			}
+			out.writeDouble(area[i]);
+			out.writeDouble(jobHistory[i]);
+			out.writeLong(completed[i]);
+			out.writeLong(served[i]);
+		}
+	}
+	
+	/**
+	 * Replaces the snapshots with those written to a checkpoint
+	 * @param in Checkpoint being read
+	 * @throws IOException
+	 */
+	public void readState ( DataInput in ) throws IOException
+	{
+		size = 0;
+		int count = in.readInt();
+		granularity = in.readLong();
+		for ( int i = 0; i < count; i++ )
+		{
+			if ( size == clock.length )
+			{
+				grow();
+			}
+			
+			clock[i] = in.readDouble();
+			for ( int s = 0; s < stations; s++ )
+			{
+				stationHistory[i * stations + s] = in.readDouble();
+			}
+			area[i] = in.readDouble();
+			jobHistory[i] = in.readDouble();
+			completed[i] = in.readLong();
+			served[i] = in.readLong();
+			size++;
+		}
+	}
+	
+	/**
+	 * Gets the number of snapshots taken
+	 * @return Number of snapshots
+	 */
+	public int size ()
+	{
+		return size;
+	}
+	
+	/**
+	 * Gets the number of jobs exiting the system between two snapshots
+	 * @return Granularity
+	 */
+	public long granularity ()
+	{
+		return granularity;
+	}
+	
+	/**
+	 * Gets the first snapshot taken after a number of jobs have exited the system
+	 * @param numberJobs Number of jobs
+	 * @return Snapshot index
+	 */
+	public int indexOf ( long numberJobs )
+	{
+		return (int) Math.min(size - 1, (numberJobs + granularity - 1) / granularity);
+	}
+	
+	/**
+	 * Builds a report of the measurements between two snapshots
+	 * @param from First snapshot
+	 * @param to Last snapshot
+	 * @return SimulationReport covering the jobs between the snapshots
+	 */
+	public SimulationReport report ( int from, int to )
+	{
+		SimulationReport report = new SimulationReport((int) (completed[to] - completed[from]), stations);
+		
+		report.warmupJobs = (int) completed[from];
+		report.startClock = clock[from];
+		report.clock = clock[to];
+		report.prevClock = clock[to];
+		for ( int s = 0; s < stations; s++ )
+		{
+			report.stationHistory[s] = stationHistory[to * stations + s] - stationHistory[from * stations + s];
+		}
+		report.totalArea = area[to] - area[from];
+		report.jobHistory = jobHistory[to] - jobHistory[from];
+		report.completedJobs = (int) (served[to] - served[from]);
+		
+		return report;
+	}
+	
+	/**
+	 * Finds the end of the warmup with the MSER rule (K. P. White, 1997).
+	 * The series is read as batch means of the time jobs spend in the
+	 * system, which is MSER-5 as long as the series has not been thinned.
+	 * The truncation point is the d within the first half of the series
+	 * which minimizes the squared standard error of the mean of the
+	 * batches after d, sum((Y_i - mean_d)^2) / (n - d)^2.
+	 * @return Snapshot where the steady state measurements start
+	 */
+	public int truncationPoint ()
+	{
+		int n = size - 1;
+		if ( n < 2 ) return 0;
+		
+		// Suffix sums of the batch means and their squares
+		double[] sum = new double[n + 1];
+		double[] sumSquares = new double[n + 1];
+		for ( int i = n - 1; i >= 0; i-- )
+		{
+			double y = batchMean(i);
+			sum[i] = sum[i + 1] + y;
+			sumSquares[i] = sumSquares[i + 1] + y * y;
+		}
+		
+		int best = 0;
+		double bestStatistic = Double.POSITIVE_INFINITY;
+		for ( int d = 0; d <= n / 2; d++ )
+		{
+			double remaining = n - d;
+			double squares = sumSquares[d] - sum[d] * sum[d] / remaining;
+			double statistic = squares / (remaining * remaining);
+			
+			if ( statistic < bestStatistic )
+			{
+				bestStatistic = statistic;
+				best = d;
+			}
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Picks the number of batches to split the series into after the warmup.
+	 * Starting from the most batches, the number is halved until the batch
+	 * means of every metric are no longer correlated with their neighbours,
+	 * which is when the batches are long enough to be treated as independent.
+	 * @param from First snapshot after the warmup
+	 * @return Number of batches
+	 */
+	public int batchCount ( int from )
+	{
+		int intervals = size - 1 - from;
+		int batches = Math.min(Constants.MAX_BATCHES, intervals);
+		
+		while ( batches >= Constants.MIN_BATCHES )
+		{
+			if ( uncorrelated(from, batches) ) return batches;
+			batches /= 2;
+		}
+		
+		return Math.min(Constants.MIN_BATCHES, intervals);
+	}
+	
+	/**
+	 * Checks the lag 1 autocorrelation of the batch means of every metric
+	 * @param from First snapshot after the warmup
+	 * @param batches Number of batches
+	 * @return True if every metric is below Constants.BATCH_CORRELATION
+	 */
+	private boolean uncorrelated ( int from, int batches )
+	{
+		int length = (size - 1 - from) / batches;
+		double[] means = new double[batches];
+		
+		SimulationReport[] reports = new SimulationReport[batches];
+		for ( int b = 0; b < batches; b++ )
+		{
+			reports[b] = report(from + b * length, from + (b + 1) * length);
+		}
+		
+		for ( int metric = 0; metric < stations + 2; metric++ )
+		{
+			for ( int b = 0; b < batches; b++ )
+			{
+				means[b] = reports[b].metric(metric);
+			}
+			
+			if ( Math.abs(lagOneCorrelation(means)) > Constants.BATCH_CORRELATION ) return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Lag 1 autocorrelation of a series
+	 * @param x Series of values
+	 * @return Correlation between each value and the next
+	 */
+	private static double lagOneCorrelation ( double[] x )
+	{
+		double mean = 0.0;
+		for ( int i = 0; i < x.length; i++ )
+		{
+			mean += x[i];
+		}
+		mean /= x.length;
+		
+		double numerator = 0.0;
+		double denominator = 0.0;
+		for ( int i = 0; i < x.length; i++ )
+		{
+			double d = x[i] - mean;
+			denominator += d * d;
+			if ( i + 1 < x.length ) numerator += d * (x[i + 1] - mean);
+		}
+		
+		return (denominator > 0.0) ? numerator / denominator : 0.0;
+	}
+	
+	/**
+	 * Average time in the system of the jobs between two consecutive snapshots
+	 * @param i Interval starting at snapshot i
+	 * @return Batch mean
+	 */
+	private double batchMean ( int i )
+	{
+		long count = served[i + 1] - served[i];
+		return (count > 0) ? (jobHistory[i + 1] - jobHistory[i]) / count : 0.0;
+	}
+	
+	/**
+	 * Doubles the size of every array, up to the capacity
+	 */
+	private void grow ()
+	{
+		int length = Math.min(capacity, clock.length * 2);
+		
+		clock = Arrays.copyOf(clock, length);
+		stationHistory = Arrays.copyOf(stationHistory, length * stations);
+		area = Arrays.copyOf(area, length);
+		jobHistory = Arrays.copyOf(jobHistory, length);
+		completed = Arrays.copyOf(completed, length);
+		served = Arrays.copyOf(served, length);
+	}
+	
+	/**
+	 * Drops every other snapshot, keeping the first one
+	 */
+	private void thin ()
+	{
+		int kept = 0;
+		for ( int i = 0; i < size; i += 2 )
+		{
+			clock[kept] = clock[i];
+			System.arraycopy(stationHistory, i * stations, stationHistory, kept * stations, stations);
+			area[kept] = area[i];
+			jobHistory[kept] = jobHistory[i];
+			completed[kept] = completed[i];
+			served[kept] = served[i];
+			kept++;
+		}
+		
+		size = kept;
+		granularity *= 2;
+	}
+}
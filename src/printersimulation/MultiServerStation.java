@@ -0,0 +1,245 @@
+package printersimulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Handler of a station with one or more identical servers in parallel.
+ * Jobs which find every server busy wait their turn in a first in first
+ * out queue. The idle servers are kept on a stack, so both taking a free
+ * server and handing it to the next waiting job take constant time
+ * whatever the number of servers.
+ */
+public class MultiServerStation implements StationHandler
+{
+	// Description of the station
+	private Station station;
+	
+	// Position of the station, used to index the report
+	private int id;
+	
+	// Random number stream of the service times
+	private NumberGenerator serviceStream;
+	
+	// Random number stream of the routing, null if the route is never random
+	private NumberGenerator routingStream;
+	
+	// Jobs waiting for a server
+	private JobQueue queue = new JobQueue(16);
+	
+	// Servers which are idle, the last one is handed out first
+	private int[] idle;
+	
+	// Number of idle servers
+	private int numberIdle;
+	
+	// Number of jobs at the station, in service or waiting
+	private int numberJobs;
+	
+	// Service times drawn ahead for the next jobs to start, oldest first,
+	// only drawn when a ParallelRun asks for the lookahead of the station
+	private double[] ahead;
+	private int aheadFirst = 0;
+	private int aheadCount = 0;
+	
+	/**
+	 * Sets up the handler of a station for a replication
+	 * @param station Description of the station
+	 * @param serviceStream Random number stream of the service times
+	 * @param routingStream Random number stream of the routing, null if the route is never random
+	 */
+	public MultiServerStation ( Station station, NumberGenerator serviceStream, NumberGenerator routingStream )
+	{
+		this.station = station;
+		this.id = station.id;
+		this.serviceStream = serviceStream;
+		this.routingStream = routingStream;
+		
+		idle = new int[station.servers];
+		ahead = new double[station.servers];
+		reset();
+	}
+	
+	/**
+	 * A job arrives at the station at the current clock
+	 * @param report Report of the replication
+	 * @param jobs Jobs of the replication
+	 * @param j Handle of the job, not in the event list
+	 * @return True if the job was taken in, false if the station is full
+	 */
+	public boolean arrive ( SimulationReport report, JobManager jobs, int j )
+	{
+		// Respect the max number of jobs the station can handle at any time
+		if ( station.capacity > 0 && numberJobs >= station.capacity ) return false;
+		numberJobs++;
+		
+		jobs.getStore().station[j] = id;
+		
+		if ( numberIdle > 0 )
+		{
+			// Start right away on an idle server
+			report.recordWait(id, 0.0);
+			startService(report, jobs, j, idle[--numberIdle]);
+		}
+		else
+		{
+			// Wait for a server
+			queue.add(j);
+			report.updateQueueLength(id, queue.size());
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * A job finishes its service at the station at the current clock
+	 * @param report Report of the replication
+	 * @param jobs Jobs of the replication
+	 * @param j Handle of the job, already removed from the event list
+	 * @return Station the job goes to next, Station.EXIT to leave the system
+	 */
+	public int depart ( SimulationReport report, JobManager jobs, int j )
+	{
+		numberJobs--;
+		
+		// The server goes straight on to the next waiting job, or idles
+		int server = jobs.getStore().server[j];
+		int waiting = queue.poll();
+		if ( waiting != JobStore.NONE )
+		{
+			// The job has waited since the event that brought it here
+			report.recordWait(id, report.clock - jobs.getStore().arrivalTime[waiting]);
+			report.updateQueueLength(id, queue.size());
+			startService(report, jobs, waiting, server);
+		}
+		else
+		{
+			idle[numberIdle++] = server;
+		}
+		
+		return station.route(routingStream);
+	}
+	
+	/**
+	 * Gets the shortest of the service times of the next jobs to start, one
+	 * for every server since that many can start before any of them finishes
+	 * @return Shortest service the station can start next
+	 */
+	public double lookahead ()
+	{
+		// The draws are the same as if they were made when the jobs start
+		while ( aheadCount < ahead.length )
+		{
+			ahead[(aheadFirst + aheadCount) % ahead.length] = station.service.sample(serviceStream);
+			aheadCount++;
+		}
+		
+		double shortest = ahead[0];
+		for ( int i = 1; i < ahead.length; i++ )
+		{
+			shortest = Math.min(shortest, ahead[i]);
+		}
+		return shortest;
+	}
+	
+	/**
+	 * Empties the station before a new run
+	 */
+	public void reset ()
+	{
+		queue.clear();
+		numberJobs = 0;
+		
+		// Server 0 is handed out first
+		numberIdle = idle.length;
+		for ( int i = 0; i < idle.length; i++ )
+		{
+			idle[i] = idle.length - 1 - i;
+		}
+	}
+	
+	/**
+	 * Writes the jobs, servers and random number streams of the station to a checkpoint
+	 * @param out Checkpoint being written
+	 * @throws IOException
+	 */
+	public void writeState ( DataOutput out ) throws IOException
+	{
+		serviceStream.writeState(out);
+		if ( routingStream != null ) routingStream.writeState(out);
+		out.writeInt(numberJobs);
+		queue.writeState(out);
+		
+		out.writeInt(numberIdle);
+		for ( int i = 0; i < numberIdle; i++ )
+		{
+			out.writeInt(idle[i]);
+		}
+	}
+	
+	/**
+	 * Puts the station back in the state written to a checkpoint
+	 * @param in Checkpoint being read
+	 * @throws IOException
+	 */
+	public void readState ( DataInput in ) throws IOException
+	{
+		serviceStream.readState(in);
+		if ( routingStream != null ) routingStream.readState(in);
+		numberJobs = in.readInt();
+		queue.readState(in);
+		
+		numberIdle = in.readInt();
+		if ( numberIdle > idle.length )
+		{
+			throw new IOException("Checkpoint holds more idle servers than station " + id + " has");
+		}
+		for ( int i = 0; i < numberIdle; i++ )
+		{
+			idle[i] = in.readInt();
+			if ( idle[i] >= idle.length ) throw new IOException("Checkpoint holds a server station " + id + " does not have");
+		}
+	}
+	
+	/**
+	 * Starts the service of a job and schedules the end of it
+	 * @param report Report of the replication
+	 * @param jobs Jobs of the replication
+	 * @param j Handle of the job
+	 * @param server Server the job is served by
+	 */
+	private void startService ( SimulationReport report, JobManager jobs, int j, int server )
+	{
+		JobStore store = jobs.getStore();
+		
+		// Generate time for when the job will finish executing, jobs
+		// replayed from an arrival log with a page count take as long
+		// as their pages do
+		int pages = store.pages[j];
+		double execution = (pages > 0 && station.timePerPage > 0.0)
+				? pages * station.timePerPage : nextService();
+		store.executionTime[j] = execution;
+		store.arrivalTime[j] = report.clock + execution;
+		store.server[j] = server;
+		
+		// Add it to the history of execution time per server of this station
+		report.addService(id, execution / idle.length);
+		
+		jobs.insert(j);
+	}
+	
+	/**
+	 * Takes the service time of the next job to start, drawn ahead or drawn now
+	 * @return Service time
+	 */
+	private double nextService ()
+	{
+		if ( aheadCount == 0 ) return station.service.sample(serviceStream);
+		
+		double service = ahead[aheadFirst];
+		aheadFirst = (aheadFirst + 1) % ahead.length;
+		aheadCount--;
+		return service;
+	}
+}
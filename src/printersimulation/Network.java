@@ -0,0 +1,426 @@
+package printersimulation;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Description of the network of stations the jobs travel through: where
+ * the jobs of each source enter, how each station serves them and where
+ * they go afterwards. The simulator only ever looks stations up by their
+ * position, so the work per event does not depend on the size of the network.
+ */
+public class Network
+{
+	// Stations of the network, indexed by their id
+	private ArrayList<Station> stations = new ArrayList<Station>();
+	
+	// Names of the job sources, indexed by their id
+	private ArrayList<String> sourceNames = new ArrayList<String>();
+	
+	// Ids of the job sources by their name, so that a log naming thousands
+	// of sources looks each up without searching the list
+	private HashMap<String, Integer> sourceIds = new HashMap<String, Integer>();
+	
+	// Mean time between two arrivals, indexed by source id
+	private double[] arrivalMean = new double[0];
+	
+	// Station the jobs of a source enter at, indexed by source id
+	private int[] entryStation = new int[0];
+	
+	// Log the arrivals are replayed from instead of being sampled, null to sample them
+	private String arrivalLog = null;
+	
+	/**
+	 * Builds the network of the original lab: every job goes from a
+	 * Macintosh to the NeXTstation and then to the LaserJet, which
+	 * holds at most Constants.MAX_NUMBER_JOBS_PRINTER jobs
+	 * @return Network
+	 */
+	public static Network printerNetwork ()
+	{
+		Network network = new Network();
+		
+		Station mac = network.addStation(new Station("Mac", "Macintosh",
+				Distribution.exponential(Constants.JOB_EXECUTION_MACINTOSH)));
+		Station next = network.addStation(new Station("NeXT", "NeXTstation",
+				Distribution.exponential(Constants.JOB_EXECUTION_NEXTSTATION)));
+		Station laser = network.addStation(new Station("LaserJet", "LaserJet",
+				Distribution.exponential(Constants.JOB_EXECUTION_LASERJET)));
+		
+		mac.routeTo(next.id, 1.0);
+		next.routeTo(laser.id, 1.0);
+		laser.capacity = Constants.MAX_NUMBER_JOBS_PRINTER;
+		laser.timePerPage = Constants.PAGE_TIME;
+		
+		if ( !Constants.SOURCES.isEmpty() )
+		{
+			network.loadSources(Constants.SOURCES, mac.id);
+		}
+		else
+		{
+			for ( JobSource source : JobSource.values() )
+			{
+				network.addSource(source.name(), source.meanArrivalTime(), mac.id);
+			}
+		}
+		
+		if ( !Constants.ARRIVAL_LOG.isEmpty() )
+		{
+			network.setArrivalLog(Constants.ARRIVAL_LOG);
+		}
+		
+		return network;
+	}
+	
+	/**
+	 * Adds a station to the network
+	 * @param station Station to add, its id is set to its position
+	 * @return The station
+	 */
+	public Station addStation ( Station station )
+	{
+		station.id = stations.size();
+		stations.add(station);
+		return station;
+	}
+	
+	/**
+	 * Adds a source of jobs arriving from outside the network
+	 * @param name Name of the source
+	 * @param meanArrivalTime Mean time between two arrivals
+	 * @param entry Station the jobs enter the system at
+	 * @return Id of the source, its position
+	 */
+	public int addSource ( String name, double meanArrivalTime, int entry )
+	{
+		int id = sourceNames.size();
+		sourceNames.add(name);
+		sourceIds.putIfAbsent(name, id);
+		arrivalMean = Arrays.copyOf(arrivalMean, id + 1);
+		entryStation = Arrays.copyOf(entryStation, id + 1);
+		arrivalMean[id] = meanArrivalTime;
+		entryStation[id] = entry;
+		return id;
+	}
+	
+	/**
+	 * Adds the sources listed in a file, one name,meanInterval[,entryStation]
+	 * line per source. Blank lines and lines starting with # are skipped.
+	 * @param path File listing the sources
+	 * @param entry Station the jobs of a source without one enter at
+	 */
+	public void loadSources ( String path, int entry )
+	{
+		ArrayList<String> names = new ArrayList<String>();
+		ArrayList<double[]> values = new ArrayList<double[]>();
+		try
+		{
+			BufferedReader in = new BufferedReader(new FileReader(path));
+			try
+			{
+				String line;
+				int lineNumber = 0;
+				while ( (line = in.readLine()) != null )
+				{
+					lineNumber++;
+					line = line.trim();
+					if ( line.isEmpty() || line.startsWith("#") ) continue;
+					
+					String[] fields = line.split(",");
+					if ( fields.length < 2 )
+					{
+						throw new IllegalStateException("Source file " + path + " has no mean interval on line " + lineNumber);
+					}
+					names.add(fields[0].trim());
+					values.add(new double[] { Double.parseDouble(fields[1].trim()),
+							(fields.length > 2) ? station(fields[2].trim()).id : entry });
+				}
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not read source file " + path, e);
+		}
+		
+		// Grown once rather than by every source
+		arrivalMean = Arrays.copyOf(arrivalMean, arrivalMean.length + names.size());
+		entryStation = Arrays.copyOf(entryStation, entryStation.length + names.size());
+		for ( int i = 0; i < names.size(); i++ )
+		{
+			int id = sourceNames.size();
+			sourceNames.add(names.get(i));
+			sourceIds.putIfAbsent(names.get(i), id);
+			arrivalMean[id] = values.get(i)[0];
+			entryStation[id] = (int) values.get(i)[1];
+		}
+	}
+	
+	/**
+	 * Replays the arrivals of every source from a log instead of sampling them
+	 * @param path CSV or binary arrival log, see ArrivalLog, null to sample the arrivals
+	 */
+	public void setArrivalLog ( String path )
+	{
+		arrivalLog = path;
+	}
+	
+	/**
+	 * Gets the log the arrivals are replayed from
+	 * @return Path of the log, null if the arrivals are sampled
+	 */
+	public String getArrivalLog ()
+	{
+		return arrivalLog;
+	}
+	
+	/**
+	 * Finds a station by its short name
+	 * @param name Short name of the station
+	 * @return Station
+	 */
+	public Station station ( String name )
+	{
+		for ( Station station : stations )
+		{
+			if ( station.name.equals(name) ) return station;
+		}
+		throw new IllegalArgumentException("No station named " + name);
+	}
+	
+	/**
+	 * Changes a parameter of the network by name, used by parameter sweeps
+	 * arrival.<source> sets the mean time between arrivals of a job source,
+	 * service.<station> the mean service time, capacity.<station> the most
+	 * jobs a station holds, servers.<station> its number of servers and
+	 * pageTime.<station> the service time per page of logged jobs.
+	 * @param parameter Name of the parameter, for example service.LaserJet
+	 * @param value New value, rounded for capacities and servers
+	 */
+	public void setParameter ( String parameter, double value )
+	{
+		int dot = parameter.indexOf('.');
+		String kind = (dot >= 0) ? parameter.substring(0, dot) : parameter;
+		String target = (dot >= 0) ? parameter.substring(dot + 1) : "";
+		
+		if ( kind.equals("arrival") )
+		{
+			arrivalMean[source(target)] = value;
+		}
+		else if ( kind.equals("service") )
+		{
+			Station station = station(target);
+			station.service = station.service.withMean(value);
+		}
+		else if ( kind.equals("capacity") )
+		{
+			station(target).capacity = (int) Math.round(value);
+		}
+		else if ( kind.equals("servers") )
+		{
+			station(target).servers = Math.max(1, (int) Math.round(value));
+		}
+		else if ( kind.equals("pageTime") )
+		{
+			station(target).timePerPage = value;
+		}
+		else
+		{
+			throw new IllegalArgumentException("Unknown parameter " + parameter);
+		}
+	}
+	
+	/**
+	 * Finds a job source by its name
+	 * @param name Name of the source
+	 * @return Source id
+	 */
+	public int source ( String name )
+	{
+		Integer id = sourceIds.get(name);
+		if ( id == null ) throw new IllegalArgumentException("No job source named " + name);
+		return id;
+	}
+	
+	/**
+	 * Gets the name of a job source
+	 * @param source Source id
+	 * @return Name of the source
+	 */
+	public String sourceName ( int source )
+	{
+		return sourceNames.get(source);
+	}
+	
+	/**
+	 * Gets the number of job sources
+	 * @return Number of sources
+	 */
+	public int numberSources ()
+	{
+		return arrivalMean.length;
+	}
+	
+	/**
+	 * Gets the mean time between two arrivals from a source
+	 * @param source Source id
+	 * @return Mean interval time
+	 */
+	public double meanArrivalTime ( int source )
+	{
+		return arrivalMean[source];
+	}
+	
+	/**
+	 * Gets the station the jobs of a source enter the system at
+	 * @param source Source id
+	 * @return Station id
+	 */
+	public int entryStation ( int source )
+	{
+		return entryStation[source];
+	}
+	
+	/**
+	 * Gets a station
+	 * @param id Station id
+	 * @return Station
+	 */
+	public Station station ( int id )
+	{
+		return stations.get(id);
+	}
+	
+	/**
+	 * Gets the number of stations
+	 * @return Number of stations
+	 */
+	public int size ()
+	{
+		return stations.size();
+	}
+	
+	/**
+	 * ===============================
+	 * Random Streams Documentation
+	 * ===============================
+	 * Each replication gets one substream for the arrivals of every source,
+	 * then one for the service times of every station and last one for the
+	 * routing of every station which has more than one route. Stations with
+	 * a single route never draw a random number to pick it. The arrival
+	 * substreams can be made shorter than the others, see RandomStreams.
+	 */
+	
+	/**
+	 * Gets the number of substreams used by one replication
+	 * @return Number of substreams
+	 */
+	public int streamsPerReplication ()
+	{
+		int count = arrivalMean.length + stations.size();
+		for ( Station station : stations )
+		{
+			if ( station.hasRandomRoute() ) count++;
+		}
+		return count;
+	}
+	
+	/**
+	 * Gets the substream of the arrivals of a source
+	 * @param source Source id
+	 * @return Substream within the replication
+	 */
+	public int arrivalStreamIndex ( int source )
+	{
+		return source;
+	}
+	
+	/**
+	 * Gets the substream of the service times of a station
+	 * @param id Station id
+	 * @return Substream within the replication
+	 */
+	public int serviceStreamIndex ( int id )
+	{
+		return arrivalMean.length + id;
+	}
+	
+	/**
+	 * Gets the substream of the routing of a station
+	 * @param id Station id
+	 * @return Substream within the replication, -1 if the station never draws a route
+	 */
+	public int routingStreamIndex ( int id )
+	{
+		if ( !stations.get(id).hasRandomRoute() ) return -1;
+		
+		int index = arrivalMean.length + stations.size();
+		for ( int i = 0; i < id; i++ )
+		{
+			if ( stations.get(i).hasRandomRoute() ) index++;
+		}
+		return index;
+	}
+	
+	/**
+	 * ===============================
+	 * Metrics Documentation
+	 * ===============================
+	 * The metrics reported for a network are the utilization of every
+	 * station in order, then the average time a job spends in the system (W)
+	 * and the average number of jobs in the system (L).
+	 */
+	
+	/**
+	 * Gets the number of metrics reported
+	 * @return Number of metrics
+	 */
+	public int numberMetrics ()
+	{
+		return stations.size() + 2;
+	}
+	
+	/**
+	 * Gets the short name of a metric, used for the table and to pick
+	 * the metrics of the sequential stopping rule
+	 * @param metric Metric index
+	 * @return p<station>, W or L
+	 */
+	public String metricName ( int metric )
+	{
+		if ( metric < stations.size() ) return "p" + stations.get(metric).name;
+		return (metric == stations.size()) ? "W" : "L";
+	}
+	
+	/**
+	 * Finds a metric by its short name
+	 * @param name Short name of the metric
+	 * @return Metric index
+	 */
+	public int metricIndex ( String name )
+	{
+		for ( int i = 0; i < numberMetrics(); i++ )
+		{
+			if ( metricName(i).equals(name) ) return i;
+		}
+		throw new IllegalArgumentException("No metric named " + name);
+	}
+	
+	/**
+	 * Gets the full name of a metric, used for the summary
+	 * @param metric Metric index
+	 * @return Name
+	 */
+	public String metricDescription ( int metric )
+	{
+		if ( metric < stations.size() ) return "Average " + stations.get(metric).description + " Utilization";
+		return (metric == stations.size()) ? "Average Time (W)" : "Average Number Jobs (L)";
+	}
+}
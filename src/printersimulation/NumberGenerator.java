@@ -0,0 +1,417 @@
+package printersimulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Number Generator for the simulation.
+ * Each random source of a replication owns its own generator so that
+ * replications running on different threads never share a seed value.
+ * Generators are handed out by RandomStreams, which uses jumpAhead to place
+ * every stream on its own non overlapping part of the generator cycle.
+ * An antithetic generator hands out 1 - U for every number U of the stream,
+ * so a run on the antithetic streams is negatively correlated with the run
+ * on the plain streams.
+ * Exponential variates are drawn by inversion or by a ziggurat, and are
+ * drawn ahead in bulk into a buffer which exponentialRVG hands out one by
+ * one. Every stream of a replication is used for one kind of number only,
+ * so the variates are the same whatever the buffer size.
+ * A stream handed out by RandomStreams knows the seed value at which the
+ * next stream starts, and throws rather than hand out numbers of that stream.
+ * 
+ * @author Jamie Chung <jfchung@vt.edu>
+ * @author Dr. Osman Balci <balci@vt.edu>
+ * 
+ */
+public class NumberGenerator
+{
+	// Multiplier of the multiplicative congruential generator
+	public final static long MULTIPLIER = 16807;
+	
+	// Modulus of the generator, the prime 2^31 - 1
+	public final static long MODULUS = 2147483647;
+	
+	// Current Seed Value of this stream
+	public long lRandomNumberSeed;
+	
+	// Hand out 1 - U instead of U
+	private boolean bAntithetic;
+	
+	// Draw exponential variates with the ziggurat instead of by inversion
+	private boolean bZiggurat;
+	
+	// Unit exponential variates drawn ahead, null to draw them one at a time
+	private double[] adBuffer;
+	
+	// Next variate of the buffer handed out, the buffer length once used up
+	private int iPosition;
+	
+	// Seed value the buffer was drawn from, so a checkpoint can draw it again
+	private long lBufferSeed;
+	
+	// Seed value the next stream starts from, 0 for a stream without an end
+	private long lEndSeed;
+	
+	// Number of layers of the ziggurat
+	private final static int LAYERS = 256;
+	
+	// Right edge of the base layer, where the tail starts
+	private final static double TAIL = 7.697117470131487;
+	
+	// Ziggurat tables: seed values below which a layer accepts at once,
+	// widths of the layers per seed value and the density at their tops
+	private final static long[] KE = new long[LAYERS];
+	private final static double[] WE = new double[LAYERS];
+	private final static double[] FE = new double[LAYERS];
+	
+	static
+	{
+		/**
+		 * ===============================
+		 * Ziggurat Tables Documentation
+		 * ===============================
+		 * The tables of Marsaglia and Tsang (2000) for 256 layers of equal
+		 * area under the exponential density. The seeds of the generator are
+		 * 31 bit values, so the layers are scaled by 2^31 rather than 2^32.
+		 */
+		double dScale = 2147483648.0;
+		double dArea = 3.949659822581572e-3;
+		double dEdge = TAIL;
+		double dPrevious = TAIL;
+		double dQ = dArea / Math.exp(-dEdge);
+		
+		KE[0] = (long) ((dEdge / dQ) * dScale);
+		KE[1] = 0;
+		WE[0] = dQ / dScale;
+		WE[LAYERS - 1] = dEdge / dScale;
+		FE[0] = 1.0;
+		FE[LAYERS - 1] = Math.exp(-dEdge);
+		
+		for (int i = LAYERS - 2; i >= 1; i--)
+		{
+			dEdge = -Math.log(dArea / dEdge + Math.exp(-dEdge));
+			KE[i + 1] = (long) ((dEdge / dPrevious) * dScale);
+			dPrevious = dEdge;
+			FE[i] = Math.exp(-dEdge);
+			WE[i] = dEdge / dScale;
+		}
+	}
+	
+	/**
+	 * Sets up a new random number stream
+	 * 
+	 * @param plSeed Initial seed value
+	 */
+	public NumberGenerator(long plSeed)
+	{
+		this(plSeed, false);
+	}
+	
+	/**
+	 * Sets up a new random number stream using the variates configured in Constants
+	 * 
+	 * @param plSeed Initial seed value
+	 * @param pbAntithetic Hand out 1 - U instead of every number U
+	 */
+	public NumberGenerator(long plSeed, boolean pbAntithetic)
+	{
+		this(plSeed, pbAntithetic, VariateMethod.valueOf(Constants.VARIATES), Constants.VARIATE_BUFFER);
+	}
+	
+	/**
+	 * Sets up a new random number stream
+	 * 
+	 * @param plSeed Initial seed value
+	 * @param pbAntithetic Hand out 1 - U instead of every number U
+	 * @param pMethod Method of drawing exponential variates
+	 * @param piBuffer Exponential variates drawn ahead in bulk, 0 to draw them one at a time
+	 */
+	public NumberGenerator(long plSeed, boolean pbAntithetic, VariateMethod pMethod, int piBuffer)
+	{
+		lRandomNumberSeed = plSeed;
+		bAntithetic = pbAntithetic;
+		bZiggurat = (pMethod == VariateMethod.ZIGGURAT);
+		
+		if (piBuffer > 0)
+		{
+			adBuffer = new double[piBuffer];
+			iPosition = piBuffer;
+		}
+	}
+	
+	/**
+	 * Generates a random number based on the current number seed
+	 * 
+	 * @return Random number, 1 - U for an antithetic stream
+	 */
+	double randomNumberGenerator() {
+		if (lRandomNumberSeed == lEndSeed)
+		{
+			overrun();
+		}
+		double dU = randomNumberGenerator(lRandomNumberSeed);
+		return bAntithetic ? 1.0 - dU : dU;
+	}
+
+	/**
+	 * Generates a random number based on specified seed value
+	 * 
+	 * @param plSeed Seed value to generate random number from
+	 * @return Random number
+	 */
+	
+	double randomNumberGenerator(long plSeed)
+	{
+		/**
+		 * ===============================
+		 * Random Number Generator Documentation
+		 * ===============================
+		 * The random number generator was provided as a part of the 
+		 * analytic solution in order to replicate similar values.
+		 * The use of a seed value is important because it ensures
+		 * that simulations that are once run are able to be replicated.
+		 * It is important to understand that the seed value changes
+		 * every time this function is ran in order to appear random,
+		 * but still be sequential in the numbers generated in replication.
+		 */
+		
+		
+		double dZ;
+		double dQuot;
+		long lQuot;
+
+		dZ = (plSeed) * 16807;
+		dQuot = dZ / 2147483647;
+		lQuot = (long) Math.floor(dQuot);
+		dZ -= lQuot * 2147483647;
+
+		// We need to update the seed value
+		lRandomNumberSeed = (long) Math.floor(dZ);
+
+		return (dZ / 2147483647);
+	}
+
+	/**
+	 * Generates an Exponential Random Variate
+	 * 
+	 * @param dMean Mean value of the random variate
+	 * @return Random number based on the exponential RV
+	 */
+	
+	double exponentialRVG(double dMean)
+	{
+
+		/**
+		 * ===============================
+		 * Exponential Random Variate Generator Documentation
+		 * ===============================
+		 * The exponential distribution was the chosen distribution family
+		 * for this simulation to determine the sequence of time events.
+		 * By providing the mean of the event to occur, we are able to 
+		 * isolate and compute a genuinely random variate that will
+		 * fit normal without any deviant outliers.
+		 */
+		if (adBuffer == null)
+		{
+			return bZiggurat ? dMean * zigguratRVG() : (-dMean * Math.log(randomNumberGenerator()));
+		}
+		
+		if (iPosition == adBuffer.length)
+		{
+			lBufferSeed = lRandomNumberSeed;
+			fillExponential(adBuffer, 0, adBuffer.length);
+			iPosition = 0;
+		}
+		return dMean * adBuffer[iPosition++];
+	}
+	
+	/**
+	 * Fills part of an array with unit mean exponential variates, the
+	 * numbers the stream would hand out one at a time
+	 * 
+	 * @param padBuffer Array to fill
+	 * @param piFrom First index filled
+	 * @param piTo Index after the last one filled
+	 */
+	public void fillExponential(double[] padBuffer, int piFrom, int piTo)
+	{
+		if (bZiggurat)
+		{
+			for (int i = piFrom; i < piTo; i++)
+			{
+				padBuffer[i] = zigguratRVG();
+			}
+			return;
+		}
+		
+		// The seed stays in a local so the loop does not store it every step
+		long lSeed = lRandomNumberSeed;
+		for (int i = piFrom; i < piTo; i++)
+		{
+			if (lSeed == lEndSeed)
+			{
+				lRandomNumberSeed = lSeed;
+				overrun();
+			}
+			lSeed = step(lSeed);
+			double dU = (double) lSeed / MODULUS;
+			padBuffer[i] = -Math.log(bAntithetic ? 1.0 - dU : dU);
+		}
+		lRandomNumberSeed = lSeed;
+	}
+	
+	/**
+	 * Generates a unit mean exponential random variate with the ziggurat
+	 * 
+	 * @return Random variate
+	 */
+	private double zigguratRVG()
+	{
+		long lJ = nextSeed();
+		int iLayer = (int) (lJ & (LAYERS - 1));
+		
+		// Almost every variate falls within the rectangle of its layer
+		if (lJ < KE[iLayer])
+		{
+			return lJ * WE[iLayer];
+		}
+		
+		while (true)
+		{
+			if (iLayer == 0)
+			{
+				return TAIL - Math.log(randomNumberGenerator());
+			}
+			
+			double dX = lJ * WE[iLayer];
+			if (FE[iLayer] + randomNumberGenerator() * (FE[iLayer - 1] - FE[iLayer]) < Math.exp(-dX))
+			{
+				return dX;
+			}
+			
+			lJ = nextSeed();
+			iLayer = (int) (lJ & (LAYERS - 1));
+			if (lJ < KE[iLayer])
+			{
+				return lJ * WE[iLayer];
+			}
+		}
+	}
+	
+	/**
+	 * Steps the generator and gets the new seed value as a 31 bit number,
+	 * MODULUS minus the seed for an antithetic stream
+	 * 
+	 * @return Seed value between 1 and 2^31 - 2
+	 */
+	private long nextSeed()
+	{
+		if (lRandomNumberSeed == lEndSeed)
+		{
+			overrun();
+		}
+		lRandomNumberSeed = step(lRandomNumberSeed);
+		return bAntithetic ? MODULUS - lRandomNumberSeed : lRandomNumberSeed;
+	}
+	
+	/**
+	 * Ends the stream at the seed value the next stream starts from, so it
+	 * throws rather than hand out the numbers of that stream. Variates drawn
+	 * ahead into the buffer count as handed out.
+	 * 
+	 * @param plEndSeed Seed value the next stream starts from
+	 */
+	public void setEnd(long plEndSeed)
+	{
+		lEndSeed = plEndSeed;
+	}
+	
+	/**
+	 * Fails a stream which would go on into the next stream
+	 */
+	private void overrun()
+	{
+		throw new IllegalStateException("A random number stream ran into the next stream, " +
+				"raise -Dsimulation.streamSpacing or -Dsimulation.sourceSpacing");
+	}
+	
+	/**
+	 * Steps a seed value without a division, since MODULUS is the Mersenne
+	 * prime 2^31 - 1 and so 2^31 is 1 modulo MODULUS
+	 * 
+	 * @param plSeed Seed value between 1 and 2^31 - 2
+	 * @return Next seed value, the same as the one randomNumberGenerator reaches
+	 */
+	private static long step(long plSeed)
+	{
+		long lProduct = plSeed * MULTIPLIER;
+		long lSeed = (lProduct & MODULUS) + (lProduct >>> 31);
+		return (lSeed >= MODULUS) ? lSeed - MODULUS : lSeed;
+	}
+	
+	/**
+	 * Writes the seed value and the variates left in the buffer to a checkpoint
+	 * 
+	 * @param pOut Checkpoint being written
+	 * @throws IOException
+	 */
+	public void writeState(DataOutput pOut) throws IOException
+	{
+		pOut.writeLong(lRandomNumberSeed);
+		pOut.writeLong(lBufferSeed);
+		pOut.writeInt(iPosition);
+	}
+	
+	/**
+	 * Puts the stream back in the state written to a checkpoint, drawing
+	 * the buffer again from the seed value it was drawn from
+	 * 
+	 * @param pIn Checkpoint being read
+	 * @throws IOException
+	 */
+	public void readState(DataInput pIn) throws IOException
+	{
+		long lSeed = pIn.readLong();
+		lBufferSeed = pIn.readLong();
+		int iSaved = pIn.readInt();
+		
+		if (adBuffer != null && iSaved < adBuffer.length)
+		{
+			lRandomNumberSeed = lBufferSeed;
+			fillExponential(adBuffer, 0, adBuffer.length);
+		}
+		lRandomNumberSeed = lSeed;
+		iPosition = (adBuffer != null) ? iSaved : 0;
+	}
+	
+	/**
+	 * Computes the seed value the generator reaches after a number of steps
+	 * without generating the numbers in between. Since every step multiplies
+	 * the seed by 16807 modulo 2^31 - 1, n steps multiply it by 16807^n which
+	 * is found by repeated squaring in O(log n).
+	 * 
+	 * @param plSeed Seed value between 1 and 2^31 - 2
+	 * @param plSteps Number of steps to jump ahead
+	 * @return Seed value n steps ahead
+	 */
+	static long jumpAhead(long plSeed, long plSteps)
+	{
+		// Both factors stay below 2^31 so their product fits within a long
+		long lResult = plSeed % MODULUS;
+		long lFactor = MULTIPLIER;
+		long lSteps = plSteps % (MODULUS - 1);
+		
+		while (lSteps > 0)
+		{
+			if ((lSteps & 1) == 1)
+			{
+				lResult = (lResult * lFactor) % MODULUS;
+			}
+			lFactor = (lFactor * lFactor) % MODULUS;
+			lSteps >>= 1;
+		}
+		
+		return lResult;
+	}
+}
@@ -0,0 +1,189 @@
+package printersimulation;
+
+import java.util.Arrays;
+
+/**
+ * Future event list backed by a pairing heap.
+ * Insert is O(1) and poll is O(log n) amortized using the standard
+ * two pass pairing of the children of the removed root.
+ * The links of the heap are kept in arrays indexed by job handle,
+ * every node keeps its first child and its next sibling.
+ */
+public class PairingHeapEventList implements FutureEventList
+{
+	// Store holding the arrival times and insertion order of the jobs
+	private JobStore store;
+	
+	// First child of every job in the heap
+	private int[] child;
+	
+	// Next sibling of every job in the heap
+	private int[] sibling;
+	
+	// Root of the heap holding the earliest job
+	private int root = JobStore.NONE;
+	
+	// Number of jobs in the heap
+	private int size = 0;
+	
+	// Next insertion order value handed to an inserted job
+	private long nextSequence = 0;
+	
+	// Scratch space used while pairing the children of the root
+	private int[] pairs = new int[16];
+	
+	/**
+	 * Sets up an empty heap
+	 * @param store Store holding the jobs
+	 */
+	public PairingHeapEventList ( JobStore store )
+	{
+		this.store = store;
+		child = new int[store.capacity()];
+		sibling = new int[store.capacity()];
+	}
+	
+	/**
+	 * Inserts a job event into the heap
+	 * @param j Handle of the job
+	 */
+	public void insert ( int j )
+	{
+		if ( j >= child.length )
+		{
+			child = Arrays.copyOf(child, store.capacity());
+			sibling = Arrays.copyOf(sibling, store.capacity());
+		}
+		
+		store.sequence[j] = nextSequence++;
+		child[j] = JobStore.NONE;
+		sibling[j] = JobStore.NONE;
+		root = meld(root, j);
+		size++;
+	}
+	
+	/**
+	 * Gets the earliest job event without removing it
+	 * @return Handle of the earliest job, JobStore.NONE if the heap is empty
+	 */
+	public int peek ()
+	{
+		return root;
+	}
+	
+	/**
+	 * Removes the earliest job event from the heap
+	 * @return Handle of the earliest job, JobStore.NONE if the heap is empty
+	 */
+	public int poll ()
+	{
+		if ( root == JobStore.NONE ) return JobStore.NONE;
+		
+		int first = root;
+		root = combineSiblings(child[first]);
+		size--;
+		
+		return first;
+	}
+	
+	/**
+	 * Returns the number of job events in the heap
+	 * @return Number of jobs in the heap
+	 */
+	public int size ()
+	{
+		return size;
+	}
+	
+	/**
+	 * Copies the handles of the job events in the heap
+	 * @return Handles of the jobs, walking the heap from the root
+	 */
+	public int[] toArray ()
+	{
+		int[] jobs = new int[size];
+		int count = 0;
+		if ( root != JobStore.NONE ) jobs[count++] = root;
+		
+		// Every job found brings in its first child and its next sibling
+		for ( int i = 0; i < count; i++ )
+		{
+			int j = jobs[i];
+			if ( child[j] != JobStore.NONE ) jobs[count++] = child[j];
+			if ( sibling[j] != JobStore.NONE ) jobs[count++] = sibling[j];
+		}
+		
+		return jobs;
+	}
+	
+	/**
+	 * Removes all the job events from the heap
+	 */
+	public void clear ()
+	{
+		root = JobStore.NONE;
+		size = 0;
+	}
+	
+	/**
+	 * Links two heaps, the root with the later job becomes
+	 * the first child of the other root
+	 * @param a Root of the first heap
+	 * @param b Root of the second heap
+	 * @return Root of the linked heap
+	 */
+	private int meld ( int a, int b )
+	{
+		if ( a == JobStore.NONE ) return b;
+		if ( b == JobStore.NONE ) return a;
+		
+		if ( store.before(b, a) )
+		{
+			int t = a;
+			a = b;
+			b = t;
+		}
+		
+		sibling[b] = child[a];
+		child[a] = b;
+		return a;
+	}
+	
+	/**
+	 * Two pass pairing of a sibling list. The first pass links the
+	 * siblings in pairs from left to right, the second pass links the
+	 * pairs from right to left into a single heap.
+	 * @param first First node of the sibling list
+	 * @return Root of the combined heap
+	 */
+	private int combineSiblings ( int first )
+	{
+		if ( first == JobStore.NONE ) return JobStore.NONE;
+		
+		// First pass
+		int count = 0;
+		while ( first != JobStore.NONE )
+		{
+			int a = first;
+			int b = sibling[a];
+			first = (b == JobStore.NONE) ? JobStore.NONE : sibling[b];
+			sibling[a] = JobStore.NONE;
+			if ( b != JobStore.NONE ) sibling[b] = JobStore.NONE;
+			
+			if ( count == pairs.length )
+			{
+				pairs = Arrays.copyOf(pairs, pairs.length * 2);
+			}
+			pairs[count++] = meld(a, b);
+		}
+		
+		// Second pass
+		int result = pairs[--count];
+		while ( count > 0 )
+		{
+			result = meld(pairs[--count], result);
+		}
+		
+		return result;
+	}
+}
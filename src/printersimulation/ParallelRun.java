@@ -0,0 +1,254 @@
+package printersimulation;
+
+/**
+ * Runs a single replication of a large network on several threads. The
+ * stations are split into partitions which process their own events side
+ * by side, while the calling thread merges what they measured into the
+ * report of the run in time order, so the report is the same one the
+ * sequential event loop would have given for the same streams.
+ */
+public class ParallelRun
+{
+	/**
+	 * ===============================
+	 * Parallel Run Documentation
+	 * ===============================
+	 * The stations are split into blocks of consecutive ids, one for every
+	 * partition, and each source goes with the partition of its entry station.
+	 * Every station keeps its own random number streams, so which thread
+	 * draws them does not change the numbers drawn. Jobs routed to a station
+	 * of another partition go through a lock free single producer single
+	 * consumer JobChannel, and the partitions are kept in step by the
+	 * promises the channels carry, see Partition. What happened during
+	 * every step of an event goes into the RecordRing of the partition, and
+	 * this thread applies the records to the report in time order. A record
+	 * is applied once every partition whose ring is empty is known to write
+	 * nothing earlier, so the area under the number of jobs, the queue lengths
+	 * and the jobs counted as exited follow the same sequence of updates as
+	 * in the sequential loop. The partitions run ahead of the report as far
+	 * as their rings let them, also while the simulator resets the report
+	 * after the warmup, and are stopped once the run is finished.
+	 */
+	
+	// Records every partition can run ahead of the report
+	public final static int RING_CAPACITY = 1 << 14;
+	
+	// Jobs a channel holds before the jobs are held back by their sender
+	public final static int CHANNEL_CAPACITY = 1 << 12;
+	
+	// Looks for a record spun on before giving the processor away
+	private final static int SPINS = 64;
+	
+	// Partitions and the threads running them
+	private Partition[] partitions;
+	private Thread[] threads;
+	
+	// Records of every partition
+	private RecordRing[] rings;
+	
+	/**
+	 * Splits the stations of a replication into partitions and starts them
+	 * @param context Replication state, just reset
+	 * @param numberPartitions Number of partitions, at most one per station
+	 */
+	public ParallelRun ( SimulationContext context, int numberPartitions )
+	{
+		int stations = context.network.size();
+		int n = Math.max(1, Math.min(numberPartitions, stations));
+		
+		int[] owner = new int[stations];
+		for ( int s = 0; s < stations; s++ )
+		{
+			owner[s] = (int) ((long) s * n / stations);
+		}
+		
+		// Channel from partition a to partition b
+		JobChannel[][] channels = new JobChannel[n][n];
+		for ( int a = 0; a < n; a++ )
+		{
+			for ( int b = 0; b < n; b++ )
+			{
+				if ( a != b ) channels[a][b] = new JobChannel(CHANNEL_CAPACITY);
+			}
+		}
+		
+		partitions = new Partition[n];
+		threads = new Thread[n];
+		rings = new RecordRing[n];
+		for ( int p = 0; p < n; p++ )
+		{
+			JobChannel[] inputs = new JobChannel[n];
+			for ( int a = 0; a < n; a++ )
+			{
+				inputs[a] = channels[a][p];
+			}
+			
+			rings[p] = new RecordRing(RING_CAPACITY);
+			partitions[p] = new Partition(p, context, owner, inputs, channels[p], rings[p]);
+			threads[p] = new Thread(partitions[p], "partition-" + p);
+			threads[p].setDaemon(true);
+		}
+		
+		for ( int p = 0; p < n; p++ )
+		{
+			threads[p].start();
+		}
+	}
+	
+	/**
+	 * Gets the number of partitions
+	 * @return Number of partitions
+	 */
+	public int size ()
+	{
+		return partitions.length;
+	}
+	
+	/**
+	 * Merges the records of the partitions into the report until a set
+	 * number of jobs have exited the system, carrying on from wherever
+	 * the run currently is
+	 * @param report SimulationReport holding all the metrics gathered during simulation
+	 * @param completed Number of jobs that have already exited the system, 0 for a new run
+	 * @param numberJobs Number of jobs to exit the system
+	 * @param series Series to snapshot the measurements into, null if not needed
+	 */
+	public void run ( SimulationReport report, int completed, int numberJobs, MeasurementSeries series )
+	{
+		int numberCompletedJobs = completed;
+		int spins = 0;
+		
+		while ( numberCompletedJobs < numberJobs )
+		{
+			// Earliest record of any partition, departures before arrivals at
+			// the same time, and the earliest time an empty ring can still
+			// get a record at. The bound is read first, anything written
+			// after it is no earlier
+			int first = -1;
+			int slot = -1;
+			double limit = Double.POSITIVE_INFINITY;
+			for ( int p = 0; p < rings.length; p++ )
+			{
+				RecordRing ring = rings[p];
+				double bound = ring.getBound();
+				int k = ring.peek();
+				if ( k < 0 )
+				{
+					limit = Math.min(limit, bound);
+				}
+				else if ( first < 0 || ring.time[k] < rings[first].time[slot]
+						|| (ring.time[k] == rings[first].time[slot] && (ring.code[k] & 1) < (rings[first].code[slot] & 1)) )
+				{
+					first = p;
+					slot = k;
+				}
+			}
+			
+			if ( first < 0 && limit == Double.POSITIVE_INFINITY )
+			{
+				// No partition has anything left to do
+				break;
+			}
+			
+			if ( first < 0 || !(rings[first].time[slot] < limit) )
+			{
+				checkFailures();
+				if ( ++spins < SPINS )
+				{
+					Thread.onSpinWait();
+				}
+				else
+				{
+					Thread.yield();
+				}
+				continue;
+			}
+			spins = 0;
+			
+			RecordRing ring = rings[first];
+			int code = ring.code[slot];
+			int station = ring.station[slot];
+			report.clock = ring.time[slot];
+			
+			// What the station measured during the step
+			if ( (code & RecordRing.WAITED) != 0 ) report.recordWait(station, ring.wait[slot]);
+			if ( (code & RecordRing.QUEUED) != 0 ) report.updateQueueLength(station, ring.length[slot]);
+			if ( (code & RecordRing.SERVED) != 0 ) report.addService(station, ring.service[slot]);
+			
+			if ( (code & 1) == RecordRing.DEPART )
+			{
+				report.numberEvents++;
+				
+				if ( (code & RecordRing.EXIT) != 0 )
+				{
+					numberCompletedJobs++;
+					report.updateAverageNumberJobs(report.prevJobTotal - 1);
+					
+					double system = ring.system[slot];
+					report.completedJobs++;
+					report.jobHistory += system;
+					if ( report.systemTimes != null ) report.systemTimes.record(system);
+					if ( series != null ) series.record(report, numberCompletedJobs);
+				}
+			}
+			else
+			{
+				boolean external = (code & RecordRing.EXTERNAL) != 0;
+				if ( external ) report.numberEvents++;
+				
+				if ( (code & RecordRing.ACCEPTED) != 0 )
+				{
+					if ( external ) report.updateAverageNumberJobs(report.prevJobTotal + 1);
+				}
+				else
+				{
+					// Turned away, at the door or after a move
+					numberCompletedJobs++;
+					if ( !external ) report.updateAverageNumberJobs(report.prevJobTotal - 1);
+					if ( series != null ) series.record(report, numberCompletedJobs);
+				}
+			}
+			
+			ring.consume();
+		}
+	}
+	
+	/**
+	 * Stops the partitions and waits for their threads to end
+	 */
+	public void close ()
+	{
+		for ( int p = 0; p < partitions.length; p++ )
+		{
+			partitions[p].stop();
+		}
+		
+		for ( int p = 0; p < threads.length; p++ )
+		{
+			try
+			{
+				threads[p].join();
+			}
+			catch ( InterruptedException e )
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * Passes on the error of any partition which has stopped on one
+	 */
+	private void checkFailures ()
+	{
+		for ( int p = 0; p < partitions.length; p++ )
+		{
+			Throwable failure = partitions[p].getFailure();
+			if ( failure != null )
+			{
+				close();
+				throw new RuntimeException("Partition " + p + " of the parallel run failed", failure);
+			}
+		}
+	}
+}
@@ -0,0 +1,517 @@
+package printersimulation;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs the replications of many variations of the printer network within
+ * one JVM, one point of parameter values at a time, and writes the mean and
+ * half width of every metric of every point as a row of a CSV file.
+ * The points either form a full grid over the levels of every parameter or
+ * a Latin hypercube sample, which covers every parameter evenly with far
+ * fewer points than a grid once there are more than a couple of parameters.
+ * The analytic solution of every point is written next to the simulated
+ * metrics and screens out the points not worth simulating.
+ */
+public class ParameterSweep
+{
+	// Parameters varied by the sweep
+	private SweepParameter[] parameters;
+	
+	// Values of the parameters at every point
+	private double[][] points;
+	
+	// Number of replications run at every point
+	private int replications;
+	
+	// Network and analytic solution of every point, built the first time
+	// the point needs them and let go once its row is written
+	private Network[] networks;
+	private AnalyticSolution[] solutions;
+	
+	// Store every replication of every point is appended to, null if there is none
+	private ResultsStore results = null;
+	
+	/**
+	 * Sets up a sweep over a full grid of the levels of every parameter,
+	 * the last parameter changing fastest
+	 * @param parameters Parameters varied by the sweep
+	 * @param replications Number of replications run at every point
+	 */
+	public ParameterSweep ( SweepParameter[] parameters, int replications )
+	{
+		this.parameters = parameters;
+		this.replications = replications;
+		
+		int size = 1;
+		for ( SweepParameter parameter : parameters )
+		{
+			size *= parameter.levels;
+		}
+		
+		points = new double[size][parameters.length];
+		networks = new Network[size];
+		solutions = new AnalyticSolution[size];
+		for ( int p = 0; p < size; p++ )
+		{
+			int rest = p;
+			for ( int i = parameters.length - 1; i >= 0; i-- )
+			{
+				points[p][i] = parameters[i].level(rest % parameters[i].levels);
+				rest /= parameters[i].levels;
+			}
+		}
+	}
+	
+	/**
+	 * Sets up a sweep over a Latin hypercube sample. The range of every
+	 * parameter is cut into as many strata as there are points and every
+	 * stratum is used by exactly one point, at a random place within it.
+	 * @param parameters Parameters varied by the sweep
+	 * @param samples Number of points
+	 * @param replications Number of replications run at every point
+	 * @param generator Random number stream the sample is drawn from
+	 */
+	public ParameterSweep ( SweepParameter[] parameters, int samples, int replications, NumberGenerator generator )
+	{
+		this.parameters = parameters;
+		this.replications = replications;
+		
+		points = new double[samples][parameters.length];
+		networks = new Network[samples];
+		solutions = new AnalyticSolution[samples];
+		int[] strata = new int[samples];
+		for ( int i = 0; i < parameters.length; i++ )
+		{
+			// Shuffle the strata of this parameter over the points
+			for ( int p = 0; p < samples; p++ )
+			{
+				strata[p] = p;
+			}
+			for ( int p = samples - 1; p > 0; p-- )
+			{
+				int k = (int) (generator.randomNumberGenerator() * (p + 1));
+				int swap = strata[p];
+				strata[p] = strata[k];
+				strata[k] = swap;
+			}
+			
+			for ( int p = 0; p < samples; p++ )
+			{
+				points[p][i] = parameters[i].at((strata[p] + generator.randomNumberGenerator()) / samples);
+			}
+		}
+	}
+	
+	/**
+	 * Sets up the sweep configured in Constants
+	 * @return ParameterSweep
+	 */
+	public static ParameterSweep fromConstants ()
+	{
+		String[] specs = Constants.SWEEP.split(",");
+		SweepParameter[] parameters = new SweepParameter[specs.length];
+		for ( int i = 0; i < specs.length; i++ )
+		{
+			parameters[i] = SweepParameter.parse(specs[i]);
+		}
+		
+		if ( Constants.SWEEP_SAMPLES > 0 )
+		{
+			NumberGenerator generator = new NumberGenerator(new RandomStreams(Constants.MASTER_SEED, 1).getMasterSeed());
+			return new ParameterSweep(parameters, Constants.SWEEP_SAMPLES, Constants.SWEEP_REPLICATIONS, generator);
+		}
+		
+		return new ParameterSweep(parameters, Constants.SWEEP_REPLICATIONS);
+	}
+	
+	/**
+	 * Gets the number of points of the sweep
+	 * @return Number of points
+	 */
+	public int size ()
+	{
+		return points.length;
+	}
+	
+	/**
+	 * Gets the network of a point, building it the first time
+	 * @param point Point starting at 0
+	 * @return Printer network with the parameter values of the point
+	 */
+	public synchronized Network network ( int point )
+	{
+		if ( networks[point] == null )
+		{
+			Network network = Network.printerNetwork();
+			for ( int i = 0; i < parameters.length; i++ )
+			{
+				network.setParameter(parameters[i].name, points[point][i]);
+			}
+			networks[point] = network;
+		}
+		return networks[point];
+	}
+	
+	/**
+	 * Gets the analytic solution of a point, solving it the first time
+	 * @param point Point starting at 0
+	 * @return AnalyticSolution of the network of the point
+	 */
+	private synchronized AnalyticSolution solution ( int point )
+	{
+		if ( solutions[point] == null )
+		{
+			solutions[point] = AnalyticSolver.solve(network(point));
+		}
+		return solutions[point];
+	}
+	
+	/**
+	 * Sets up the simulator of a point, which checks that the streams of
+	 * the replications of the sweep fit within the generator cycle
+	 * @param point Point starting at 0
+	 * @return Simulator of the network of the point
+	 */
+	public Simulator simulator ( int point )
+	{
+		return new Simulator(network(point), replications);
+	}
+	
+	/**
+	 * Runs the sweep configured in Constants and writes it to Constants.SWEEP_OUTPUT
+	 */
+	public void run ()
+	{
+		// Every point has the streams of the first, checked before any of them runs
+		simulator(0);
+		
+		// The replications go to worker processes when there are any
+		ForkJoinPool pool = null;
+		Coordinator coordinator = null;
+		if ( Constants.WORKERS > 0 || Constants.COORDINATOR_PORT > 0 )
+		{
+			coordinator = Coordinator.fromConstants(new RandomStreams(Constants.MASTER_SEED, 1).getMasterSeed());
+		}
+		else
+		{
+			pool = Constants.REPLICATION_THREADS > 0
+					? new ForkJoinPool(Constants.REPLICATION_THREADS) : new ForkJoinPool();
+		}
+		
+		if ( !Constants.RESULTS.isEmpty() )
+		{
+			String[] names = new String[parameters.length];
+			for ( int i = 0; i < parameters.length; i++ )
+			{
+				names[i] = parameters[i].name;
+			}
+			results = new ResultsStore(Constants.RESULTS, network(0), names);
+		}
+		
+		long start = System.nanoTime();
+		try
+		{
+			PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(Constants.SWEEP_OUTPUT)));
+			try
+			{
+				if ( coordinator != null )
+				{
+					run(coordinator, out);
+				}
+				else
+				{
+					run(pool, out);
+				}
+			}
+			finally
+			{
+				out.close();
+			}
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not write the sweep to " + Constants.SWEEP_OUTPUT, e);
+		}
+		finally
+		{
+			if ( pool != null ) pool.shutdown();
+			if ( coordinator != null ) coordinator.close();
+			if ( results != null ) results.close();
+		}
+		
+		System.out.println("Sweep: " + size() + " points " +
+				(Constants.SWEEP_ANALYTIC_ONLY ? "solved analytically" : "of " + replications + " replications") + " written to " +
+				Constants.SWEEP_OUTPUT + " in " + ((System.nanoTime() - start) / 1000000) + " ms");
+	}
+	
+	/**
+	 * Runs every point of the sweep and writes a CSV row for each, in order
+	 * @param pool Pool the replications of the points are run on
+	 * @param out Where the CSV is written
+	 */
+	public void run ( ForkJoinPool pool, PrintWriter out )
+	{
+		/**
+		 * ===============================
+		 * Sweep Documentation
+		 * ===============================
+		 * Every point is a task of the pool which forks one task per
+		 * replication, so the pool stays busy whether the sweep has a few
+		 * points with many replications or thousands of points with a few.
+		 * Only a few points per thread are in flight at any time and their
+		 * rows are written in point order as soon as they are done. Every
+		 * point reuses the same master seed, so the points share their random
+		 * numbers and differences between them come from the parameters.
+		 * Points whose analytic solution is not stable, or busier than
+		 * Constants.SWEEP_MAX_UTILIZATION, are written without simulating them.
+		 */
+		
+		printHeader(out);
+		
+		int window = 2 * pool.getParallelism();
+		ArrayDeque<ForkJoinTask<SimulationReport[]>> tasks = new ArrayDeque<ForkJoinTask<SimulationReport[]>>();
+		int submitted = 0;
+		
+		for ( int p = 0; p < points.length; p++ )
+		{
+			while ( submitted < points.length && tasks.size() < window )
+			{
+				tasks.add(pool.submit(new Point(submitted++)));
+			}
+			
+			printRow(out, p, fold(p, tasks.poll().join()));
+		}
+		
+		out.flush();
+	}
+	
+	/**
+	 * Runs every point of the sweep on worker processes and writes a CSV row for each, in order
+	 * @param coordinator Coordinator handing the replications out to the workers
+	 * @param out Where the CSV is written
+	 */
+	public void run ( Coordinator coordinator, PrintWriter out )
+	{
+		printHeader(out);
+		
+		// Every replication of a point is a task of its own, and points are
+		// queued until the workers have a couple of tasks per slot to go on
+		int window = 2 * coordinator.slots();
+		ArrayDeque<ArrayList<CompletableFuture<SimulationReport>>> pending = new ArrayDeque<ArrayList<CompletableFuture<SimulationReport>>>();
+		int inFlight = 0;
+		int submitted = 0;
+		
+		for ( int p = 0; p < points.length; p++ )
+		{
+			while ( submitted < points.length && (inFlight < window || pending.isEmpty()) )
+			{
+				ArrayList<CompletableFuture<SimulationReport>> reports = new ArrayList<CompletableFuture<SimulationReport>>();
+				if ( !screened(submitted) )
+				{
+					for ( int r = 0; r < replications; r++ )
+					{
+						reports.add(coordinator.submit(submitted, r));
+					}
+				}
+				inFlight += reports.size();
+				pending.add(reports);
+				submitted++;
+			}
+			
+			ArrayList<CompletableFuture<SimulationReport>> reports = pending.poll();
+			SimulationReport[] done = new SimulationReport[reports.size()];
+			for ( int r = 0; r < done.length; r++ )
+			{
+				done[r] = coordinator.join(reports.get(r));
+			}
+			inFlight -= reports.size();
+			
+			printRow(out, p, fold(p, done));
+		}
+		
+		out.flush();
+	}
+	
+	/**
+	 * Folds the reports of a point in replication order, appending them to the results store
+	 * @param p Point starting at 0
+	 * @param reports Reports of the replications of the point, empty if it was screened
+	 * @return Statistics over the replications
+	 */
+	private ReportStatistics fold ( int p, SimulationReport[] reports )
+	{
+		// Every point runs on the master seed the simulator derives from Constants
+		long seed = new RandomStreams(Constants.MASTER_SEED, 1).getMasterSeed();
+		ReportStatistics statistics = new ReportStatistics(network(p).numberMetrics());
+		for ( int r = 0; r < reports.length; r++ )
+		{
+			statistics.add(reports[r]);
+			if ( results != null ) results.append(seed, p, r, points[p], reports[r].row());
+		}
+		return statistics;
+	}
+	
+	/**
+	 * Checks whether a point is written without simulating it
+	 * @param point Point starting at 0
+	 * @return True if only its analytic solution is written
+	 */
+	private boolean screened ( int point )
+	{
+		return Constants.SWEEP_ANALYTIC_ONLY || solution(point).maxUtilization() >= Constants.SWEEP_MAX_UTILIZATION;
+	}
+	
+	/**
+	 * Writes the header of the CSV
+	 * @param out Where the CSV is written
+	 */
+	private void printHeader ( PrintWriter out )
+	{
+		Network first = network(0);
+		StringBuilder header = new StringBuilder("point");
+		for ( SweepParameter parameter : parameters )
+		{
+			header.append(',').append(parameter.name);
+		}
+		header.append(",replications");
+		for ( int m = 0; m < first.numberMetrics(); m++ )
+		{
+			String name = first.metricName(m);
+			header.append(',').append(name).append(',').append(name).append("_halfwidth").append(',').append(name).append("_analytic");
+		}
+		out.println(header.toString());
+	}
+	
+	/**
+	 * Writes the CSV row of a point
+	 * @param out Where the CSV is written
+	 * @param p Point starting at 0
+	 * @param statistics Statistics over the replications of the point, empty if it was screened
+	 */
+	private void printRow ( PrintWriter out, int p, ReportStatistics statistics )
+	{
+		AnalyticSolution solution = solution(p);
+		
+		StringBuilder row = new StringBuilder();
+		row.append(p);
+		for ( int i = 0; i < parameters.length; i++ )
+		{
+			row.append(',').append(points[p][i]);
+		}
+		row.append(',').append(statistics.count());
+		for ( int m = 0; m < statistics.metrics.length; m++ )
+		{
+			RunningStatistics metric = statistics.metrics[m];
+			if ( metric.count() > 0 )
+			{
+				row.append(',').append(metric.mean()).append(',').append(metric.halfWidth(Constants.CONFIDENCE_LEVEL));
+			}
+			else
+			{
+				row.append(",,");
+			}
+			row.append(',').append(solution.metric(m));
+		}
+		out.println(row.toString());
+		
+		// The point is done with
+		synchronized ( this )
+		{
+			networks[p] = null;
+			solutions[p] = null;
+		}
+	}
+	
+	/**
+	 * The replications of a point of the sweep
+	 */
+	private class Point extends RecursiveTask<SimulationReport[]>
+	{
+		// ForkJoinTask is Serializable, though the sweep never serializes its tasks
+		private final static long serialVersionUID = 1L;
+		
+		// Point starting at 0
+		private int point;
+		
+		/**
+		 * Sets up a point
+		 * @param point Point starting at 0
+		 */
+		public Point ( int point )
+		{
+			this.point = point;
+		}
+		
+		/**
+		 * Runs the replications of the point side by side
+		 * @return Reports of the replications in order, none if the point is screened
+		 */
+		protected SimulationReport[] compute ()
+		{
+			// Screen the point with its analytic solution first
+			if ( screened(point) )
+			{
+				return new SimulationReport[0];
+			}
+			Simulator simulator = simulator(point);
+			
+			ArrayList<Replication> runs = new ArrayList<Replication>(replications);
+			for ( int r = 0; r < replications; r++ )
+			{
+				runs.add(new Replication(simulator, r));
+			}
+			ForkJoinTask.invokeAll(runs);
+			
+			SimulationReport[] reports = new SimulationReport[replications];
+			for ( int r = 0; r < replications; r++ )
+			{
+				reports[r] = runs.get(r).join();
+			}
+			return reports;
+		}
+	}
+	
+	/**
+	 * A single replication of a point of the sweep
+	 */
+	private static class Replication extends RecursiveTask<SimulationReport>
+	{
+		// ForkJoinTask is Serializable, though the sweep never serializes its tasks
+		private final static long serialVersionUID = 1L;
+		
+		// Simulator of the point
+		private Simulator simulator;
+		
+		// Replication number starting at 0
+		private int replication;
+		
+		/**
+		 * Sets up a replication
+		 * @param simulator Simulator of the point
+		 * @param replication Replication number starting at 0
+		 */
+		public Replication ( Simulator simulator, int replication )
+		{
+			this.simulator = simulator;
+			this.replication = replication;
+		}
+		
+		/**
+		 * Runs the replication
+		 * @return SimulationReport of the steady state jobs
+		 */
+		protected SimulationReport compute ()
+		{
+			return simulator.runReplication(replication);
+		}
+	}
+}
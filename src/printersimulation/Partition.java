@@ -0,0 +1,422 @@
+package printersimulation;
+
+/**
+ * One partition of a ParallelRun, a block of stations whose events run on
+ * their own thread. The partition holds the jobs at its stations and the
+ * sources entering the network there, it receives jobs from the other
+ * partitions through JobChannels and hands what its stations measure to
+ * the report through a RecordRing.
+ */
+public class Partition implements Runnable
+{
+	/**
+	 * ===============================
+	 * Synchronization Documentation
+	 * ===============================
+	 * The partitions are kept in step conservatively: an event is only
+	 * processed once no other partition can still send a job that arrives
+	 * before it. Every partition promises the others the earliest time it
+	 * can still send a job at, the null message of Chandy and Misra. A job
+	 * only leaves a station at the end of a service, so nothing is sent
+	 * before the next departure already scheduled or before the shortest
+	 * service any station of the partition can start next has passed. The
+	 * stations draw their next service times ahead for this, one for every
+	 * server since that many jobs can start before any of them finishes,
+	 * which keeps the draws in the order they would have been made anyway.
+	 * Service times without a positive minimum, like exponential ones, still
+	 * give a positive lookahead this way.
+	 */
+	
+	// Events spun on before giving the processor away while nothing is safe to process
+	private final static int SPINS = 64;
+	
+	// Number of the partition
+	private int index;
+	
+	// Network the jobs travel through
+	private Network network;
+	
+	// Handlers of the events of every station, only those of this partition are used
+	private StationHandler[] handlers;
+	
+	// Partition of every station
+	private int[] owner;
+	
+	// First station of the partition, the stations are a block of ids
+	private int first;
+	
+	// Jobs at the stations of the partition
+	private JobManager jobs;
+	private JobStore store;
+	
+	// Sources entering the network at the stations of the partition, by
+	// their index in the arrival tree, and their random number streams
+	private int[] sources;
+	private NumberGenerator[] streams;
+	
+	// Next arrival time of every source of the partition
+	private ArrivalTree arrivals;
+	
+	// Lookahead of every station of the partition, the tree keeps the
+	// shortest at its root the same way it keeps the first arrival
+	private ArrivalTree lookahead;
+	
+	// Jobs from and to every partition, null for this one
+	private JobChannel[] inputs;
+	private JobChannel[] outputs;
+	
+	// Records handed to the report
+	private RecordRing ring;
+	
+	// Takes down what the station handlers measure during a step
+	private RecordingReport report;
+	
+	// Job ID counter of the partition
+	private int incrementalId = 0;
+	
+	// Set once the run is over
+	private volatile boolean stopped = false;
+	
+	// Error the partition stopped on, null while it runs fine
+	private volatile Throwable failure = null;
+	
+	/**
+	 * Sets up a partition and draws the first arrival of its sources
+	 * @param index Number of the partition
+	 * @param context Replication state, the partition takes over the
+	 * handlers and arrival streams of its stations
+	 * @param owner Partition of every station
+	 * @param inputs Channels of the jobs from every partition, null for this one
+	 * @param outputs Channels of the jobs to every partition, null for this one
+	 * @param ring Ring the records are handed to the report through
+	 */
+	public Partition ( int index, SimulationContext context, int[] owner, JobChannel[] inputs, JobChannel[] outputs, RecordRing ring )
+	{
+		this.index = index;
+		this.network = context.network;
+		this.handlers = context.handlers;
+		this.owner = owner;
+		this.inputs = inputs;
+		this.outputs = outputs;
+		this.ring = ring;
+		jobs = new JobManager(context.eventList);
+		store = jobs.getStore();
+		
+		int stations = 0;
+		first = owner.length;
+		for ( int s = 0; s < owner.length; s++ )
+		{
+			if ( owner[s] != index ) continue;
+			first = Math.min(first, s);
+			stations++;
+		}
+		report = new RecordingReport(owner.length);
+		
+		int count = 0;
+		for ( int source = 0; source < network.numberSources(); source++ )
+		{
+			if ( owner[network.entryStation(source)] == index ) count++;
+		}
+		sources = new int[count];
+		streams = new NumberGenerator[count];
+		arrivals = new ArrivalTree(count);
+		count = 0;
+		for ( int source = 0; source < network.numberSources(); source++ )
+		{
+			if ( owner[network.entryStation(source)] != index ) continue;
+			sources[count] = source;
+			streams[count] = context.arrivalStream(source);
+			arrivals.update(count, streams[count].exponentialRVG(network.meanArrivalTime(source)));
+			count++;
+		}
+		
+		lookahead = new ArrivalTree(stations);
+		for ( int s = 0; s < stations; s++ )
+		{
+			lookahead.update(s, handlers[first + s].lookahead());
+		}
+	}
+	
+	/**
+	 * Processes the events of the partition until the run is stopped
+	 */
+	public void run ()
+	{
+		try
+		{
+			int spins = 0;
+			while ( !stopped )
+			{
+				if ( step() )
+				{
+					spins = 0;
+				}
+				else if ( ++spins < SPINS )
+				{
+					Thread.onSpinWait();
+				}
+				else
+				{
+					Thread.yield();
+				}
+			}
+		}
+		catch ( Throwable e )
+		{
+			failure = e;
+		}
+	}
+	
+	/**
+	 * Stops the partition, it finishes the event it is processing
+	 */
+	public void stop ()
+	{
+		stopped = true;
+	}
+	
+	/**
+	 * Gets the error the partition stopped on
+	 * @return Error, null if there was none
+	 */
+	public Throwable getFailure ()
+	{
+		return failure;
+	}
+	
+	/**
+	 * Publishes the bound and the promises of the partition and processes
+	 * the earliest event if it is safe to
+	 * @return True if an event was processed
+	 */
+	private boolean step ()
+	{
+		for ( int p = 0; p < outputs.length; p++ )
+		{
+			if ( outputs[p] != null ) outputs[p].flush();
+		}
+		
+		int j = jobs.peekFirstJob();
+		double departure = (j != JobStore.NONE) ? store.arrivalTime[j] : Double.POSITIVE_INFINITY;
+		double arrival = arrivals.firstTime();
+		
+		// Jobs in a channel come in time order so only the first one counts, an
+		// empty channel can still bring a job at the promise of its producer.
+		// The promise is read first, anything sent after it is no earlier
+		int from = -1;
+		double incoming = Double.POSITIVE_INFINITY;
+		double safe = Double.POSITIVE_INFINITY;
+		for ( int p = 0; p < inputs.length; p++ )
+		{
+			if ( inputs[p] == null ) continue;
+			
+			double promise = inputs[p].getPromise();
+			int k = inputs[p].peek();
+			if ( k < 0 )
+			{
+				safe = Math.min(safe, promise);
+			}
+			else if ( inputs[p].time(k) < incoming )
+			{
+				incoming = inputs[p].time(k);
+				from = p;
+			}
+		}
+		
+		// No event of the partition comes before now, so neither does any
+		// record, and no job leaves it before the promise
+		double next = Math.min(departure, Math.min(arrival, incoming));
+		double now = Math.min(next, safe);
+		ring.setBound(now);
+		double promise = Math.min(departure, now + lookahead.firstTime());
+		for ( int p = 0; p < outputs.length; p++ )
+		{
+			if ( outputs[p] != null ) outputs[p].setPromise(promise);
+		}
+		
+		// An event writes at most two records
+		if ( !(next < safe) || !ring.room(2) ) return false;
+		
+		if ( departure <= arrival && departure <= incoming )
+		{
+			depart();
+		}
+		else if ( arrival <= incoming )
+		{
+			enter();
+		}
+		else
+		{
+			receive(inputs[from]);
+		}
+		return true;
+	}
+	
+	/**
+	 * The first job of the event list finishes its service and moves on
+	 */
+	private void depart ()
+	{
+		int j = jobs.getFirstJob();
+		int station = store.station[j];
+		double t = store.arrivalTime[j];
+		
+		report.clock = t;
+		report.flags = 0;
+		int next = handlers[station].depart(report, jobs, j);
+		lookahead.update(station - first, handlers[station].lookahead());
+		
+		if ( next == Station.EXIT )
+		{
+			write(RecordRing.DEPART | RecordRing.EXIT, station, t, t - store.systemStartTime[j]);
+			store.release(j);
+			return;
+		}
+		write(RecordRing.DEPART, station, t, 0.0);
+		
+		if ( owner[next] == index )
+		{
+			arrive(j, next, t, 0);
+		}
+		else
+		{
+			outputs[owner[next]].send(t, store.systemStartTime[j], next);
+			store.release(j);
+		}
+	}
+	
+	/**
+	 * The first arrival of the sources of the partition enters the network
+	 */
+	private void enter ()
+	{
+		int local = arrivals.first();
+		int source = sources[local];
+		double t = arrivals.firstTime();
+		
+		int j = store.allocate(source, JobStore.ARRIVING, ++incrementalId, t);
+		arrivals.update(local, streams[local].exponentialRVG(network.meanArrivalTime(source)) + t);
+		arrive(j, network.entryStation(source), t, RecordRing.EXTERNAL);
+	}
+	
+	/**
+	 * The first job of a channel arrives at its station
+	 * @param channel Channel the job comes through
+	 */
+	private void receive ( JobChannel channel )
+	{
+		int k = channel.peek();
+		double t = channel.time(k);
+		int station = channel.station(k);
+		
+		// The source is not sent along, nothing past the entry station needs it
+		int j = store.allocate(JobStore.NONE, JobStore.ARRIVING, ++incrementalId, t);
+		store.systemStartTime[j] = channel.start(k);
+		channel.consume();
+		
+		arrive(j, station, t, 0);
+	}
+	
+	/**
+	 * A job arrives at a station of the partition
+	 * @param j Handle of the job
+	 * @param station Station id
+	 * @param t Time of the arrival
+	 * @param flags Flags of the record of the arrival
+	 */
+	private void arrive ( int j, int station, double t, int flags )
+	{
+		report.clock = t;
+		report.flags = 0;
+		boolean accepted = handlers[station].arrive(report, jobs, j);
+		
+		if ( accepted )
+		{
+			lookahead.update(station - first, handlers[station].lookahead());
+			write(RecordRing.ARRIVE | RecordRing.ACCEPTED | flags, station, t, 0.0);
+		}
+		else
+		{
+			write(RecordRing.ARRIVE | flags, station, t, 0.0);
+			store.release(j);
+		}
+	}
+	
+	/**
+	 * Hands a record of what the last step measured to the report
+	 * @param code Kind and flags of the record, without those the step measured
+	 * @param station Station id
+	 * @param t Time of the step
+	 * @param system Time the job spent in the system if it exits
+	 */
+	private void write ( int code, int station, double t, double system )
+	{
+		int k = ring.claim();
+		ring.time[k] = t;
+		ring.code[k] = code | report.flags;
+		ring.station[k] = station;
+		ring.wait[k] = report.wait;
+		ring.service[k] = report.service;
+		ring.length[k] = report.length;
+		ring.system[k] = system;
+		ring.publish();
+	}
+	
+	/**
+	 * Report the station handlers of a partition measure into. It only
+	 * takes down what one step measured, the report of the run is kept
+	 * by the thread merging the records of every partition.
+	 */
+	static class RecordingReport extends SimulationReport
+	{
+		// What the step measured, a combination of the flags of RecordRing
+		public int flags = 0;
+		
+		// Values the step measured
+		public double wait = 0.0;
+		public double service = 0.0;
+		public int length = 0;
+		
+		/**
+		 * Sets up the report
+		 * @param numberStations Number of stations of the network
+		 */
+		public RecordingReport ( int numberStations )
+		{
+			super(0, numberStations);
+		}
+		
+		/**
+		 * Takes down the service a station has started
+		 * @param station Station id
+		 * @param amount Service time divided by the number of servers of the station
+		 */
+		public void addService ( int station, double amount )
+		{
+			flags |= RecordRing.SERVED;
+			service = amount;
+		}
+		
+		/**
+		 * Takes down the time a job waited at a station
+		 * @param station Station id
+		 * @param wait Time the job waited
+		 */
+		public void recordWait ( int station, double wait )
+		{
+			flags |= RecordRing.WAITED;
+			this.wait = wait;
+		}
+		
+		/**
+		 * Takes down the new length of the queue of a station
+		 * @param station Station id
+		 * @param length Number of jobs waiting in the queue
+		 */
+		public void updateQueueLength ( int station, int length )
+		{
+			flags |= RecordRing.QUEUED;
+			this.length = length;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package printersimulation;
+
+/**
+ * Wrapper to run main Printer Simulation.
+ * @author Jamie Chung <jfchung@vt.edu>
+ *
+ */
+public class PrinterSimulation
+{	
+	/**
+	 * Wrapper to start simulation
+	 * @param args Directories of scenario files or scenario files to run one
+	 * after another, none to run the settings within Constants
+	 */
+	public static void main(String[] args)
+	{
+		// Run a batch of scenarios when given any
+		if ( args.length > 0 )
+		{
+			if ( !new ScenarioBatch(args).run() ) System.exit(1);
+			return;
+		}
+		
+		// Sweep the parameters when asked to
+		if ( !Constants.SWEEP.isEmpty() )
+		{
+			ParameterSweep.fromConstants().run();
+			return;
+		}
+		
+		// Compare two configurations when asked to
+		if ( !Constants.COMPARE.isEmpty() )
+		{
+			new Comparison(Constants.COMPARE).run();
+			return;
+		}
+		
+		// Run the simulator with the settings within Constants!
+		Simulator s = new Simulator();
+		s.run();
+	}
+}
@@ -0,0 +1,151 @@
+package printersimulation;
+
+/**
+ * Hands out the random number streams of the simulation from a single
+ * master seed. The cycle of the generator is cut into substreams of
+ * Constants.STREAM_SPACING numbers, or Constants.SOURCE_SPACING for the
+ * arrival streams of the job sources which lead the block of every replication.
+ * Every replication gets a block of
+ * consecutive substreams, laid out by the Network, so any stream of any replication
+ * is found directly by jumping ahead from the master seed without
+ * replaying the replications before it. Every stream ends where the next
+ * one starts, so a run longer than the spacing fails instead of silently
+ * reusing the numbers of another stream.
+ */
+public class RandomStreams
+{
+	// Number of substreams used by one replication
+	private int streamsPerReplication;
+	
+	// Master seed all the streams are derived from
+	private long masterSeed;
+	
+	// Number of random numbers in each substream
+	private long spacing;
+	
+	// Number of leading substreams of a replication, the arrival streams, and their length
+	private int sourceStreams = 0;
+	private long sourceSpacing;
+	
+	/**
+	 * Sets up the streams using the spacing configured in Constants
+	 * @param masterSeed Master seed, any value
+	 * @param streamsPerReplication Number of substreams used by one replication
+	 */
+	public RandomStreams ( long masterSeed, int streamsPerReplication )
+	{
+		this(masterSeed, streamsPerReplication, Constants.STREAM_SPACING);
+	}
+	
+	/**
+	 * Sets up the streams using the spacings configured in Constants, with
+	 * shorter arrival streams when Constants.SOURCE_SPACING is set
+	 * @param masterSeed Master seed, any value
+	 * @param streamsPerReplication Number of substreams used by one replication
+	 * @param sourceStreams Number of leading substreams of a replication which are arrival streams
+	 */
+	public RandomStreams ( long masterSeed, int streamsPerReplication, int sourceStreams )
+	{
+		this(masterSeed, streamsPerReplication, sourceStreams, Constants.STREAM_SPACING, Constants.SOURCE_SPACING);
+	}
+	
+	/**
+	 * Sets up the streams with arrival streams of their own length
+	 * @param masterSeed Master seed, any value
+	 * @param streamsPerReplication Number of substreams used by one replication
+	 * @param sourceStreams Number of leading substreams of a replication which are arrival streams
+	 * @param spacing Number of random numbers in each substream
+	 * @param sourceSpacing Number of random numbers in each arrival stream
+	 */
+	public RandomStreams ( long masterSeed, int streamsPerReplication, int sourceStreams, long spacing, long sourceSpacing )
+	{
+		this(masterSeed, streamsPerReplication, spacing);
+		this.sourceStreams = sourceStreams;
+		this.sourceSpacing = sourceSpacing;
+	}
+	
+	/**
+	 * Sets up the streams
+	 * @param masterSeed Master seed, any value
+	 * @param streamsPerReplication Number of substreams used by one replication
+	 * @param spacing Number of random numbers in each substream
+	 */
+	public RandomStreams ( long masterSeed, int streamsPerReplication, long spacing )
+	{
+		// The generator only cycles through seeds between 1 and 2^31 - 2
+		this.masterSeed = masterSeed % (NumberGenerator.MODULUS - 1);
+		if ( this.masterSeed <= 0 ) this.masterSeed += NumberGenerator.MODULUS - 1;
+		this.streamsPerReplication = streamsPerReplication;
+		this.spacing = spacing;
+		this.sourceSpacing = spacing;
+	}
+	
+	/**
+	 * Gets the master seed the streams are derived from
+	 * @return Master seed
+	 */
+	public long getMasterSeed ()
+	{
+		return masterSeed;
+	}
+	
+	/**
+	 * Gets a substream of a replication
+	 * @param replication Replication number starting at 0
+	 * @param index Substream within the replication
+	 * @return NumberGenerator positioned at the start of the substream
+	 */
+	public NumberGenerator stream ( int replication, int index )
+	{
+		return stream(replication, index, false);
+	}
+	
+	/**
+	 * Gets a substream of a replication
+	 * @param replication Replication number starting at 0
+	 * @param index Substream within the replication
+	 * @param antithetic Hand out 1 - U instead of every number U of the substream
+	 * @return NumberGenerator positioned at the start of the substream
+	 */
+	public NumberGenerator stream ( int replication, int index, boolean antithetic )
+	{
+		long start = replication * block() + ((index < sourceStreams) ? index * sourceSpacing
+				: sourceStreams * sourceSpacing + (index - sourceStreams) * spacing);
+		long end = start + ((index < sourceStreams) ? sourceSpacing : spacing);
+		
+		// Streams past the end of the cycle would overlap earlier streams
+		if ( end > NumberGenerator.MODULUS - 1 )
+		{
+			throw new IllegalArgumentException("Replication " + replication + " does not fit within the generator cycle, " +
+					"lower the stream spacing of " + spacing + " or the source spacing of " + sourceSpacing);
+		}
+		
+		NumberGenerator generator = new NumberGenerator(NumberGenerator.jumpAhead(masterSeed, start), antithetic);
+		generator.setEnd(NumberGenerator.jumpAhead(masterSeed, end));
+		return generator;
+	}
+	
+	/**
+	 * Checks up front that the streams of a number of replications fit
+	 * within the cycle of the generator, rather than failing part way
+	 * through a run at the first replication which does not
+	 * @param replications Number of replications, starting at 0
+	 */
+	public void checkReplications ( int replications )
+	{
+		if ( replications * block() > NumberGenerator.MODULUS - 1 )
+		{
+			throw new IllegalArgumentException(replications + " replications of " + block() + " random numbers each do not fit " +
+					"within the generator cycle, lower the stream spacing of " + spacing + " or the source spacing of " + sourceSpacing);
+		}
+	}
+	
+	/**
+	 * Gets how many random numbers the streams of one replication take up
+	 * @return Length of the block of a replication
+	 */
+	private long block ()
+	{
+		return sourceStreams * sourceSpacing + (streamsPerReplication - sourceStreams) * spacing;
+	}
+}
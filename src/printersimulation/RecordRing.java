@@ -0,0 +1,163 @@
+package printersimulation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free single producer single consumer ring of the records a
+ * partition of a ParallelRun hands to the thread keeping the report.
+ * A record notes what the station handlers measured during one step of an
+ * event, in the order the partition processed them, which is time order.
+ * Besides the records the ring carries a bound, the earliest time any
+ * record the partition has yet to write can have.
+ */
+public class RecordRing
+{
+	/**
+	 * ===============================
+	 * Record Documentation
+	 * ===============================
+	 * A record is either the departure of a job from a station or the
+	 * arrival of a job at a station, from a source or from another station.
+	 * Within one event the departure comes first, so at the same time the
+	 * departures are merged before the arrivals. The flags say what the
+	 * step measured:
+	 *  WAITED    a job started after waiting, wait holds the time it waited
+	 *  QUEUED    the queue of the station changed, length holds its length
+	 *  SERVED    a job started its service, service holds its share of the station
+	 *  EXTERNAL  the arrival came from a source of the network
+	 *  ACCEPTED  the arrival was taken in rather than turned away
+	 *  EXIT      the departing job left the system, system holds its time in it
+	 */
+	
+	// Kinds of record, the departures sort first
+	public final static int DEPART = 0;
+	public final static int ARRIVE = 1;
+	
+	// Flags of a record
+	public final static int WAITED = 2;
+	public final static int QUEUED = 4;
+	public final static int SERVED = 8;
+	public final static int EXTERNAL = 16;
+	public final static int ACCEPTED = 32;
+	public final static int EXIT = 64;
+	
+	// Fields of the records, indexed by position within the ring
+	public double[] time;
+	public double[] wait;
+	public double[] service;
+	public double[] system;
+	public int[] station;
+	public int[] code;
+	public int[] length;
+	
+	// Size of the ring minus one, the size is a power of two
+	private int mask;
+	
+	// Records written and records read since the start
+	private AtomicLong tail = new AtomicLong(0);
+	private AtomicLong head = new AtomicLong(0);
+	
+	// Copies of the other side's position, only refreshed once they run out
+	private long cachedHead = 0;
+	private long cachedTail = 0;
+	
+	// Earliest time of any record still to be written
+	private volatile double bound = 0.0;
+	
+	/**
+	 * Sets up an empty ring
+	 * @param capacity Number of records the ring holds, rounded up to a power of two
+	 */
+	public RecordRing ( int capacity )
+	{
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		mask = size - 1;
+		time = new double[size];
+		wait = new double[size];
+		service = new double[size];
+		system = new double[size];
+		station = new int[size];
+		code = new int[size];
+		length = new int[size];
+	}
+	
+	/**
+	 * Checks whether the next records fit, called by the producer
+	 * @param n Number of records
+	 * @return True if claim hands out a slot for each of them
+	 */
+	public boolean room ( int n )
+	{
+		long t = tail.get();
+		if ( t + n - cachedHead > mask + 1 )
+		{
+			cachedHead = head.get();
+			if ( t + n - cachedHead > mask + 1 ) return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Finds the slot for the next record, called by the producer
+	 * @return Slot to fill in, -1 if the ring is full
+	 */
+	public int claim ()
+	{
+		long t = tail.get();
+		if ( t - cachedHead > mask )
+		{
+			cachedHead = head.get();
+			if ( t - cachedHead > mask ) return -1;
+		}
+		return (int) t & mask;
+	}
+	
+	/**
+	 * Hands the claimed slot over to the consumer, called by the producer
+	 */
+	public void publish ()
+	{
+		tail.lazySet(tail.get() + 1);
+	}
+	
+	/**
+	 * Finds the oldest record, called by the consumer
+	 * @return Slot of the record, -1 if the ring is empty
+	 */
+	public int peek ()
+	{
+		long h = head.get();
+		if ( h == cachedTail )
+		{
+			cachedTail = tail.get();
+			if ( h == cachedTail ) return -1;
+		}
+		return (int) h & mask;
+	}
+	
+	/**
+	 * Frees the slot of the oldest record, called by the consumer
+	 */
+	public void consume ()
+	{
+		head.lazySet(head.get() + 1);
+	}
+	
+	/**
+	 * Sets the earliest time of any record still to be written, called by the producer
+	 * @param time Lower bound on the time of the next records
+	 */
+	public void setBound ( double time )
+	{
+		if ( time != bound ) bound = time;
+	}
+	
+	/**
+	 * Gets the earliest time of any record still to be written
+	 * @return Lower bound on the time of the next records
+	 */
+	public double getBound ()
+	{
+		return bound;
+	}
+}
@@ -0,0 +1,32 @@
+package printersimulation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event spanning one replication of the simulation.
+ */
+@Name("printersimulation.Replication")
+@Label("Replication")
+@Category("Printer Simulation")
+@Description("A replication of the simulation, from its first event to its last")
+public class ReplicationEvent extends jdk.jfr.Event
+{
+	@Label("Replication")
+	public int replication;
+	
+	@Label("Events Processed")
+	public long eventsProcessed;
+	
+	@Label("Jobs Exited")
+	public long jobsExited;
+	
+	@Label("Rejections")
+	@Description("Jobs turned away by a station whose buffer was full")
+	public long rejections;
+	
+	@Label("Event List High Water Mark")
+	public int eventListHighWaterMark;
+}
@@ -0,0 +1,112 @@
+package printersimulation;
+
+import java.util.Arrays;
+
+/**
+ * Runtime counters of a single replication, only touched by the thread
+ * running it. They are added to the SimulationMetrics of the JVM every
+ * FLUSH_EVENTS events and when the replication finishes.
+ */
+public class ReplicationMetrics
+{
+	// Events between two flushes, a power of two
+	public final static long FLUSH_EVENTS = 1 << 14;
+	
+	// Counts since the last flush
+	public long arrivals = 0;
+	public long jobsExited = 0;
+	public long[] departures;
+	public long[] rejections;
+	
+	// Replication number starting at 0
+	private int replication;
+	
+	// Events of the replication when it last flushed
+	private long flushedEvents = 0;
+	
+	// Events the report already held when the replication began, those of
+	// the warmup it branched off or of the run before its checkpoint
+	private long startEvents = 0;
+	
+	// Totals over the whole replication, for its Flight Recorder event
+	private long totalRejections = 0;
+	private long totalJobsExited = 0;
+	
+	// Wall time the replication started
+	private long startNanos;
+	
+	// Flight Recorder event spanning the replication
+	private ReplicationEvent event;
+	
+	/**
+	 * Sets up the counters of a replication
+	 * @param network Network the replication runs
+	 * @param replication Replication number starting at 0
+	 */
+	public ReplicationMetrics ( Network network, int replication )
+	{
+		this.replication = replication;
+		departures = new long[network.size()];
+		rejections = new long[network.size()];
+		
+		SimulationMetrics.get().register(network);
+	}
+	
+	/**
+	 * Marks the start of the replication, counting its events from those
+	 * the report already holds
+	 * @param report Report the replication starts from
+	 */
+	public void begin ( SimulationReport report )
+	{
+		startEvents = report.numberEvents;
+		flushedEvents = report.numberEvents;
+		startNanos = System.nanoTime();
+		event = new ReplicationEvent();
+		event.begin();
+	}
+	
+	/**
+	 * Adds the counts since the last flush to the SimulationMetrics of the JVM
+	 * @param report Report of the replication
+	 * @param jobs Jobs of the replication
+	 */
+	public void flush ( SimulationReport report, JobManager jobs )
+	{
+		for ( int s = 0; s < rejections.length; s++ )
+		{
+			totalRejections += rejections[s];
+		}
+		totalJobsExited += jobsExited;
+		
+		SimulationMetrics.get().add(this, report.numberEvents - flushedEvents, jobs.getHighWaterMark());
+		flushedEvents = report.numberEvents;
+		
+		arrivals = 0;
+		jobsExited = 0;
+		Arrays.fill(departures, 0);
+		Arrays.fill(rejections, 0);
+	}
+	
+	/**
+	 * Marks the end of the replication and records its wall time
+	 * @param report Report of the replication
+	 * @param jobs Jobs of the replication
+	 */
+	public void end ( SimulationReport report, JobManager jobs )
+	{
+		flush(report, jobs);
+		SimulationMetrics.get().replicationFinished(System.nanoTime() - startNanos);
+		
+		event.end();
+		if ( event.shouldCommit() )
+		{
+			event.replication = replication;
+			event.eventsProcessed = flushedEvents - startEvents;
+			event.jobsExited = totalJobsExited;
+			event.rejections = totalRejections;
+			event.eventListHighWaterMark = jobs.getHighWaterMark();
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package printersimulation;
+
+/**
+ * Running statistics of the measured values over the replications of a
+ * simulation. Each SimulationReport is folded in as soon as it finishes
+ * so the memory used does not depend on the number of replications.
+ */
+public class ReportStatistics
+{
+	// Every metric of the reports, in the order of Network.metricName
+	public RunningStatistics[] metrics;
+	
+	// Number of jobs discarded as warmup, not a measured metric
+	public RunningStatistics warmupJobs = new RunningStatistics();
+	
+	// Percentiles of the distributions, in the order of SimulationReport.percentiles,
+	// empty until a replication which measured them is added
+	public RunningStatistics[] percentiles = new RunningStatistics[0];
+	
+	/**
+	 * Sets up empty statistics
+	 * @param numberMetrics Number of metrics of the reports
+	 */
+	public ReportStatistics ( int numberMetrics )
+	{
+		metrics = new RunningStatistics[numberMetrics];
+		for ( int i = 0; i < numberMetrics; i++ )
+		{
+			metrics[i] = new RunningStatistics();
+		}
+	}
+	
+	/**
+	 * Adds the measured values of a replication
+	 * @param report Report of the replication
+	 */
+	public void add ( SimulationReport report )
+	{
+		for ( int i = 0; i < metrics.length; i++ )
+		{
+			metrics[i].add(report.metric(i));
+		}
+		warmupJobs.add(report.warmupJobs);
+		
+		if ( report.numberPercentiles() > 0 )
+		{
+			double[] values = new double[report.numberPercentiles()];
+			report.percentiles(values, 0);
+			addPercentiles(values, 0);
+		}
+	}
+	
+	/**
+	 * Adds the measured values of a replication saved as a row
+	 * @param row Every metric in the order of Network.metricName, then the
+	 * warmup jobs, then any percentiles
+	 */
+	public void add ( double[] row )
+	{
+		for ( int i = 0; i < metrics.length; i++ )
+		{
+			metrics[i].add(row[i]);
+		}
+		warmupJobs.add(row[metrics.length]);
+		addPercentiles(row, metrics.length + 1);
+	}
+	
+	/**
+	 * Adds the percentiles of a replication
+	 * @param values Percentiles in the order of SimulationReport.percentiles
+	 * @param offset Index of the first percentile
+	 */
+	private void addPercentiles ( double[] values, int offset )
+	{
+		if ( values.length == offset ) return;
+		
+		if ( percentiles.length == 0 )
+		{
+			percentiles = new RunningStatistics[values.length - offset];
+			for ( int i = 0; i < percentiles.length; i++ )
+			{
+				percentiles[i] = new RunningStatistics();
+			}
+		}
+		
+		for ( int i = 0; i < percentiles.length; i++ )
+		{
+			percentiles[i].add(values[offset + i]);
+		}
+	}
+	
+	/**
+	 * Gets the number of replications added
+	 * @return Number of replications
+	 */
+	public long count ()
+	{
+		return warmupJobs.count();
+	}
+}
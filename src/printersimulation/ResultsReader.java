@@ -0,0 +1,293 @@
+package printersimulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads a ResultsStore through memory mapped columns and aggregates it
+ * without parsing any text.
+ * Usage: ResultsReader <directory> [group columns|none] [value columns]
+ * Prints the number of rows, the mean and the confidence interval half
+ * width of every value column for every group of rows with the same
+ * values in the group columns. By default the rows are grouped by point
+ * and parameters within a sweep, and the values are the metrics.
+ */
+public class ResultsReader
+{
+	// Names and types of the columns
+	private String[] names;
+	private byte[] types;
+	
+	// Number of parameters of the sweep, 0 outside a sweep
+	private int numberParameters;
+	
+	// Mapped file of every column
+	private MappedByteBuffer[] columns;
+	
+	// Number of rows every column holds
+	private long rows;
+	
+	/**
+	 * Maps the columns of a store
+	 * @param path Directory of the store
+	 * @throws IOException If the store can not be read
+	 */
+	public ResultsReader ( String path ) throws IOException
+	{
+		File directory = new File(path);
+		File schema = new File(directory, ResultsStore.SCHEMA_FILE);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(schema)));
+		try
+		{
+			if ( in.readLong() != ResultsStore.MAGIC ) throw new IOException(schema + " is not the schema of a results store");
+			names = new String[in.readInt()];
+			types = new byte[names.length];
+			numberParameters = in.readInt();
+			for ( int c = 0; c < names.length; c++ )
+			{
+				names[c] = in.readUTF();
+				types[c] = in.readByte();
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+		
+		// A mapping stays valid once its channel is closed
+		columns = new MappedByteBuffer[names.length];
+		rows = Long.MAX_VALUE;
+		for ( int c = 0; c < names.length; c++ )
+		{
+			FileChannel channel = FileChannel.open(ResultsStore.columnFile(directory, names[c]).toPath(), StandardOpenOption.READ);
+			try
+			{
+				if ( channel.size() > Integer.MAX_VALUE )
+				{
+					throw new IOException("Column " + names[c] + " of " + path + " is larger than a single mapping");
+				}
+				columns[c] = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				columns[c].order(ByteOrder.LITTLE_ENDIAN);
+				rows = Math.min(rows, channel.size() / ResultsStore.width(types[c]));
+			}
+			finally
+			{
+				channel.close();
+			}
+		}
+	}
+	
+	/**
+	 * Gets the number of rows of the store
+	 * @return Number of rows
+	 */
+	public long rows ()
+	{
+		return rows;
+	}
+	
+	/**
+	 * Finds a column by name
+	 * @param name Name of the column
+	 * @return Column index
+	 */
+	public int column ( String name )
+	{
+		for ( int c = 0; c < names.length; c++ )
+		{
+			if ( names[c].equals(name) ) return c;
+		}
+		throw new IllegalArgumentException("No column named " + name);
+	}
+	
+	/**
+	 * Gets a value of a column, whatever its type
+	 * @param column Column index
+	 * @param row Row starting at 0
+	 * @return Value
+	 */
+	public double get ( int column, int row )
+	{
+		switch ( types[column] )
+		{
+			case ResultsStore.LONG:
+				return columns[column].getLong(row << 3);
+			
+			case ResultsStore.INT:
+				return columns[column].getInt(row << 2);
+			
+			default:
+				return columns[column].getDouble(row << 3);
+		}
+	}
+	
+	/**
+	 * Aggregates the value columns over every group of rows
+	 * @param group Columns the rows are grouped by, empty for a single group
+	 * @param values Columns aggregated
+	 * @return Statistics of the value columns for every group, in order of the group values
+	 */
+	public TreeMap<double[], RunningStatistics[]> aggregate ( int[] group, int[] values )
+	{
+		TreeMap<double[], RunningStatistics[]> groups = new TreeMap<double[], RunningStatistics[]>(new Comparator<double[]>()
+		{
+			public int compare ( double[] a, double[] b )
+			{
+				for ( int i = 0; i < a.length; i++ )
+				{
+					int c = Double.compare(a[i], b[i]);
+					if ( c != 0 ) return c;
+				}
+				return 0;
+			}
+		});
+		
+		// The key is only copied when a new group is found
+		double[] key = new double[group.length];
+		for ( int row = 0; row < rows; row++ )
+		{
+			for ( int i = 0; i < group.length; i++ )
+			{
+				key[i] = get(group[i], row);
+			}
+			
+			RunningStatistics[] statistics = groups.get(key);
+			if ( statistics == null )
+			{
+				statistics = new RunningStatistics[values.length];
+				for ( int i = 0; i < values.length; i++ )
+				{
+					statistics[i] = new RunningStatistics();
+				}
+				groups.put(key.clone(), statistics);
+			}
+			
+			for ( int i = 0; i < values.length; i++ )
+			{
+				statistics[i].add(get(values[i], row));
+			}
+		}
+		
+		return groups;
+	}
+	
+	/**
+	 * Prints the grouped means and confidence intervals of a store
+	 * @param args Directory of the store, optionally the group and value columns separated by commas
+	 * @throws IOException If the store can not be read
+	 */
+	public static void main ( String[] args ) throws IOException
+	{
+		if ( args.length < 1 )
+		{
+			System.err.println("Usage: ResultsReader <directory> [group columns|none] [value columns]");
+			System.exit(1);
+		}
+		
+		ResultsReader reader = new ResultsReader(args[0]);
+		
+		// By default group by point within a sweep, and aggregate the metrics
+		int[] group;
+		if ( args.length > 1 )
+		{
+			group = args[1].equals("none") ? new int[0] : reader.columns(args[1]);
+		}
+		else
+		{
+			group = new int[reader.numberParameters > 0 ? 1 + reader.numberParameters : 0];
+			for ( int i = 0; i < group.length; i++ )
+			{
+				group[i] = (i == 0) ? reader.column("point") : ResultsStore.KEY_COLUMNS + i - 1;
+			}
+		}
+		
+		int[] values;
+		if ( args.length > 2 )
+		{
+			values = reader.columns(args[2]);
+		}
+		else
+		{
+			values = new int[reader.names.length - ResultsStore.KEY_COLUMNS - reader.numberParameters - 1];
+			for ( int i = 0; i < values.length; i++ )
+			{
+				values[i] = ResultsStore.KEY_COLUMNS + reader.numberParameters + i;
+			}
+		}
+		
+		long start = System.nanoTime();
+		TreeMap<double[], RunningStatistics[]> groups = reader.aggregate(group, values);
+		long elapsed = System.nanoTime() - start;
+		
+		PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+		StringBuilder header = new StringBuilder();
+		for ( int c : group )
+		{
+			header.append(reader.names[c]).append('\t');
+		}
+		header.append("count");
+		for ( int c : values )
+		{
+			header.append('\t').append(reader.names[c]).append('\t').append(reader.names[c]).append("_halfwidth");
+		}
+		out.println(header.toString());
+		
+		for ( Map.Entry<double[], RunningStatistics[]> entry : groups.entrySet() )
+		{
+			StringBuilder line = new StringBuilder();
+			for ( int i = 0; i < group.length; i++ )
+			{
+				line.append(format(entry.getKey()[i], reader.types[group[i]])).append('\t');
+			}
+			RunningStatistics[] statistics = entry.getValue();
+			line.append(statistics.length > 0 ? statistics[0].count() : 0);
+			for ( RunningStatistics value : statistics )
+			{
+				line.append('\t').append(value.mean()).append('\t').append(value.halfWidth(Constants.CONFIDENCE_LEVEL));
+			}
+			out.println(line.toString());
+		}
+		out.flush();
+		
+		System.err.println(reader.rows() + " rows in " + groups.size() + " groups aggregated in " + (elapsed / 1000000) + " ms");
+	}
+	
+	/**
+	 * Finds columns by name
+	 * @param list Names of the columns separated by commas
+	 * @return Column indices
+	 */
+	private int[] columns ( String list )
+	{
+		String[] parts = list.split(",");
+		int[] indices = new int[parts.length];
+		for ( int i = 0; i < parts.length; i++ )
+		{
+			indices[i] = column(parts[i].trim());
+		}
+		return indices;
+	}
+	
+	/**
+	 * Formats a group value the way its column holds it
+	 * @param value Value
+	 * @param type Type of the column
+	 * @return Text of the value
+	 */
+	private static String format ( double value, byte type )
+	{
+		return (type == ResultsStore.DOUBLE) ? Double.toString(value) : Long.toString((long) value);
+	}
+}
@@ -0,0 +1,358 @@
+package printersimulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Appends the results of every replication to a columnar binary store, a
+ * directory holding one file of little endian primitives per column, so
+ * millions of replications across sweeps are kept without formatting text
+ * and can be aggregated by ResultsReader straight from mapped memory.
+ * A store can be appended to by any number of runs with the same columns.
+ */
+public class ResultsStore
+{
+	/**
+	 * ===============================
+	 * Store Format Documentation
+	 * ===============================
+	 * The file SCHEMA_FILE holds MAGIC, the number of columns, the number
+	 * of parameter columns and then the name and type of every column. Each
+	 * column is kept in <name>.col, one value per row, in the order:
+	 *  seed         long    master seed of the run
+	 *  point        int     point of the sweep, -1 outside a sweep
+	 *  replication  int     replication or batch number starting at 0
+	 *  <parameter>  double  value of every parameter of the sweep
+	 *  <metric>     double  every metric, in the order of Network.metricName
+	 *  warmupJobs   int     number of jobs discarded as warmup
+	 * Rows are buffered and written column by column. A run which stops
+	 * while writing can leave some columns a row longer than others, and
+	 * the next store opened on the directory cuts them back to the shortest.
+	 */
+	
+	// Marks a results store, PSRESLT1 in ASCII
+	public final static long MAGIC = 0x31544c5345525350L;
+	
+	// Name of the file holding the columns of the store
+	public final static String SCHEMA_FILE = "columns";
+	
+	// Types of the columns, as JVM type descriptors
+	public final static byte LONG = 'J';
+	public final static byte INT = 'I';
+	public final static byte DOUBLE = 'D';
+	
+	// Number of leading columns which identify a row: seed, point and replication
+	public final static int KEY_COLUMNS = 3;
+	
+	// Rows buffered before they are written
+	private final static int BUFFER_ROWS = 4096;
+	
+	// Directory of the store
+	private File directory;
+	
+	// Names and types of the columns
+	private String[] names;
+	private byte[] types;
+	
+	// Number of parameters of the sweep, 0 outside a sweep
+	private int numberParameters;
+	
+	// Files of the columns and the rows buffered for each
+	private FileChannel[] channels;
+	private ByteBuffer[] buffers;
+	
+	// Rows buffered so far
+	private int buffered = 0;
+	
+	// Rows in the store, written or buffered
+	private long rows;
+	
+	/**
+	 * Opens a store to append the replications of a network to, creating it if needed
+	 * @param path Directory of the store
+	 * @param network Network whose metrics are stored
+	 * @param parameters Names of the parameters of the sweep, empty outside a sweep
+	 */
+	public ResultsStore ( String path, Network network, String[] parameters )
+	{
+		directory = new File(path);
+		numberParameters = parameters.length;
+		
+		int count = KEY_COLUMNS + parameters.length + network.numberMetrics() + 1;
+		names = new String[count];
+		types = new byte[count];
+		names[0] = "seed";
+		types[0] = LONG;
+		names[1] = "point";
+		types[1] = INT;
+		names[2] = "replication";
+		types[2] = INT;
+		for ( int i = 0; i < parameters.length; i++ )
+		{
+			names[KEY_COLUMNS + i] = parameters[i];
+			types[KEY_COLUMNS + i] = DOUBLE;
+		}
+		for ( int m = 0; m < network.numberMetrics(); m++ )
+		{
+			names[KEY_COLUMNS + parameters.length + m] = network.metricName(m);
+			types[KEY_COLUMNS + parameters.length + m] = DOUBLE;
+		}
+		names[count - 1] = "warmupJobs";
+		types[count - 1] = INT;
+		
+		try
+		{
+			openColumns();
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not open results store " + path, e);
+		}
+	}
+	
+	/**
+	 * Gets the number of rows in the store
+	 * @return Number of rows, written or buffered
+	 */
+	public long rows ()
+	{
+		return rows;
+	}
+	
+	/**
+	 * Appends the results of a replication
+	 * @param seed Master seed of the run
+	 * @param point Point of the sweep, -1 outside a sweep
+	 * @param replication Replication or batch number starting at 0
+	 * @param parameters Values of the parameters of the point, null outside a sweep
+	 * @param row Every metric in the order of Network.metricName, then the warmup jobs
+	 */
+	public void append ( long seed, int point, int replication, double[] parameters, double[] row )
+	{
+		buffers[0].putLong(seed);
+		buffers[1].putInt(point);
+		buffers[2].putInt(replication);
+		
+		int c = KEY_COLUMNS;
+		for ( int i = 0; i < numberParameters; i++ )
+		{
+			buffers[c++].putDouble(parameters[i]);
+		}
+		int metrics = names.length - KEY_COLUMNS - numberParameters - 1;
+		for ( int m = 0; m < metrics; m++ )
+		{
+			buffers[c++].putDouble(row[m]);
+		}
+		buffers[c].putInt((int) row[metrics]);
+		
+		rows++;
+		if ( ++buffered == BUFFER_ROWS )
+		{
+			try
+			{
+				write();
+			}
+			catch ( IOException e )
+			{
+				throw new RuntimeException("Could not write results store " + directory, e);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the buffered rows and forces them to disk
+	 * @return Number of rows in the store
+	 */
+	public long flush ()
+	{
+		try
+		{
+			write();
+			for ( FileChannel channel : channels )
+			{
+				channel.force(false);
+			}
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not write results store " + directory, e);
+		}
+		return rows;
+	}
+	
+	/**
+	 * Drops the rows after a number of rows, those a resumed run records again
+	 * @param keep Number of rows kept
+	 */
+	public void truncate ( long keep )
+	{
+		flush();
+		
+		try
+		{
+			for ( int c = 0; c < channels.length; c++ )
+			{
+				channels[c].truncate(keep * width(types[c]));
+				channels[c].position(channels[c].size());
+			}
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not truncate results store " + directory, e);
+		}
+		rows = Math.min(rows, keep);
+	}
+	
+	/**
+	 * Writes the buffered rows and closes the files of the columns
+	 */
+	public void close ()
+	{
+		flush();
+		
+		for ( FileChannel channel : channels )
+		{
+			try
+			{
+				channel.close();
+			}
+			catch ( IOException e )
+			{
+				// Everything was forced to disk by the flush
+			}
+		}
+	}
+	
+	/**
+	 * Checks the columns of an existing store, or creates a new one, and
+	 * opens the files of the columns at their end
+	 * @throws IOException
+	 */
+	private void openColumns () throws IOException
+	{
+		File schema = new File(directory, SCHEMA_FILE);
+		if ( schema.exists() )
+		{
+			String[] existingNames;
+			byte[] existingTypes;
+			int existingParameters;
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(schema)));
+			try
+			{
+				if ( in.readLong() != MAGIC ) throw new IOException(schema + " is not the schema of a results store");
+				int count = in.readInt();
+				existingParameters = in.readInt();
+				existingNames = new String[count];
+				existingTypes = new byte[count];
+				for ( int c = 0; c < count; c++ )
+				{
+					existingNames[c] = in.readUTF();
+					existingTypes[c] = in.readByte();
+				}
+			}
+			finally
+			{
+				in.close();
+			}
+			
+			if ( existingParameters != numberParameters || !Arrays.equals(existingNames, names) || !Arrays.equals(existingTypes, types) )
+			{
+				throw new IllegalStateException("Results store " + directory + " holds different columns, " +
+						"use another directory for this configuration");
+			}
+		}
+		else
+		{
+			if ( !directory.isDirectory() && !directory.mkdirs() )
+			{
+				throw new IOException("Could not create " + directory);
+			}
+			
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(schema)));
+			try
+			{
+				out.writeLong(MAGIC);
+				out.writeInt(names.length);
+				out.writeInt(numberParameters);
+				for ( int c = 0; c < names.length; c++ )
+				{
+					out.writeUTF(names[c]);
+					out.writeByte(types[c]);
+				}
+			}
+			finally
+			{
+				out.close();
+			}
+		}
+		
+		channels = new FileChannel[names.length];
+		buffers = new ByteBuffer[names.length];
+		rows = Long.MAX_VALUE;
+		for ( int c = 0; c < names.length; c++ )
+		{
+			channels[c] = FileChannel.open(columnFile(directory, names[c]).toPath(),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			buffers[c] = ByteBuffer.allocateDirect(BUFFER_ROWS * width(types[c])).order(ByteOrder.LITTLE_ENDIAN);
+			rows = Math.min(rows, channels[c].size() / width(types[c]));
+		}
+		
+		// Rows only some of the columns got to before a crash are dropped
+		for ( int c = 0; c < names.length; c++ )
+		{
+			channels[c].truncate(rows * width(types[c]));
+			channels[c].position(rows * width(types[c]));
+		}
+	}
+	
+	/**
+	 * Writes the buffered rows of every column to its file
+	 * @throws IOException
+	 */
+	private void write () throws IOException
+	{
+		for ( int c = 0; c < names.length; c++ )
+		{
+			ByteBuffer buffer = buffers[c];
+			buffer.flip();
+			while ( buffer.hasRemaining() )
+			{
+				channels[c].write(buffer);
+			}
+			buffer.clear();
+		}
+		buffered = 0;
+	}
+	
+	/**
+	 * Gets the file of a column
+	 * @param directory Directory of the store
+	 * @param name Name of the column
+	 * @return File of the column
+	 */
+	public static File columnFile ( File directory, String name )
+	{
+		return new File(directory, name + ".col");
+	}
+	
+	/**
+	 * Gets the size of a value of a column
+	 * @param type Type of the column
+	 * @return Size in bytes
+	 */
+	public static int width ( byte type )
+	{
+		return (type == INT) ? 4 : 8;
+	}
+}
@@ -0,0 +1,185 @@
+package printersimulation;
+
+/**
+ * Online mean and variance of a series of observations using Welford's
+ * method, so observations never have to be kept around. Student t
+ * confidence intervals on the mean are available after every observation.
+ */
+public class RunningStatistics
+{
+	// Number of observations
+	private long count = 0;
+	
+	// Mean of the observations
+	private double mean = 0.0;
+	
+	// Sum of squared differences from the current mean
+	private double m2 = 0.0;
+	
+	/**
+	 * Adds an observation
+	 * @param x Observed value
+	 */
+	public void add ( double x )
+	{
+		count++;
+		double delta = x - mean;
+		mean += delta / count;
+		m2 += delta * (x - mean);
+	}
+	
+	/**
+	 * Gets the number of observations
+	 * @return Count
+	 */
+	public long count ()
+	{
+		return count;
+	}
+	
+	/**
+	 * Gets the mean of the observations
+	 * @return Mean, 0 if there are no observations
+	 */
+	public double mean ()
+	{
+		return mean;
+	}
+	
+	/**
+	 * Gets the sample variance of the observations
+	 * @return Variance, 0 if there are less than two observations
+	 */
+	public double variance ()
+	{
+		return (count > 1) ? m2 / (count - 1) : 0.0;
+	}
+	
+	/**
+	 * Gets the sample standard deviation of the observations
+	 * @return Standard deviation
+	 */
+	public double standardDeviation ()
+	{
+		return Math.sqrt(variance());
+	}
+	
+	/**
+	 * Gets the half width of the Student t confidence interval of the mean
+	 * @param confidence Confidence level, for example 0.95
+	 * @return Half width, infinite if there are less than two observations
+	 */
+	public double halfWidth ( double confidence )
+	{
+		if ( count < 2 ) return Double.POSITIVE_INFINITY;
+		
+		return studentT(1.0 - (1.0 - confidence) / 2.0, count - 1) * standardDeviation() / Math.sqrt(count);
+	}
+	
+	/**
+	 * Gets the lower bound of the confidence interval of the mean
+	 * @param confidence Confidence level, for example 0.95
+	 * @return Lower bound
+	 */
+	public double lower ( double confidence )
+	{
+		return mean - halfWidth(confidence);
+	}
+	
+	/**
+	 * Gets the upper bound of the confidence interval of the mean
+	 * @param confidence Confidence level, for example 0.95
+	 * @return Upper bound
+	 */
+	public double upper ( double confidence )
+	{
+		return mean + halfWidth(confidence);
+	}
+	
+	/**
+	 * Quantile of the Student t distribution using Hill's approximation
+	 * (G. W. Hill, Algorithm 396, 1970), accurate to about six digits
+	 * for the degrees of freedom and levels used for confidence intervals.
+	 * @param p Probability between 0.5 and 1
+	 * @param df Degrees of freedom
+	 * @return t value with P(T <= t) = p
+	 */
+	public static double studentT ( double p, long df )
+	{
+		double n = df;
+		
+		// Hill works with the two tailed probability
+		double P = 2.0 * (1.0 - p);
+		
+		if ( df == 1 )
+		{
+			return 1.0 / Math.tan(P * Math.PI / 2.0);
+		}
+		if ( df == 2 )
+		{
+			return Math.sqrt(2.0 / (P * (2.0 - P)) - 2.0);
+		}
+		
+		double a = 1.0 / (n - 0.5);
+		double b = 48.0 / (a * a);
+		double c = ((20700.0 * a / b - 98.0) * a - 16.0) * a + 96.36;
+		double d = ((94.5 / (b + c) - 3.0) / b + 1.0) * Math.sqrt(a * Math.PI / 2.0) * n;
+		double x = d * P;
+		double y = Math.pow(x, 2.0 / n);
+		
+		if ( y > 0.05 + a )
+		{
+			// Asymptotic inverse expansion about the normal
+			x = normalQuantile(0.5 * P);
+			y = x * x;
+			if ( df < 5 ) c += 0.3 * (n - 4.5) * (x + 0.6);
+			c = (((0.05 * d * x - 5.0) * x - 7.0) * x - 2.0) * x + b + c;
+			y = (((((0.4 * y + 6.3) * y + 36.0) * y + 94.5) / c - y - 3.0) / b + 1.0) * x;
+			y = Math.expm1(a * y * y);
+		}
+		else
+		{
+			y = ((1.0 / (((n + 6.0) / (n * y) - 0.089 * d - 0.822) * (n + 2.0) * 3.0)
+					+ 0.5 / (n + 4.0)) * y - 1.0) * (n + 1.0) / (n + 2.0) + 1.0 / y;
+		}
+		
+		return Math.sqrt(n * y);
+	}
+	
+	/**
+	 * Quantile of the standard normal distribution using Acklam's rational
+	 * approximation, relative error below 1.2e-9
+	 * @param p Probability between 0 and 1
+	 * @return z value with P(Z <= z) = p
+	 */
+	public static double normalQuantile ( double p )
+	{
+		final double[] a = { -3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+				1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00 };
+		final double[] b = { -5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+				6.680131188771972e+01, -1.328068155288572e+01 };
+		final double[] c = { -7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+				-2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00 };
+		final double[] d = { 7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+				3.754408661907416e+00 };
+		final double low = 0.02425;
+		
+		if ( p < low )
+		{
+			double q = Math.sqrt(-2.0 * Math.log(p));
+			return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+					/ ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1.0);
+		}
+		if ( p > 1.0 - low )
+		{
+			double q = Math.sqrt(-2.0 * Math.log(1.0 - p));
+			return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+					/ ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1.0);
+		}
+		
+		double q = p - 0.5;
+		double r = q * q;
+		return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+				/ (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1.0);
+	}
+}
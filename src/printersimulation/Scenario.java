@@ -0,0 +1,192 @@
+package printersimulation;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * A configuration of the printer network to simulate, read at runtime from
+ * a properties file, so that trying other parameters does not take a
+ * recompile. Settings the file leaves out keep the values of Constants.
+ */
+public class Scenario
+{
+	/**
+	 * ===============================
+	 * Scenario File Documentation
+	 * ===============================
+	 * A scenario file is a Java properties file, for example
+	 *   name=Bigger buffer
+	 *   arrival.PCGROUP1=18
+	 *   service.LaserJet=5.5
+	 *   capacity.LaserJet=15
+	 *   replications=50
+	 *   warmupJobs=2000
+	 *   jobs=20000
+	 *   seed=12345
+	 * Every key other than name, replications, warmupJobs, jobs, seed and
+	 * batchMeansJobs is a parameter of Network.setParameter: arrival.<source> and
+	 * service.<station> set mean times, capacity.<station> sets the buffer
+	 * size of a station and servers.<station> its number of servers. The
+	 * name defaults to the file name without its extension.
+	 * The long run of the batch means mode is batchMeansJobs long, or
+	 * -Dsimulation.batchMeansJobs, or else as long as all the replications
+	 * of the scenario. Sequential stopping picks the number of replications
+	 * itself, so a scenario for it can not set replications.
+	 */
+	
+	// Extension of the scenario files of a directory
+	public final static String EXTENSION = ".properties";
+	
+	// Name of the scenario
+	public String name;
+	
+	// Network with the parameters of the scenario
+	public Network network;
+	
+	// Number of replications
+	public int replications = Constants.SIMULATION_REPLICATION;
+	
+	// Number of jobs to warm up the simulation and to process after warm up
+	public int warmupJobs = Constants.NUMBER_JOBS_WARMUP;
+	public int measuredJobs = Constants.NUMBER_JOBS;
+	
+	// Number of jobs in the long run of the batch means mode, warmup included
+	public int batchMeansJobs = Constants.BATCH_MEANS_JOBS;
+	
+	// Master seed every random number stream is derived from
+	public long masterSeed = Constants.MASTER_SEED;
+	
+	/**
+	 * Sets up a scenario of the printer network with the settings of Constants
+	 * @param name Name of the scenario
+	 */
+	public Scenario ( String name )
+	{
+		this.name = name;
+		this.network = Network.printerNetwork();
+	}
+	
+	/**
+	 * Reads a scenario file
+	 * @param file Scenario file
+	 * @return Scenario
+	 */
+	public static Scenario load ( File file )
+	{
+		Properties properties = new Properties();
+		try
+		{
+			Reader in = new FileReader(file);
+			try
+			{
+				properties.load(in);
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not read scenario " + file, e);
+		}
+		
+		String fileName = file.getName();
+		if ( fileName.endsWith(EXTENSION) ) fileName = fileName.substring(0, fileName.length() - EXTENSION.length());
+		Scenario scenario = new Scenario(properties.getProperty("name", fileName).trim());
+		
+		// Sorted so that parameters are applied in the same order every time
+		for ( String key : new TreeSet<String>(properties.stringPropertyNames()) )
+		{
+			String value = properties.getProperty(key).trim();
+			try
+			{
+				scenario.set(key.trim(), value);
+			}
+			catch ( IllegalArgumentException e )
+			{
+				throw new IllegalArgumentException("Scenario " + file + " sets " + key + ": " + e.getMessage(), e);
+			}
+		}
+		
+		if ( scenario.replications < 2 || scenario.measuredJobs < 1 || scenario.warmupJobs < 0 )
+		{
+			throw new IllegalArgumentException("Scenario " + file + " needs at least 2 replications and 1 job");
+		}
+		if ( Constants.SEQUENTIAL_STOPPING && properties.containsKey("replications") )
+		{
+			throw new IllegalArgumentException("Scenario " + file + " sets replications, which sequential stopping picks " +
+					"between simulation.minReplications and simulation.maxReplications");
+		}
+		
+		// Unless given, the long run of the batch means mode is as long as the replications
+		if ( !properties.containsKey("batchMeansJobs") && System.getProperty("simulation.batchMeansJobs") == null )
+		{
+			scenario.batchMeansJobs = scenario.replications * (scenario.warmupJobs + scenario.measuredJobs);
+		}
+		return scenario;
+	}
+	
+	/**
+	 * Finds the scenario files of a directory, in the order of their names
+	 * @param directory Directory of scenario files, or a single scenario file
+	 * @return Scenario files
+	 */
+	public static File[] files ( File directory )
+	{
+		if ( !directory.isDirectory() ) return new File[] { directory };
+		
+		TreeSet<File> files = new TreeSet<File>();
+		File[] listed = directory.listFiles();
+		if ( listed == null )
+		{
+			throw new RuntimeException("Could not list scenarios in " + directory);
+		}
+		for ( File file : listed )
+		{
+			if ( file.isFile() && file.getName().endsWith(EXTENSION) ) files.add(file);
+		}
+		return files.toArray(new File[files.size()]);
+	}
+	
+	/**
+	 * Changes a setting of the scenario
+	 * @param key name, replications, warmupJobs, jobs, seed, batchMeansJobs or a parameter of Network.setParameter
+	 * @param value New value
+	 */
+	public void set ( String key, String value )
+	{
+		if ( key.equals("name") )
+		{
+			name = value;
+		}
+		else if ( key.equals("replications") )
+		{
+			replications = Integer.parseInt(value);
+		}
+		else if ( key.equals("warmupJobs") )
+		{
+			warmupJobs = Integer.parseInt(value);
+		}
+		else if ( key.equals("jobs") )
+		{
+			measuredJobs = Integer.parseInt(value);
+		}
+		else if ( key.equals("seed") )
+		{
+			masterSeed = Long.parseLong(value);
+		}
+		else if ( key.equals("batchMeansJobs") )
+		{
+			batchMeansJobs = Integer.parseInt(value);
+		}
+		else
+		{
+			network.setParameter(key, Double.parseDouble(value));
+		}
+	}
+}
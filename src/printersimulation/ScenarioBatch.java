@@ -0,0 +1,123 @@
+package printersimulation;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs the scenario files of one or more directories one after another
+ * within one JVM. The scenarios share the pool the replications run on and
+ * the code the JIT compiler has already warmed up, so a nightly batch only
+ * pays for starting a JVM once. Run with
+ * java printersimulation.PrinterSimulation <directory|file>...
+ */
+public class ScenarioBatch
+{
+	// Scenario files in the order they are run
+	private ArrayList<File> files = new ArrayList<File>();
+	
+	// Names and simulations of the scenarios which finished
+	private ArrayList<String> names = new ArrayList<String>();
+	private ArrayList<Simulator> simulators = new ArrayList<Simulator>();
+	
+	/**
+	 * Sets up a batch of the scenario files of directories
+	 * @param paths Directories of scenario files, or scenario files
+	 */
+	public ScenarioBatch ( String[] paths )
+	{
+		for ( String path : paths )
+		{
+			for ( File file : Scenario.files(new File(path)) )
+			{
+				files.add(file);
+			}
+		}
+		
+		if ( files.isEmpty() )
+		{
+			throw new IllegalArgumentException("No scenario files (*" + Scenario.EXTENSION + ") found");
+		}
+	}
+	
+	/**
+	 * Runs every scenario and prints a summary of them, a scenario which
+	 * fails is reported and the batch goes on with the next one
+	 * @return True if every scenario finished
+	 */
+	public boolean run ()
+	{
+		// The settings of these are files, which every scenario would write over,
+		// and rows of a results store would not say which scenario they belong to
+		if ( Constants.WORKERS > 0 || Constants.COORDINATOR_PORT > 0 || !Constants.CHECKPOINT.isEmpty()
+				|| !Constants.TRACE.isEmpty() || !Constants.RESULTS.isEmpty() )
+		{
+			throw new IllegalStateException("Scenarios can not be run on workers, with checkpoints, a trace or a results store");
+		}
+		
+		ForkJoinPool pool = null;
+		if ( Constants.PARALLEL_REPLICATIONS )
+		{
+			pool = Constants.REPLICATION_THREADS > 0
+					? new ForkJoinPool(Constants.REPLICATION_THREADS) : new ForkJoinPool();
+		}
+		
+		int failed = 0;
+		for ( File file : files )
+		{
+			System.out.println("===============================");
+			try
+			{
+				Scenario scenario = Scenario.load(file);
+				System.out.println("Scenario: " + scenario.name + " (" + file + ")\n");
+				
+				Simulator simulator = new Simulator(scenario);
+				simulator.setPool(pool);
+				simulator.run();
+				
+				names.add(scenario.name);
+				simulators.add(simulator);
+			}
+			catch ( RuntimeException e )
+			{
+				System.out.println("Scenario " + file + " failed: " + e.getMessage());
+				failed++;
+			}
+			System.out.println();
+		}
+		
+		if ( pool != null )
+		{
+			pool.shutdown();
+		}
+		
+		printSummary(failed);
+		return failed == 0;
+	}
+	
+	/**
+	 * Prints the mean and half width of every metric of every scenario
+	 * @param failed Number of scenarios which failed
+	 */
+	private void printSummary ( int failed )
+	{
+		System.out.println("===============================");
+		System.out.println("Scenarios: " + simulators.size() + " finished, " + failed + " failed\n");
+		
+		double confidence = Constants.CONFIDENCE_LEVEL;
+		for ( int i = 0; i < simulators.size(); i++ )
+		{
+			Simulator simulator = simulators.get(i);
+			Network network = simulator.getNetwork();
+			
+			StringBuilder row = new StringBuilder(names.get(i));
+			for ( int m = 0; m < network.numberMetrics(); m++ )
+			{
+				RunningStatistics metric = simulator.statistics.metrics[m];
+				row.append("\t\t").append(network.metricName(m)).append(' ')
+						.append(metric.mean()).append(" +- ").append(metric.halfWidth(confidence));
+			}
+			System.out.println(row.toString());
+		}
+	}
+}
@@ -0,0 +1,274 @@
+package printersimulation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Holds all the mutable state that belongs to a single simulation
+ * replication, so that replications can run side by side on different
+ * threads without sharing the random number seed or the job id counter.
+ */
+public class SimulationContext
+{
+	// Network the jobs travel through
+	public Network network;
+	
+	// Random number streams of the arrivals, indexed by source id
+	private NumberGenerator[] arrivalStreams;
+	
+	// Every random number stream of the replication, arrivals, services then routing
+	private NumberGenerator[] generators;
+	
+	// Next sampled arrival time of every source, the jobs are only
+	// created once their arrival comes up
+	public ArrivalTree arrivals;
+	
+	// Log the arrivals are replayed from, null if they are sampled
+	public ArrivalLog arrivalLog = null;
+	
+	// Handlers of the events of every station, indexed by station id
+	public StationHandler[] handlers;
+	
+	// Manages the job events of this replication
+	public JobManager jobs;
+	
+	// Future event list of the jobs, of the partitions too
+	public EventListType eventList;
+	
+	// Runtime counters of this replication, null unless Constants.METRICS is on
+	public ReplicationMetrics metrics = null;
+	
+	// Writes the events of this replication to the trace, null if not traced
+	public TraceWriter trace = null;
+	
+	// Checkpoint the state is saved to while the run goes on, null unless
+	// this is the long run of the batch means mode and checkpoints are on
+	public Checkpoint checkpoint = null;
+	
+	// Partitions running the events of this replication on several threads,
+	// null if they run in the event loop of the simulator
+	public ParallelRun parallel = null;
+	
+	// Job ID counter for this replication
+	private int incrementalId = 0;
+	
+	/**
+	 * Sets up a new context for a replication
+	 * @param network Network the jobs travel through
+	 * @param streams Random number streams of the simulation
+	 * @param replication Replication number starting at 0
+	 */
+	public SimulationContext ( Network network, RandomStreams streams, int replication )
+	{
+		this(network, streams, replication, false);
+	}
+	
+	/**
+	 * Sets up a new context for a replication
+	 * @param network Network the jobs travel through
+	 * @param streams Random number streams of the simulation
+	 * @param replication Replication number starting at 0
+	 * @param antithetic Run on the antithetic streams of the replication
+	 */
+	public SimulationContext ( Network network, RandomStreams streams, int replication, boolean antithetic )
+	{
+		this(network, streams, replication, antithetic, EventListType.valueOf(Constants.EVENT_LIST));
+	}
+	
+	/**
+	 * Sets up a new context for a replication
+	 * @param network Network the jobs travel through
+	 * @param streams Random number streams of the simulation
+	 * @param replication Replication number starting at 0
+	 * @param antithetic Run on the antithetic streams of the replication
+	 * @param eventList Future event list of the jobs
+	 */
+	public SimulationContext ( Network network, RandomStreams streams, int replication, boolean antithetic, EventListType eventList )
+	{
+		this.network = network;
+		this.eventList = eventList;
+		jobs = new JobManager(eventList);
+		
+		arrivalStreams = new NumberGenerator[network.numberSources()];
+		for ( int i = 0; i < arrivalStreams.length; i++ )
+		{
+			arrivalStreams[i] = streams.stream(replication, network.arrivalStreamIndex(i), antithetic);
+		}
+		arrivals = new ArrivalTree(arrivalStreams.length);
+		
+		if ( network.getArrivalLog() != null )
+		{
+			arrivalLog = ArrivalLog.open(network.getArrivalLog(), Constants.ARRIVAL_LOG_SCALE, network);
+		}
+		
+		if ( Constants.METRICS )
+		{
+			metrics = new ReplicationMetrics(network, replication);
+		}
+		
+		generators = new NumberGenerator[network.streamsPerReplication()];
+		for ( int i = 0; i < arrivalStreams.length; i++ )
+		{
+			generators[network.arrivalStreamIndex(i)] = arrivalStreams[i];
+		}
+		
+		handlers = new StationHandler[network.size()];
+		for ( int s = 0; s < handlers.length; s++ )
+		{
+			int routing = network.routingStreamIndex(s);
+			NumberGenerator service = streams.stream(replication, network.serviceStreamIndex(s), antithetic);
+			generators[network.serviceStreamIndex(s)] = service;
+			if ( routing >= 0 ) generators[routing] = streams.stream(replication, routing, antithetic);
+			handlers[s] = new MultiServerStation(network.station(s), service, (routing >= 0) ? generators[routing] : null);
+		}
+	}
+	
+	/**
+	 * Gets the random number stream of the arrivals from a job source
+	 * @param source Source id
+	 * @return NumberGenerator
+	 */
+	public NumberGenerator arrivalStream ( int source )
+	{
+		return arrivalStreams[source];
+	}
+	
+	/**
+	 * Hands out the next unique job id
+	 * @return Job ID
+	 */
+	public int nextJobId ()
+	{
+		incrementalId = incrementalId + 1;
+		return incrementalId;
+	}
+	
+	/**
+	 * Writes the jobs, the pending arrivals, the station queues, the random
+	 * number streams and the job id counter to a checkpoint, between two events
+	 * @param out Checkpoint being written
+	 * @throws IOException
+	 */
+	public void writeState ( DataOutput out ) throws IOException
+	{
+		out.writeInt(incrementalId);
+		for ( int i = 0; i < arrivalStreams.length; i++ )
+		{
+			arrivalStreams[i].writeState(out);
+		}
+		arrivals.writeState(out);
+		
+		// The event list is written as its jobs in insertion order
+		// and built again by inserting them
+		jobs.getStore().writeState(out);
+		int[] pending = jobs.pendingJobs();
+		out.writeInt(pending.length);
+		for ( int i = 0; i < pending.length; i++ )
+		{
+			out.writeInt(pending[i]);
+		}
+		
+		for ( int s = 0; s < handlers.length; s++ )
+		{
+			handlers[s].writeState(out);
+		}
+		
+		if ( arrivalLog != null )
+		{
+			arrivalLog.writeState(out);
+		}
+	}
+	
+	/**
+	 * Puts the replication back in the state written to a checkpoint,
+	 * the context has to have been reset first
+	 * @param in Checkpoint being read
+	 * @throws IOException
+	 */
+	public void readState ( DataInput in ) throws IOException
+	{
+		incrementalId = in.readInt();
+		for ( int i = 0; i < arrivalStreams.length; i++ )
+		{
+			arrivalStreams[i].readState(in);
+		}
+		arrivals.readState(in);
+		
+		jobs.getStore().readState(in);
+		int pending = in.readInt();
+		for ( int i = 0; i < pending; i++ )
+		{
+			jobs.insert(in.readInt());
+		}
+		
+		for ( int s = 0; s < handlers.length; s++ )
+		{
+			handlers[s].readState(in);
+		}
+		
+		if ( arrivalLog != null )
+		{
+			arrivalLog.readState(in);
+		}
+	}
+	
+	/**
+	 * Puts the replication in the state another replication wrote, a warmed
+	 * up system, while every random number stream stays where it is, so the
+	 * replication goes on from there on its own streams. The context has to
+	 * have been reset first.
+	 * @param in State written by the other replication
+	 * @throws IOException
+	 */
+	public void branch ( DataInput in ) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for ( int i = 0; i < generators.length; i++ )
+		{
+			generators[i].writeState(out);
+		}
+		out.flush();
+		
+		readState(in);
+		
+		DataInputStream own = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for ( int i = 0; i < generators.length; i++ )
+		{
+			generators[i].readState(own);
+		}
+	}
+	
+	/**
+	 * Clears the jobs and the job id counter before a new run,
+	 * the random number streams carry on where they left off and
+	 * the arrival log is replayed from its start
+	 */
+	public void reset ()
+	{
+		if ( parallel != null )
+		{
+			parallel.close();
+			parallel = null;
+		}
+		
+		incrementalId = 0;
+		jobs.clear();
+		arrivals.clear();
+		
+		if ( arrivalLog != null )
+		{
+			arrivalLog.rewind();
+		}
+		
+		for ( int s = 0; s < handlers.length; s++ )
+		{
+			handlers[s].reset();
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package printersimulation;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Runtime metrics of every replication of the JVM, gathered while they run.
+ * Replications count their events in their own ReplicationMetrics and add
+ * them here every few thousand events, so the counters only cost a lock
+ * now and then rather than on every event. The whole of it is behind the
+ * static final Constants.METRICS, so when it is off the JIT compiler
+ * removes the counting from the event loop altogether.
+ */
+public class SimulationMetrics implements SimulationMetricsMBean
+{
+	// Name the metrics are registered under with the platform MBean server
+	public final static String OBJECT_NAME = "printersimulation:type=SimulationMetrics";
+	
+	// The metrics of the JVM, set up on first use
+	private static SimulationMetrics instance = null;
+	
+	// Counters over every replication
+	private long events = 0;
+	private long arrivals = 0;
+	private long jobsExited = 0;
+	private String[] stationNames = new String[0];
+	private long[] departures = new long[0];
+	private long[] rejections = new long[0];
+	private int highWaterMark = 0;
+	
+	// Wall time of the replications
+	private long replications = 0;
+	private long lastReplicationNanos = 0;
+	private long totalReplicationNanos = 0;
+	
+	// Events and wall time when the events per second were last read
+	private long sampleEvents = 0;
+	private long sampleNanos = System.nanoTime();
+	
+	/**
+	 * Gets the metrics of the JVM, registering them with the platform MBean
+	 * server and Flight Recorder the first time
+	 * @return SimulationMetrics
+	 */
+	public static synchronized SimulationMetrics get ()
+	{
+		if ( instance == null )
+		{
+			instance = new SimulationMetrics();
+			
+			try
+			{
+				ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(OBJECT_NAME));
+			}
+			catch ( JMException e )
+			{
+				System.err.println("Could not register " + OBJECT_NAME + ": " + e);
+			}
+			
+			FlightRecorder.addPeriodicEvent(ThroughputEvent.class, new Runnable()
+			{
+				// Events when the throughput was last sampled
+				private long lastEvents = 0;
+				private long lastNanos = System.nanoTime();
+				
+				public void run ()
+				{
+					long now = System.nanoTime();
+					long total = instance.getEventsProcessed();
+					
+					ThroughputEvent event = new ThroughputEvent();
+					event.eventsProcessed = total;
+					event.eventsPerSecond = (total - lastEvents) * 1e9 / Math.max(1, now - lastNanos);
+					event.eventListHighWaterMark = instance.getEventListHighWaterMark();
+					event.commit();
+					
+					lastEvents = total;
+					lastNanos = now;
+				}
+			});
+		}
+		
+		return instance;
+	}
+	
+	/**
+	 * Makes sure the station counters cover a network
+	 * @param network Network of stations
+	 */
+	public synchronized void register ( Network network )
+	{
+		if ( network.size() > stationNames.length )
+		{
+			departures = Arrays.copyOf(departures, network.size());
+			rejections = Arrays.copyOf(rejections, network.size());
+			stationNames = new String[network.size()];
+		}
+		
+		for ( int s = 0; s < network.size(); s++ )
+		{
+			stationNames[s] = network.station(s).name;
+		}
+	}
+	
+	/**
+	 * Adds the counts of a replication since it last added them
+	 * @param replication Counts of the replication, set back to zero
+	 * @param numberEvents Number of events processed
+	 * @param eventListSize Largest size of the event list of the replication
+	 */
+	synchronized void add ( ReplicationMetrics replication, long numberEvents, int eventListSize )
+	{
+		events += numberEvents;
+		arrivals += replication.arrivals;
+		jobsExited += replication.jobsExited;
+		for ( int s = 0; s < replication.departures.length; s++ )
+		{
+			departures[s] += replication.departures[s];
+			rejections[s] += replication.rejections[s];
+		}
+		highWaterMark = Math.max(highWaterMark, eventListSize);
+	}
+	
+	/**
+	 * Records the wall time of a finished replication
+	 * @param nanos Wall time in nanoseconds
+	 */
+	synchronized void replicationFinished ( long nanos )
+	{
+		replications++;
+		lastReplicationNanos = nanos;
+		totalReplicationNanos += nanos;
+	}
+	
+	public synchronized long getEventsProcessed ()
+	{
+		return events;
+	}
+	
+	public synchronized double getEventsPerSecond ()
+	{
+		long now = System.nanoTime();
+		double rate = (events - sampleEvents) * 1e9 / Math.max(1, now - sampleNanos);
+		
+		sampleEvents = events;
+		sampleNanos = now;
+		return rate;
+	}
+	
+	public synchronized long getArrivals ()
+	{
+		return arrivals;
+	}
+	
+	public synchronized long getJobsExited ()
+	{
+		return jobsExited;
+	}
+	
+	public synchronized String[] getStationNames ()
+	{
+		return stationNames.clone();
+	}
+	
+	public synchronized long[] getStationDepartures ()
+	{
+		return departures.clone();
+	}
+	
+	public synchronized long[] getStationRejections ()
+	{
+		return rejections.clone();
+	}
+	
+	public synchronized int getEventListHighWaterMark ()
+	{
+		return highWaterMark;
+	}
+	
+	public synchronized long getReplicationsCompleted ()
+	{
+		return replications;
+	}
+	
+	public synchronized double getLastReplicationMillis ()
+	{
+		return lastReplicationNanos / 1e6;
+	}
+	
+	public synchronized double getAverageReplicationMillis ()
+	{
+		return (replications > 0) ? totalReplicationNanos / 1e6 / replications : 0.0;
+	}
+	
+	public synchronized void reset ()
+	{
+		events = 0;
+		arrivals = 0;
+		jobsExited = 0;
+		Arrays.fill(departures, 0);
+		Arrays.fill(rejections, 0);
+		highWaterMark = 0;
+		replications = 0;
+		lastReplicationNanos = 0;
+		totalReplicationNanos = 0;
+		sampleEvents = 0;
+		sampleNanos = System.nanoTime();
+	}
+}
@@ -0,0 +1,81 @@
+package printersimulation;
+
+/**
+ * Management interface of the runtime metrics of the simulation, registered
+ * with the platform MBean server as printersimulation:type=SimulationMetrics
+ * when the simulation runs with -Dsimulation.metrics=true.
+ */
+public interface SimulationMetricsMBean
+{
+	/**
+	 * Gets the number of events processed over every replication
+	 * @return Number of events
+	 */
+	long getEventsProcessed ();
+	
+	/**
+	 * Gets the number of events processed per second of wall time
+	 * since this attribute was last read
+	 * @return Events per second
+	 */
+	double getEventsPerSecond ();
+	
+	/**
+	 * Gets the number of jobs that arrived at the system
+	 * @return Number of arrivals
+	 */
+	long getArrivals ();
+	
+	/**
+	 * Gets the number of jobs that exited the system, served or turned away
+	 * @return Number of jobs
+	 */
+	long getJobsExited ();
+	
+	/**
+	 * Gets the short names of the stations, in the order of the station counters
+	 * @return Station names
+	 */
+	String[] getStationNames ();
+	
+	/**
+	 * Gets the number of services finished at every station
+	 * @return Departures indexed by station id
+	 */
+	long[] getStationDepartures ();
+	
+	/**
+	 * Gets the number of jobs turned away by every station because its buffer was full
+	 * @return Rejections indexed by station id
+	 */
+	long[] getStationRejections ();
+	
+	/**
+	 * Gets the largest number of events held by the future event list of any replication
+	 * @return High water mark
+	 */
+	int getEventListHighWaterMark ();
+	
+	/**
+	 * Gets the number of replications finished
+	 * @return Number of replications
+	 */
+	long getReplicationsCompleted ();
+	
+	/**
+	 * Gets the wall time of the replication which finished last
+	 * @return Milliseconds
+	 */
+	double getLastReplicationMillis ();
+	
+	/**
+	 * Gets the average wall time of the finished replications
+	 * @return Milliseconds
+	 */
+	double getAverageReplicationMillis ();
+	
+	/**
+	 * Sets every counter back to zero
+	 */
+	void reset ();
+}
@@ -0,0 +1,455 @@
+package printersimulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A Simulation Report are all the measured values that
+ * are ran within a simulation. They can be combined
+ * within an ArrayList to obtain averages.
+ * @author Jamie Chung <jfchung@vt.edu>
+ *
+ */
+public class SimulationReport
+{
+	// Percentiles of the distributions measured for every replication, none if empty
+	public final static double[] PERCENTILES = levels(Constants.PERCENTILES);
+	
+	// Number of jobs that exited the system, served or turned away
+	public int numberJobs = 0;
+	
+	// Number of jobs that exited the system after being served
+	public int completedJobs = 0;
+	
+	// Number of events processed during the simulation
+	public long numberEvents = 0;
+	
+	// Simulator Clock
+	public double clock = 0.0;
+	
+	// Clock when the measurement started, after any warmup
+	public double startClock = 0.0;
+	
+	// Number of jobs discarded as warmup before the measurement started
+	public int warmupJobs = 0;
+	
+	// History measures execution times for the jobs
+	
+	public double jobHistory = 0.0;
+	
+	// Execution time spent by each station divided by its number
+	// of servers, indexed by station id
+	public double[] stationHistory;
+	
+	// Used to help compute L
+	public double totalArea;
+	public double prevArea;
+	public int prevJobTotal;
+	public double prevClock;
+	
+	// Jobs waiting in the queue of every station and the clock it last changed at
+	public int[] queueLength;
+	public double[] queueClock;
+	
+	// Distributions of the time jobs spend in the system, of the time they wait
+	// at every station and of the time weighted queue length of every station,
+	// null unless they are measured
+	public LogHistogram systemTimes = null;
+	public LogHistogram[] waitingTimes = null;
+	public LogHistogram[] queueLengths = null;
+	
+	/**
+	 * Every Simulation Report needs to know the number
+	 * of jobs in order to proper generate internal averages
+	 * @param numberJobs Number of jobs within simulation
+	 * @param numberStations Number of stations of the network
+	 */
+	public SimulationReport ( int numberJobs, int numberStations )
+	{
+		this.numberJobs = numberJobs;
+		
+		stationHistory = new double[numberStations];
+		queueLength = new int[numberStations];
+		queueClock = new double[numberStations];
+	}
+	
+	/**
+	 * Starts measuring the distributions from the current clock, which
+	 * only happens if Constants.PERCENTILES asks for any percentiles
+	 */
+	public void recordDistributions ()
+	{
+		if ( PERCENTILES.length > 0 ) createDistributions();
+	}
+	
+	/**
+	 * Creates the empty histograms of the distributions
+	 */
+	private void createDistributions ()
+	{
+		systemTimes = new LogHistogram();
+		waitingTimes = new LogHistogram[stationHistory.length];
+		queueLengths = new LogHistogram[stationHistory.length];
+		for ( int s = 0; s < stationHistory.length; s++ )
+		{
+			waitingTimes[s] = new LogHistogram();
+			queueLengths[s] = new LogHistogram();
+		}
+	}
+	
+	/**
+	 * Starts the measurement over from the current clock. The jobs in
+	 * the system are kept so the simulation carries on from a warm system,
+	 * only the measured histories are cleared.
+	 * @param numberJobs Number of jobs within the measurement
+	 */
+	public void resetStatistics ( int numberJobs )
+	{
+		this.numberJobs = numberJobs;
+		
+		completedJobs = 0;
+		jobHistory = 0.0;
+		Arrays.fill(stationHistory, 0.0);
+		
+		// Close the area up to now so that it starts from zero at this clock
+		updateAverageNumberJobs(prevJobTotal);
+		totalArea = 0.0;
+		startClock = clock;
+		
+		// The queues keep their lengths but not the time before this clock
+		Arrays.fill(queueClock, clock);
+		if ( systemTimes != null )
+		{
+			systemTimes.clear();
+			for ( int s = 0; s < stationHistory.length; s++ )
+			{
+				waitingTimes[s].clear();
+				queueLengths[s].clear();
+			}
+		}
+	}
+	
+	/**
+	 * Pools the measurements of another run into this report, as if the
+	 * two runs had been measured one after the other. Used to combine an
+	 * antithetic pair of runs into a single replication.
+	 * @param other Report of the other run
+	 */
+	public void add ( SimulationReport other )
+	{
+		double length = elapsed() + other.elapsed();
+		totalArea = currentArea() + other.currentArea();
+		
+		numberJobs += other.numberJobs;
+		completedJobs += other.completedJobs;
+		numberEvents += other.numberEvents;
+		warmupJobs += other.warmupJobs;
+		jobHistory += other.jobHistory;
+		for ( int s = 0; s < stationHistory.length; s++ )
+		{
+			stationHistory[s] += other.stationHistory[s];
+		}
+		
+		if ( systemTimes != null && other.systemTimes != null )
+		{
+			systemTimes.add(other.systemTimes);
+			for ( int s = 0; s < stationHistory.length; s++ )
+			{
+				waitingTimes[s].add(other.waitingTimes[s]);
+				queueLengths[s].add(other.queueLengths[s]);
+			}
+		}
+		
+		clock = startClock + length;
+		prevClock = clock;
+	}
+	
+	/**
+	 * Time covered by the measurement
+	 * @return Simulated time since the measurement started
+	 */
+	public double elapsed ()
+	{
+		return clock - startClock;
+	}
+	
+	/**
+	 * Area under the number of jobs in the system up to the current clock
+	 * @return Total area including the time since the last update
+	 */
+	public double currentArea ()
+	{
+		return totalArea + prevJobTotal * (clock - prevClock);
+	}
+	
+	/**
+	 * Computes the utilization score of a station for the simulation,
+	 * averaged over its servers
+	 * @param station Station id
+	 * @return Utilization Score
+	 */
+	public double utilization ( int station )
+	{
+		return stationHistory[station] / elapsed();
+	}
+	
+	/**
+	 * Computes the average time for a job to complete
+	 * the simulation, over the jobs which were served
+	 * @return Average Time 
+	 */
+	public double averageTime ()
+	{
+		return jobHistory / completedJobs;
+	}
+	
+	/**
+	 * Computes the average number of jobs at a given
+	 * time during the simulation
+	 * @return Average Number of Jobs
+	 */
+	public double averageNumberJobs ()
+	{
+		return (totalArea / elapsed());
+	}
+	
+	/**
+	 * Helper method to help to compute the average number
+	 * of jobs within the simulation. Uses the simulator clock to record
+	 * the area based on delta job event times within the system
+	 * @param currentJobTotal
+	 */
+	public void updateAverageNumberJobs (int currentJobTotal)
+	{
+		double area = prevJobTotal * (clock - prevClock);
+		totalArea += area;
+		
+		prevJobTotal = currentJobTotal;
+		prevClock = clock;
+	}
+	
+	/**
+	 * Adds the service a station has started at the current clock
+	 * @param station Station id
+	 * @param amount Service time divided by the number of servers of the station
+	 */
+	public void addService ( int station, double amount )
+	{
+		stationHistory[station] += amount;
+	}
+	
+	/**
+	 * Records the time a job waited at a station before its service
+	 * started at the current clock, if the waiting times are measured
+	 * @param station Station id
+	 * @param wait Time the job waited
+	 */
+	public void recordWait ( int station, double wait )
+	{
+		if ( waitingTimes != null ) waitingTimes[station].record(wait);
+	}
+	
+	/**
+	 * Changes the length of the queue of a station at the current clock,
+	 * recording the time the queue had its last length
+	 * @param station Station id
+	 * @param length Number of jobs waiting in the queue
+	 */
+	public void updateQueueLength ( int station, int length )
+	{
+		if ( queueLengths != null )
+		{
+			queueLengths[station].record(queueLength[station], clock - queueClock[station]);
+		}
+		queueLength[station] = length;
+		queueClock[station] = clock;
+	}
+	
+	/**
+	 * Records the time every queue has had its current length up to the
+	 * clock, called once the run has ended
+	 */
+	public void updateQueueLengths ()
+	{
+		for ( int s = 0; s < queueLength.length; s++ )
+		{
+			updateQueueLength(s, queueLength[s]);
+		}
+	}
+	
+	/**
+	 * Gets the number of percentiles of the report, none if the
+	 * distributions were not measured
+	 * @return Number of percentiles
+	 */
+	public int numberPercentiles ()
+	{
+		if ( systemTimes == null ) return 0;
+		return PERCENTILES.length * (1 + 2 * stationHistory.length);
+	}
+	
+	/**
+	 * Computes the percentiles of the distributions, those of the time in
+	 * the system, then of the waiting time of every station and then of the
+	 * queue length of every station
+	 * @param values Where the percentiles are written
+	 * @param offset Index of values the first percentile is written to
+	 */
+	public void percentiles ( double[] values, int offset )
+	{
+		double[] levels = new double[PERCENTILES.length];
+		for ( int i = 0; i < levels.length; i++ )
+		{
+			levels[i] = PERCENTILES[i] / 100.0;
+		}
+		
+		systemTimes.quantiles(levels, values, offset);
+		for ( int s = 0; s < stationHistory.length; s++ )
+		{
+			waitingTimes[s].quantiles(levels, values, offset + (1 + s) * levels.length);
+			queueLengths[s].quantiles(levels, values, offset + (1 + stationHistory.length + s) * levels.length);
+		}
+	}
+	
+	/**
+	 * Gets the measured values of the report as a row
+	 * @return Every metric in the order of Network.metricName, the warmup jobs then any percentiles
+	 */
+	public double[] row ()
+	{
+		double[] row = new double[numberMetrics() + 1 + numberPercentiles()];
+		for ( int i = 0; i < numberMetrics(); i++ )
+		{
+			row[i] = metric(i);
+		}
+		row[numberMetrics()] = warmupJobs;
+		if ( numberPercentiles() > 0 ) percentiles(row, numberMetrics() + 1);
+		return row;
+	}
+	
+	/**
+	 * Parses a list of percentiles
+	 * @param list Percentiles separated by commas, such as 50,90,99,99.9
+	 * @return Percentiles in increasing order
+	 */
+	private static double[] levels ( String list )
+	{
+		if ( list.trim().isEmpty() ) return new double[0];
+		
+		String[] parts = list.split(",");
+		double[] levels = new double[parts.length];
+		for ( int i = 0; i < parts.length; i++ )
+		{
+			levels[i] = Double.parseDouble(parts[i].trim());
+			if ( !(levels[i] > 0.0 && levels[i] <= 100.0) )
+			{
+				throw new IllegalArgumentException("Percentile " + parts[i] + " is not between 0 and 100");
+			}
+		}
+		Arrays.sort(levels);
+		return levels;
+	}
+	
+	/**
+	 * Writes the counters and accumulators of the report to a checkpoint
+	 * @param out Checkpoint being written
+	 * @throws IOException
+	 */
+	public void writeState ( DataOutput out ) throws IOException
+	{
+		out.writeInt(numberJobs);
+		out.writeInt(completedJobs);
+		out.writeLong(numberEvents);
+		out.writeDouble(clock);
+		out.writeDouble(startClock);
+		out.writeInt(warmupJobs);
+		out.writeDouble(jobHistory);
+		for ( int s = 0; s < stationHistory.length; s++ )
+		{
+			out.writeDouble(stationHistory[s]);
+		}
+		out.writeDouble(totalArea);
+		out.writeDouble(prevArea);
+		out.writeInt(prevJobTotal);
+		out.writeDouble(prevClock);
+		
+		for ( int s = 0; s < stationHistory.length; s++ )
+		{
+			out.writeInt(queueLength[s]);
+			out.writeDouble(queueClock[s]);
+		}
+		out.writeBoolean(systemTimes != null);
+		if ( systemTimes != null )
+		{
+			systemTimes.writeState(out);
+			for ( int s = 0; s < stationHistory.length; s++ )
+			{
+				waitingTimes[s].writeState(out);
+				queueLengths[s].writeState(out);
+			}
+		}
+	}
+	
+	/**
+	 * Puts the report back in the state written to a checkpoint
+	 * @param in Checkpoint being read
+	 * @throws IOException
+	 */
+	public void readState ( DataInput in ) throws IOException
+	{
+		numberJobs = in.readInt();
+		completedJobs = in.readInt();
+		numberEvents = in.readLong();
+		clock = in.readDouble();
+		startClock = in.readDouble();
+		warmupJobs = in.readInt();
+		jobHistory = in.readDouble();
+		for ( int s = 0; s < stationHistory.length; s++ )
+		{
+			stationHistory[s] = in.readDouble();
+		}
+		totalArea = in.readDouble();
+		prevArea = in.readDouble();
+		prevJobTotal = in.readInt();
+		prevClock = in.readDouble();
+		
+		for ( int s = 0; s < stationHistory.length; s++ )
+		{
+			queueLength[s] = in.readInt();
+			queueClock[s] = in.readDouble();
+		}
+		if ( in.readBoolean() )
+		{
+			if ( systemTimes == null ) createDistributions();
+			systemTimes.readState(in);
+			for ( int s = 0; s < stationHistory.length; s++ )
+			{
+				waitingTimes[s].readState(in);
+				queueLengths[s].readState(in);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the number of metrics of the report, the utilization
+	 * of every station followed by W and L
+	 * @return Number of metrics
+	 */
+	public int numberMetrics ()
+	{
+		return stationHistory.length + 2;
+	}
+	
+	/**
+	 * Gets a metric of the report, in the order of Network.metricName
+	 * @param metric Metric index
+	 * @return Measured value
+	 */
+	public double metric ( int metric )
+	{
+		if ( metric < stationHistory.length ) return utilization(metric);
+		return (metric == stationHistory.length) ? averageTime() : averageNumberJobs();
+	}
+}
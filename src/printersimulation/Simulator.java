@@ -0,0 +1,1208 @@
+package printersimulation;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Main Simulation which manages the simulation clock and job queues.
+ * @author Jamie Chung <jfchung@vt.edu>
+ *
+ */
+public class Simulator
+{
+	// Room left in the streams of the batch means run over the numbers it is expected to draw
+	private final static double STREAM_MARGIN = 2.0;
+	
+	// Network of stations the jobs travel through
+	private Network network;
+	
+	// Random number streams of every replication, derived from one master seed
+	private RandomStreams streams;
+	
+	// Running statistics of the reports of the replications finished so far
+	public ReportStatistics statistics;
+	
+	// Description of the batches of the batch means mode
+	private String batchSummary = null;
+	
+	// Binary trace of the events of the run, null if not traced
+	private EventTrace trace = null;
+	
+	// Checkpoints the run is saved to, null if there are none
+	private Checkpoint checkpoint = null;
+	
+	// Hands the replications out to worker processes, null to run them in this JVM
+	private Coordinator coordinator = null;
+	
+	// Store the rows are appended to, null if there is none
+	private ResultsStore results = null;
+	
+	// Number of rows recorded so far, the number of the next replication or batch
+	private int recorded = 0;
+	
+	// Warmed up system the replications branch off, null until the first one needs it
+	private WarmStart warmStart = null;
+	
+	// Number of replications, and the jobs each warms up with and then measures
+	private int replications;
+	private int warmupJobs;
+	private int measuredJobs;
+	
+	// Number of jobs in the long run of the batch means mode, warmup included
+	private int batchMeansJobs = Constants.BATCH_MEANS_JOBS;
+	
+	// Pool shared with other simulations run in this JVM, null for a pool of its own
+	private ForkJoinPool sharedPool = null;
+	
+	// Future event list of the jobs
+	private EventListType eventList;
+	
+	// Replications branch off one warmed up system instead of warming up on their own
+	private boolean warmStarts;
+	
+	// Number of partitions a replication is split into, 1 or less for the event loop
+	private int partitions = Constants.PARTITIONS;
+	
+	/**
+	 * Sets up a simulation of the original printer network
+	 */
+	public Simulator ()
+	{
+		this(Network.printerNetwork());
+	}
+	
+	/**
+	 * Sets up a simulation of a network
+	 * @param network Network of stations the jobs travel through
+	 */
+	public Simulator ( Network network )
+	{
+		this(network, Constants.MASTER_SEED);
+	}
+	
+	/**
+	 * Sets up a simulation of a network
+	 * @param network Network of stations the jobs travel through
+	 * @param masterSeed Master seed every random number stream is derived from
+	 */
+	public Simulator ( Network network, long masterSeed )
+	{
+		this(network, masterSeed, Constants.SIMULATION_REPLICATION, Constants.NUMBER_JOBS_WARMUP, Constants.NUMBER_JOBS,
+				EventListType.valueOf(Constants.EVENT_LIST), Constants.WARM_START);
+	}
+	
+	/**
+	 * Sets up a simulation of a network running a number of replications
+	 * of its own rather than the number configured in Constants
+	 * @param network Network of stations the jobs travel through
+	 * @param replications Number of replications
+	 */
+	public Simulator ( Network network, int replications )
+	{
+		this(network, Constants.MASTER_SEED, replications, Constants.NUMBER_JOBS_WARMUP, Constants.NUMBER_JOBS,
+				EventListType.valueOf(Constants.EVENT_LIST), Constants.WARM_START);
+	}
+	
+	/**
+	 * Sets up a simulation of a network with an event list and warm start
+	 * of its own rather than the ones configured in Constants
+	 * @param network Network of stations the jobs travel through
+	 * @param eventList Future event list of the jobs
+	 * @param warmStart Branch the replications off one warmed up system
+	 */
+	public Simulator ( Network network, EventListType eventList, boolean warmStart )
+	{
+		this(network, Constants.MASTER_SEED, Constants.SIMULATION_REPLICATION, Constants.NUMBER_JOBS_WARMUP, Constants.NUMBER_JOBS,
+				eventList, warmStart);
+	}
+	
+	/**
+	 * Sets up a simulation of a scenario
+	 * @param scenario Network, replications, jobs and master seed
+	 */
+	public Simulator ( Scenario scenario )
+	{
+		this(scenario.network, scenario.masterSeed, scenario.replications, scenario.warmupJobs, scenario.measuredJobs,
+				EventListType.valueOf(Constants.EVENT_LIST), Constants.WARM_START);
+		batchMeansJobs = scenario.batchMeansJobs;
+	}
+	
+	/**
+	 * Sets up a simulation, checking that the streams of every replication
+	 * it runs fit within the generator cycle before any of them is run
+	 * @param network Network of stations the jobs travel through
+	 * @param masterSeed Master seed every random number stream is derived from
+	 * @param replications Number of replications
+	 * @param warmupJobs Number of jobs to warm up a replication
+	 * @param measuredJobs Number of jobs measured after the warmup
+	 * @param eventList Future event list of the jobs
+	 * @param warmStart Branch the replications off one warmed up system
+	 */
+	private Simulator ( Network network, long masterSeed, int replications, int warmupJobs, int measuredJobs,
+			EventListType eventList, boolean warmStart )
+	{
+		this.network = network;
+		this.eventList = eventList;
+		this.warmStarts = warmStart;
+		this.replications = replications;
+		this.warmupJobs = warmupJobs;
+		this.measuredJobs = measuredJobs;
+		streams = new RandomStreams(masterSeed, network.streamsPerReplication(), network.numberSources());
+		statistics = new ReportStatistics(network.numberMetrics());
+		
+		// Batch means is one long run on the streams of replication 0
+		checkStreams(Constants.BATCH_MEANS ? 1
+				: Constants.SEQUENTIAL_STOPPING ? Constants.MAX_REPLICATIONS : replications);
+	}
+	
+	/**
+	 * Checks that the streams of a number of replications fit within the
+	 * cycle of the generator, counting the warmup of a warm start
+	 * @param replications Number of replications, starting at 0
+	 */
+	public void checkStreams ( int replications )
+	{
+		streams.checkReplications(warmStarts ? replications + 1 : replications);
+	}
+	
+	/**
+	 * Runs the replications on a pool shared with other simulations, which
+	 * is left running once the simulation has finished
+	 * @param pool Pool to run the replications on
+	 */
+	public void setPool ( ForkJoinPool pool )
+	{
+		sharedPool = pool;
+	}
+	
+	/**
+	 * Splits every replication into partitions running on threads of their
+	 * own, rather than the number of partitions configured in Constants
+	 * @param partitions Number of partitions, 1 or less for the event loop
+	 */
+	public void setPartitions ( int partitions )
+	{
+		this.partitions = partitions;
+	}
+	
+	/**
+	 * Saves the long run of the batch means mode to a checkpoint, or
+	 * carries it on from one that was resumed, rather than the checkpoint
+	 * configured in Constants. The checkpoint has the master seed of this
+	 * simulation.
+	 * @param checkpoint Checkpoint of the run
+	 */
+	public void setCheckpoint ( Checkpoint checkpoint )
+	{
+		this.checkpoint = checkpoint;
+	}
+	
+	/**
+	 * Gets the network of stations the jobs travel through
+	 * @return Network
+	 */
+	public Network getNetwork ()
+	{
+		return network;
+	}
+	
+	/**
+	 * Begins the simulation.
+	 */
+	public void run()
+	{
+		/**
+		 * ===============================
+		 * Initializations Documentation
+		 * ===============================
+		 * This is the first real method of the simulation that is executed.
+		 * Here we handle the most high level parts of the simulation which is
+		 * to ensure that the number of simulation replications needed are executed.
+		 * Also during each replication, we ensure that every random source
+		 * starts from its own substream of the master seed, so any replication
+		 * can be reproduced on its own from the master seed alone.
+		 * In this stage it is where the warmup jobs are executed, their
+		 * measurements are discarded but the system is kept as it is, and then
+		 * the reports for the actual simulation in steady state are printed as
+		 * soon as they finish and folded into running statistics, so no report
+		 * is kept once it has been recorded.
+		 * Every replication runs within its own SimulationContext which holds the
+		 * seed, the job ids and the JobManager that serves as a data layer for
+		 * managing, inserting, and sorting of job (events). Since replications
+		 * share nothing, they are run in parallel and merged back in order.
+		 * Rather than a fixed number of replications, the sequential stopping
+		 * mode runs batches of replications until the confidence interval of
+		 * every chosen metric is within the target precision.
+		 * The end of the warmup is either a fixed number of jobs or found by the
+		 * MSER-5 rule from the time jobs spend in the system. The batch means mode
+		 * replaces the replications with one long run split into batches, so the
+		 * warmup is only paid for once.
+		 * Not seen here is the SimulationReport which handles the metrics that
+		 * are measured within each simulation for computation.
+		 */
+		
+		// The partitions only replay what the stations measure, not every event
+		if ( partitions > 1 && (network.getArrivalLog() != null || !Constants.TRACE.isEmpty()
+				|| !Constants.CHECKPOINT.isEmpty() || Constants.METRICS) )
+		{
+			throw new IllegalStateException("Partitions can not be used with an arrival log, a trace, checkpoints or metrics");
+		}
+		
+		// Only a fixed warmup ends at the same point for every replication
+		if ( warmStarts && (Constants.BATCH_MEANS || partitions > 1
+				|| WarmupMode.valueOf(Constants.WARMUP) != WarmupMode.FIXED) )
+		{
+			throw new IllegalStateException("A warm start needs replications with a FIXED warmup and no partitions");
+		}
+		
+		// A resumed run carries on with the master seed of its checkpoint
+		if ( !Constants.CHECKPOINT.isEmpty() )
+		{
+			checkpoint = new Checkpoint(Constants.CHECKPOINT, network, streams.getMasterSeed());
+			if ( Constants.RESUME && checkpoint.resume() )
+			{
+				streams = new RandomStreams(checkpoint.getMasterSeed(), network.streamsPerReplication(), network.numberSources());
+				System.err.println("Resuming from " + Constants.CHECKPOINT + " after " + checkpoint.resumedRows() + " replications");
+			}
+		}
+		
+		if ( !Constants.RESULTS.isEmpty() )
+		{
+			results = new ResultsStore(Constants.RESULTS, network, new String[0]);
+			
+			// Rows written after the checkpoint are recorded again by the resumed run
+			if ( checkpoint != null )
+			{
+				if ( checkpoint.resultsRows() >= 0 ) results.truncate(checkpoint.resultsRows());
+				checkpoint.setResults(results);
+			}
+		}
+		
+		// The master seed is all that is needed to reproduce the run
+		System.out.println("Master Seed: " + streams.getMasterSeed() + "\n");
+		
+		if ( !Constants.TRACE.isEmpty() )
+		{
+			trace = new EventTrace(Constants.TRACE);
+		}
+		printHeader();
+		
+		boolean precisionReached = false;
+		if ( Constants.BATCH_MEANS )
+		{
+			// One long run split into batches
+			runBatchMeans();
+		}
+		else
+		{
+			// Replications are independent so they are handed to a work stealing
+			// pool, or to worker processes in their own JVMs
+			ForkJoinPool pool = null;
+			if ( Constants.WORKERS > 0 || Constants.COORDINATOR_PORT > 0 )
+			{
+				coordinator = Coordinator.fromConstants(streams.getMasterSeed());
+			}
+			else if ( sharedPool != null )
+			{
+				pool = sharedPool;
+			}
+			else if ( Constants.PARALLEL_REPLICATIONS )
+			{
+				pool = Constants.REPLICATION_THREADS > 0
+						? new ForkJoinPool(Constants.REPLICATION_THREADS) : new ForkJoinPool();
+			}
+			
+			if ( Constants.SEQUENTIAL_STOPPING )
+			{
+				// Every batch keeps each thread of the pool busy with one replication
+				int batch = (pool != null) ? pool.getParallelism() : (coordinator != null ? coordinator.slots() : 1);
+				int replications = 0;
+				
+				while ( replications < Constants.MAX_REPLICATIONS )
+				{
+					int count = Math.min(batch, Constants.MAX_REPLICATIONS - replications);
+					runReplications(pool, replications, count);
+					replications += count;
+					
+					if ( replications >= Constants.MIN_REPLICATIONS && precisionReached() )
+					{
+						precisionReached = true;
+						break;
+					}
+				}
+			}
+			else
+			{
+				runReplications(pool, 0, replications);
+			}
+			
+			if ( pool != null && pool != sharedPool )
+			{
+				pool.shutdown();
+			}
+			
+			if ( coordinator != null )
+			{
+				coordinator.close();
+				coordinator = null;
+			}
+		}
+		
+		if ( trace != null )
+		{
+			trace.close();
+			trace = null;
+		}
+		
+		// The results are on disk before the checkpoint goes
+		if ( results != null )
+		{
+			results.close();
+			results = null;
+		}
+		
+		if ( checkpoint != null )
+		{
+			checkpoint.finish();
+			checkpoint = null;
+		}
+		
+		// Print the summary of the reports to the console
+		printReport();
+		
+		if ( Constants.BATCH_MEANS )
+		{
+			System.out.println("\nBatch Means: " + batchSummary);
+		}
+		else if ( WarmupMode.valueOf(Constants.WARMUP) == WarmupMode.MSER )
+		{
+			System.out.println("\nWarmup (MSER-5): " + statistics.warmupJobs.mean() + " jobs discarded on average");
+		}
+		else if ( warmStart != null )
+		{
+			System.out.println("\nWarm start: every replication branched off one warmup of " + warmStart.getWarmupJobs() +
+					" jobs, copied in " + warmStart.size() + " bytes");
+		}
+		
+		if ( Constants.SEQUENTIAL_STOPPING && !Constants.BATCH_MEANS )
+		{
+			System.out.println("\nReplications needed: " + statistics.count() + (precisionReached
+					? " (target precision reached)"
+					: " (stopped at " + Constants.MAX_REPLICATIONS + " replications before reaching the target precision)"));
+		}
+	}
+	
+	/**
+	 * Runs a range of replications and records their reports in order
+	 * @param pool Pool to run the replications on, null to run them one after another
+	 * @param first Number of the first replication starting at 0
+	 * @param count Number of replications to run
+	 */
+	private void runReplications ( ForkJoinPool pool, int first, int count )
+	{
+		int end = first + count;
+		
+		// Replications recorded before the run was resumed are not run again
+		while ( first < end && checkpoint != null && first < checkpoint.resumedRows() )
+		{
+			record("Run " + (first + 1), checkpoint.row(first));
+			first++;
+		}
+		
+		if ( coordinator != null )
+		{
+			// Every replication is queued for the workers, the reports are
+			// gathered back in replication order whichever worker ran them
+			ArrayDeque<CompletableFuture<SimulationReport>> reports = new ArrayDeque<CompletableFuture<SimulationReport>>();
+			for ( int i = first; i < end; i++ )
+			{
+				reports.add(coordinator.submit(-1, i));
+			}
+			for ( int i = first; i < end; i++ )
+			{
+				record("Run " + (i + 1), coordinator.join(reports.poll()));
+			}
+			return;
+		}
+		
+		if ( pool == null )
+		{
+			// Replicate the simulation a set number of times
+			for ( int i = first; i < end; i++ )
+			{
+				record("Run " + (i + 1), runReplication(i));
+			}
+			return;
+		}
+		
+		// Only a few replications per thread are in flight at any time
+		// so that finished reports do not pile up waiting to be recorded
+		int window = 2 * pool.getParallelism();
+		ArrayDeque<ForkJoinTask<SimulationReport>> tasks = new ArrayDeque<ForkJoinTask<SimulationReport>>();
+		int submitted = first;
+		
+		for ( int i = first; i < end; i++ )
+		{
+			while ( submitted < end && tasks.size() < window )
+			{
+				tasks.add(pool.submit(new Replication(submitted++)));
+			}
+			
+			// Reports are gathered back in replication order
+			record("Run " + (i + 1), tasks.poll().join());
+		}
+	}
+	
+	/**
+	 * Checks whether the confidence interval of every metric chosen
+	 * for the sequential stopping rule is within the target precision
+	 * @return True if every chosen metric is precise enough
+	 */
+	private boolean precisionReached ()
+	{
+		for ( int i = 0; i < network.numberMetrics(); i++ )
+		{
+			if ( !stoppingMetric(i) ) continue;
+			
+			RunningStatistics metric = statistics.metrics[i];
+			double halfWidth = metric.halfWidth(Constants.CONFIDENCE_LEVEL);
+			
+			if ( Constants.RELATIVE_PRECISION )
+			{
+				if ( halfWidth > Constants.TARGET_PRECISION * Math.abs(metric.mean()) ) return false;
+			}
+			else
+			{
+				if ( halfWidth > Constants.TARGET_PRECISION ) return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Checks whether a metric was chosen for the sequential stopping rule
+	 * @param metric Metric index
+	 * @return True if listed in Constants.STOPPING_METRICS, or if that list is empty
+	 */
+	private boolean stoppingMetric ( int metric )
+	{
+		if ( Constants.STOPPING_METRICS.trim().isEmpty() ) return true;
+		
+		for ( String name : Constants.STOPPING_METRICS.split(",") )
+		{
+			if ( network.metricIndex(name.trim()) == metric ) return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Runs a single replication on its own, which gives the same
+	 * report as the replication does within a full run. In the antithetic
+	 * mode the replication is a pair of runs, on the plain and on the
+	 * antithetic streams, pooled into one report.
+	 * @param replication Replication number starting at 0
+	 * @return SimulationReport of the steady state jobs
+	 */
+	public SimulationReport runReplication ( int replication )
+	{
+		if ( Constants.ANTITHETIC )
+		{
+			// Pool the run on the plain streams with the run on the antithetic
+			// streams, their errors partly cancel out
+			SimulationReport report = runReplication(replication, false);
+			report.add(runReplication(replication, true));
+			return report;
+		}
+		
+		return runReplication(replication, false);
+	}
+	
+	/**
+	 * Runs a single run of a replication
+	 * @param replication Replication number starting at 0
+	 * @param antithetic Run on the antithetic streams of the replication
+	 * @return SimulationReport of the steady state jobs
+	 */
+	private SimulationReport runReplication ( int replication, boolean antithetic )
+	{
+		// The warmup of a warm start runs on the streams of replication 0,
+		// so every branch draws from the streams of the replication after it
+		SimulationContext context = new SimulationContext(network, streams,
+				warmStarts ? replication + 1 : replication, antithetic, eventList);
+		if ( trace != null ) context.trace = trace.writer(replication, antithetic);
+		
+		if ( warmStarts )
+		{
+			context.reset();
+			SimulationReport report = warmStart().branch(context);
+			if ( Constants.METRICS ) context.metrics.begin(report);
+			return measure(context, report, warmStart().getWarmupJobs());
+		}
+		
+		SimulationReport report = start(context);
+		
+		if ( WarmupMode.valueOf(Constants.WARMUP) == WarmupMode.MSER )
+		{
+			// Run the warmup and steady state jobs as one and let the
+			// MSER rule decide how many of the first jobs to discard
+			MeasurementSeries series = new MeasurementSeries(network.size());
+			series.record(report, 0);
+			run(context, report, 0, warmupJobs + measuredJobs, series);
+			
+			finish(context, report);
+			return series.report(series.truncationPoint(), series.size() - 1);
+		}
+		
+		// Run the warmup jobs
+		run(context, report, 0, warmupJobs, null);
+		
+		return measure(context, report, warmupJobs);
+	}
+	
+	/**
+	 * Runs the steady state jobs of a replication from its warm system
+	 * @param context Replication state at the end of the warmup
+	 * @param report Report of the warmup
+	 * @param warmupJobs Number of jobs the warmup ran
+	 * @return SimulationReport of the steady state jobs
+	 */
+	private SimulationReport measure ( SimulationContext context, SimulationReport report, int warmupJobs )
+	{
+		// Run the steady state jobs from the warm system, but this time
+		// we will keep the measurements for evaluation later on
+		report.resetStatistics(measuredJobs);
+		report.warmupJobs = warmupJobs;
+		report.recordDistributions();
+		run(context, report, 0, measuredJobs, null);
+		
+		finish(context, report);
+		return report;
+	}
+	
+	/**
+	 * Gets the warmed up system the replications branch off, running the
+	 * warmup on the streams of replication 0 the first time
+	 * @return WarmStart
+	 */
+	public synchronized WarmStart warmStart ()
+	{
+		if ( warmStart == null )
+		{
+			SimulationContext context = new SimulationContext(network, streams, 0, false, eventList);
+			SimulationReport report = start(context);
+			run(context, report, 0, warmupJobs, null);
+			
+			warmStart = new WarmStart(context, report, warmupJobs);
+			if ( context.arrivalLog != null ) context.arrivalLog.close();
+		}
+		return warmStart;
+	}
+	
+	/**
+	 * Branches the replications off the warmed up system of another
+	 * simulator, which has to have the same stations and sources
+	 * @param warmStart Warmed up system
+	 */
+	public synchronized void setWarmStart ( WarmStart warmStart )
+	{
+		if ( !warmStart.fits(network) )
+		{
+			throw new IllegalArgumentException("The warmed up system has other stations, servers, capacities or sources than this network");
+		}
+		this.warmStart = warmStart;
+	}
+	
+	/**
+	 * Runs one long run and splits it into batches after the warmup.
+	 * The batch means are recorded the same way as replications would be,
+	 * but the warmup only has to be run once.
+	 */
+	public void runBatchMeans ()
+	{
+		sizeBatchMeansStreams();
+		SimulationContext context = new SimulationContext(network, streams, 0, false, eventList);
+		if ( trace != null ) context.trace = trace.writer(0, false);
+		MeasurementSeries series = new MeasurementSeries(network.size());
+		SimulationReport report;
+		int completed = 0;
+		
+		if ( checkpoint != null && checkpoint.hasRun() )
+		{
+			// Carry on from the state saved between two events
+			report = new SimulationReport(0, network.size());
+			context.reset();
+			completed = checkpoint.restoreRun(context, report, series);
+			if ( Constants.METRICS ) context.metrics.begin(report);
+		}
+		else
+		{
+			report = start(context);
+			series.record(report, 0);
+		}
+		
+		context.checkpoint = checkpoint;
+		run(context, report, completed, batchMeansJobs, series);
+		finish(context, report);
+		
+		// Discard the warmup
+		int first;
+		if ( WarmupMode.valueOf(Constants.WARMUP) == WarmupMode.MSER )
+		{
+			first = series.truncationPoint();
+		}
+		else
+		{
+			first = series.indexOf(warmupJobs);
+		}
+		
+		// Split what is left into batches that are long enough to be independent
+		int batches = series.batchCount(first);
+		int length = (series.size() - 1 - first) / batches;
+		for ( int b = 0; b < batches; b++ )
+		{
+			record("Batch " + (b + 1), series.report(first + b * length, first + (b + 1) * length));
+		}
+		
+		batchSummary = batches + " batches of " + (length * series.granularity()) + " jobs after " +
+				(first * series.granularity()) + " warmup jobs";
+	}
+	
+	/**
+	 * Lengthens the streams of the long run of the batch means mode when it
+	 * is expected to draw more numbers than they hold. The run only uses the
+	 * streams of replication 0, so they may take up the whole generator cycle.
+	 * The numbers drawn are estimated from the arrival rates of the analytic
+	 * solution, a network it finds unstable is left to fail when a stream
+	 * runs into the next one.
+	 */
+	private void sizeBatchMeansStreams ()
+	{
+		AnalyticSolution solution = AnalyticSolver.solve(network);
+		
+		// Jobs leave at the rate they arrive less the rate they are turned away
+		double exitRate = 0.0;
+		for ( int source = 0; source < network.numberSources(); source++ )
+		{
+			exitRate += 1.0 / network.meanArrivalTime(source);
+		}
+		for ( int s = 0; s < network.size(); s++ )
+		{
+			exitRate -= solution.arrivalRate[s] * solution.lossProbability[s];
+		}
+		if ( !solution.stable || exitRate <= 0.0 ) return;
+		
+		// Every arrival draws from the stream of its source, every visit
+		// to a station from its service and routing streams
+		double time = STREAM_MARGIN * batchMeansJobs / exitRate;
+		long sourceDraws = 0;
+		for ( int source = 0; source < network.numberSources(); source++ )
+		{
+			sourceDraws = Math.max(sourceDraws, (long) Math.ceil(time / network.meanArrivalTime(source)));
+		}
+		long stationDraws = 0;
+		for ( int s = 0; s < network.size(); s++ )
+		{
+			stationDraws = Math.max(stationDraws, (long) Math.ceil(time * solution.arrivalRate[s]));
+		}
+		
+		if ( sourceDraws <= Constants.SOURCE_SPACING && stationDraws <= Constants.STREAM_SPACING ) return;
+		
+		streams = new RandomStreams(streams.getMasterSeed(), network.streamsPerReplication(), network.numberSources(),
+				Math.max(stationDraws, Constants.STREAM_SPACING), Math.max(sourceDraws, Constants.SOURCE_SPACING));
+		streams.checkReplications(1);
+	}
+	
+	/**
+	 * Hands the runtime counters and the trace of a finished run over,
+	 * closes its arrival log and stops its partitions
+	 * @param context Replication state the jobs were run in
+	 * @param report Report of the run
+	 */
+	private void finish ( SimulationContext context, SimulationReport report )
+	{
+		report.updateQueueLengths();
+		if ( Constants.METRICS ) context.metrics.end(report, context.jobs);
+		if ( context.trace != null ) context.trace.close();
+		if ( context.arrivalLog != null ) context.arrivalLog.close();
+		if ( context.parallel != null )
+		{
+			context.parallel.close();
+			context.parallel = null;
+		}
+	}
+	
+	/**
+	 * A single replication of the simulation to run on the pool
+	 */
+	private class Replication implements Callable<SimulationReport>
+	{
+		// Replication number starting at 0
+		private int replication;
+		
+		/**
+		 * Sets up a replication
+		 * @param replication Replication number starting at 0
+		 */
+		public Replication ( int replication )
+		{
+			this.replication = replication;
+		}
+		
+		/**
+		 * Runs the replication
+		 * @return SimulationReport of the steady state jobs
+		 */
+		public SimulationReport call ()
+		{
+			return runReplication(replication);
+		}
+	}
+	
+	/**
+	 * Starts a replication from an empty system
+	 * @param context Replication state the jobs are run in
+	 * @return SimulationReport which will hold the metrics gathered during simulation
+	 */
+	private SimulationReport start ( SimulationContext context )
+	{
+		// Setup a new Simulation Report
+		SimulationReport report = new SimulationReport(0, network.size());
+		
+		// Reset the Job unique ID counter and delete all existing jobs
+		context.reset();
+		JobManager jobs = context.jobs;
+		if ( Constants.METRICS ) context.metrics.begin(report);
+		
+		// Draw the first arrival of every source, or insert the first job of
+		// the log which then brings in the job after it
+		if ( context.arrivalLog != null )
+		{
+			int j = loggedArrival(context);
+			if ( j != JobStore.NONE ) jobs.insert(j);
+		}
+		else if ( partitions > 1 )
+		{
+			// The partitions draw the first arrivals of their own sources
+			context.parallel = new ParallelRun(context, partitions);
+		}
+		else
+		{
+			for ( int source = 0; source < network.numberSources(); source++ )
+			{
+				scheduleArrival(context, source, report.clock);
+			}
+		}
+		
+		return report;
+	}
+	
+	/**
+	 * Runs the simulator until a set number of jobs have exited the system,
+	 * carrying on from wherever the replication currently is
+	 * @param context Replication state the jobs are run in
+	 * @param report SimulationReport holding all the metrics gathered during simulation
+	 * @param completed Number of jobs that have already exited the system, 0 for a new run
+	 * @param numberJobs Number of jobs to exit the system
+	 * @param series Series to snapshot the measurements into, null if not needed
+	 */
+	private void run ( SimulationContext context, SimulationReport report, int completed, int numberJobs, MeasurementSeries series )
+	{
+		if ( context.parallel != null )
+		{
+			context.parallel.run(report, completed, numberJobs, series);
+			return;
+		}
+		
+		JobManager jobs = context.jobs;
+		JobStore store = jobs.getStore();
+		StationHandler[] handlers = context.handlers;
+		ReplicationMetrics metrics = context.metrics;
+		TraceWriter trace = context.trace;
+		Checkpoint checkpoint = context.checkpoint;
+		ArrivalTree arrivals = context.arrivals;
+		
+		int j;
+		// Number of jobs successfully exited the system
+		int numberCompletedJobs = completed;
+		
+		/**
+		 * ===============================
+		 * Each Event Documentation
+		 * ===============================
+		 * Using a priority list of events, we are able to remove jobs
+		 * from the list, update with a new projected execution time for a future
+		 * event and insert back into the list. Jobs are int handles into the
+		 * JobStore whose slots are recycled once a job leaves the system, so
+		 * once the store has grown to the size of the system no event
+		 * allocates. By sorting the list, we maintain the sequential accuracy
+		 * of events and can manage the edge cases of scheduling events with
+		 * queues.
+		 * An event is either a job entering the system or a job finishing its
+		 * service at a station. Both are handed to the StationHandler of the
+		 * station, found by its id in the handler table of the context, so the
+		 * cost of an event does not depend on the number of stations. A job that
+		 * finishes its service moves on to the station picked by the routing of
+		 * the network straight away, within the same event. A job which finds
+		 * every server of a station busy waits in the queue of the station and
+		 * is started by the departure that frees a server.
+		 * We continue to execute each event under the number of completed
+		 * jobs in the simulation is the same number as the number of jobs required
+		 * for the simulation to run. This ensures that jobs that are created
+		 * at the beginning are fully executed within the system and that there
+		 * are no remaining jobs left idle.
+		 */
+		
+		while ( numberCompletedJobs < numberJobs )
+		{
+
+			/**
+			 * ===============================
+			 * Clock Update Documentation
+			 * ===============================
+			 * Since we are using a sorted list of job events, it is easy to
+			 * manage the simulation clock. By sorting all the events in order
+			 * of their projected execution time in ascending order, we are
+			 * able to advance the simulation clock by dynamic times
+			 * and not by a fixed time increment. This also improves
+			 * the efficiency and accuracy of the simulation since we are
+			 * not incrementing by a significant time factor which may be
+			 * less accurate than the actual times generated.
+			 */
+
+			// Save the state between two events now and then, the
+			// file itself is written in the background
+			if ( checkpoint != null && (report.numberEvents & (Checkpoint.CHECK_EVENTS - 1)) == 0 && checkpoint.due() )
+			{
+				checkpoint.saveRun(context, report, series, numberCompletedJobs);
+			}
+			
+			// Find earliest job, either the next sampled arrival of the
+			// sources or the top of the queue, which is then dequeued.
+			// The job of a sampled arrival is only created once it comes up
+			j = jobs.peekFirstJob();
+			double arrival = arrivals.firstTime();
+			if ( j != JobStore.NONE && store.arrivalTime[j] <= arrival )
+			{
+				jobs.getFirstJob();
+			}
+			else if ( arrival != Double.POSITIVE_INFINITY )
+			{
+				int source = arrivals.first();
+				j = store.allocate(source, JobStore.ARRIVING, context.nextJobId(), arrival);
+				scheduleArrival(context, source, arrival);
+			}
+			else
+			{
+				break;
+			}
+			
+			// Advances the simulation clock to the earliest event
+			report.clock = store.arrivalTime[j];
+			report.numberEvents++;
+			
+			// Hand the runtime counters over now and then while the run goes on
+			if ( Constants.METRICS && (report.numberEvents & (ReplicationMetrics.FLUSH_EVENTS - 1)) == 0 )
+			{
+				metrics.flush(report, jobs);
+			}
+			
+			// Station the job goes to, or EXIT if it leaves the system
+			int next;
+			boolean accepted;
+			
+			if ( store.station[j] == JobStore.ARRIVING )
+			{
+				// The job enters the system at the entry station of its source
+				store.systemStartTime[j] = report.clock;
+				next = network.entryStation(store.source[j]);
+				accepted = handlers[next].arrive(report, jobs, j);
+				if ( trace != null ) trace.record(accepted ? EventTrace.ENTER : EventTrace.REJECT, report.clock, store, j, -1, next, 0.0);
+				
+				// Update area counts, the number of jobs in the system
+				// is the total the area was last updated with
+				if ( accepted )
+				{
+					report.updateAverageNumberJobs(report.prevJobTotal + 1);
+				}
+				
+				// Insert the next job of the log, replayed jobs stop at the end of
+				// the log and the next sampled arrival was drawn when this one came up
+				if ( context.arrivalLog != null )
+				{
+					int logged = loggedArrival(context);
+					if ( logged != JobStore.NONE ) jobs.insert(logged);
+				}
+				
+				if ( Constants.METRICS ) metrics.arrivals++;
+				
+				// A job turned away at the door never was in the system
+				if ( !accepted )
+				{
+					if ( Constants.METRICS )
+					{
+						metrics.rejections[next]++;
+						metrics.jobsExited++;
+					}
+					store.release(j);
+					numberCompletedJobs++;
+					if ( series != null ) series.record(report, numberCompletedJobs);
+				}
+				continue;
+			}
+			
+			// The job finishes at its station and moves on to the next one
+			int station = store.station[j];
+			double service = store.executionTime[j];
+			next = handlers[station].depart(report, jobs, j);
+			accepted = (next != Station.EXIT) && handlers[next].arrive(report, jobs, j);
+			if ( trace != null )
+			{
+				trace.record(accepted ? EventTrace.MOVE : (next == Station.EXIT ? EventTrace.EXIT : EventTrace.REJECT),
+						report.clock, store, j, station, next, service);
+			}
+			if ( Constants.METRICS ) metrics.departures[station]++;
+			
+			if ( accepted ) continue;
+			
+			if ( Constants.METRICS )
+			{
+				if ( next != Station.EXIT ) metrics.rejections[next]++;
+				metrics.jobsExited++;
+			}
+			
+			// Number of jobs that have exited the system
+			numberCompletedJobs++;
+			report.updateAverageNumberJobs(report.prevJobTotal - 1);
+			
+			// Report the life span of a job that has successfully been processed,
+			// jobs turned away by a full station take the safety exit instead
+			if ( next == Station.EXIT )
+			{
+				report.completedJobs++;
+				report.jobHistory += (report.clock - store.systemStartTime[j]);
+				if ( report.systemTimes != null ) report.systemTimes.record(report.clock - store.systemStartTime[j]);
+			}
+			
+			store.release(j);
+			if ( series != null ) series.record(report, numberCompletedJobs);
+		}
+	}
+
+	/**
+	 * Draws the next arrival time of a job source, the job is
+	 * created once that time comes up
+	 * @param context Replication state the job belongs to
+	 * @param source Source id of the job to enter the system
+	 * @param clock Current time of the system clock
+	 */
+	private void scheduleArrival ( SimulationContext context, int source, double clock )
+	{
+		context.arrivals.update(source, context.arrivalStream(source).exponentialRVG(network.meanArrivalTime(source)) + clock);
+	}
+	
+	/**
+	 * Creates the next job of the arrival log
+	 * @param context Replication state the job belongs to
+	 * @return Handle of the new job, JobStore.NONE at the end of the log
+	 */
+	private int loggedArrival ( SimulationContext context )
+	{
+		ArrivalLog log = context.arrivalLog;
+		if ( !log.next() ) return JobStore.NONE;
+		
+		// The log has already looked its source up in the network
+		JobStore store = context.jobs.getStore();
+		int j = store.allocate(log.source, JobStore.ARRIVING, context.nextJobId(), log.time);
+		store.pages[j] = log.pages;
+		return j;
+	}
+	
+	/**
+	 * Folds the report of a finished replication into the running
+	 * statistics and prints its row of the table
+	 * @param label Name of the row, Run <n> or Batch <n>
+	 * @param report Report of the replication
+	 */
+	private void record ( String label, SimulationReport report )
+	{
+		// The row is kept by the checkpoint so a resumed run can record it again
+		double[] row = report.row();
+		
+		if ( results != null ) results.append(streams.getMasterSeed(), -1, recorded, null, row);
+		if ( checkpoint != null ) checkpoint.addRow(row);
+		record(label, row);
+	}
+	
+	/**
+	 * Folds a row of measured values into the running statistics
+	 * and prints it as a row of the table
+	 * @param label Name of the row, Run <n> or Batch <n>
+	 * @param row Every metric in the order of Network.metricName, then the warmup jobs
+	 */
+	private void record ( String label, double[] row )
+	{
+		statistics.add(row);
+		recorded++;
+		
+		StringBuilder sb = new StringBuilder(label);
+		for ( int i = 0; i < network.numberMetrics(); i++ )
+		{
+			sb.append("\t\t").append(row[i]);
+		}
+		System.out.println(sb.toString());
+	}
+	
+	/**
+	 * Prints the header of the table of replications
+	 */
+	public void printHeader ()
+	{
+		StringBuilder sb = new StringBuilder("\t\t");
+		for ( int i = 0; i < network.size(); i++ )
+		{
+			// Pad the name of every station to the width of a value
+			String name = network.metricName(i);
+			sb.append(name);
+			for ( int t = name.length() / 8; t < 4; t++ )
+			{
+				sb.append('\t');
+			}
+		}
+		sb.append("W. (Average Time)\t\tL. (Average Jobs)");
+		System.out.println(sb.toString());
+	}
+	
+	/**
+	 * Computes all the values from the running statistics
+	 * and prints them to the console.
+	 */
+	public void printReport ()
+	{
+		/**
+		 * ===============================
+		 * Ouput Documentation
+		 * ===============================
+		 * All output is done to the system console for the purpose of speed.
+		 * Each replication is printed as soon as it finishes and its metrics are
+		 * folded into a ReportStatistics, which keeps the running mean and
+		 * variance of every metric. From those we print the averages together
+		 * with their Student t confidence intervals, and check them against
+		 * bounds around the analytic solution of the network.
+		 */
+		
+		double confidence = Constants.CONFIDENCE_LEVEL;
+		RunningStatistics[] metrics = statistics.metrics;
+		
+		// Line break
+		System.out.println("\n------------\n");
+		
+		StringBuilder average = new StringBuilder("Average:");
+		StringBuilder halfWidth = new StringBuilder("Half Width:");
+		for ( int i = 0; i < metrics.length; i++ )
+		{
+			average.append(i == 0 ? "\t" : "\t\t").append(metrics[i].mean());
+			halfWidth.append(i == 0 ? "\t" : "\t\t").append(metrics[i].halfWidth(confidence));
+		}
+		System.out.println(average.toString());
+		System.out.println(halfWidth.toString());
+		
+		// The analytic solution assumes Poisson arrivals, which a replayed log is not
+		AnalyticSolution solution = null;
+		if ( network.getArrivalLog() == null )
+		{
+			solution = AnalyticSolver.solve(network);
+			StringBuilder analytic = new StringBuilder(solution.exact ? "Analytic:" : "Analytic (approximate):");
+			for ( int i = 0; i < metrics.length; i++ )
+			{
+				analytic.append(i == 0 ? "\t" : "\t\t").append(solution.metric(i));
+			}
+			System.out.println(analytic.toString());
+		}
+
+		// Line break
+		System.out.println("\n------------\n");
+		
+		// Utilization of every station, then W and L, against the analytic solution
+		for ( int i = 0; i < metrics.length; i++ )
+		{
+			String bounds = "";
+			if ( solution != null && !Double.isNaN(solution.lower(i)) )
+			{
+				bounds = checkBounds(metrics[i].mean(), solution.lower(i), solution.upper(i));
+			}
+			
+			System.out.println(network.metricDescription(i) + ": " + confidenceInterval(metrics[i]) + bounds);
+		}
+		
+		// Tail percentiles, each averaged over the replications like a metric
+		if ( statistics.percentiles.length > 0 )
+		{
+			System.out.println("\n------------\n");
+			for ( int i = 0; i < statistics.percentiles.length; i++ )
+			{
+				System.out.println(percentileDescription(i) + ": " + confidenceInterval(statistics.percentiles[i]));
+			}
+		}
+		else if ( SimulationReport.PERCENTILES.length > 0 )
+		{
+			System.out.println("\nPercentiles are only measured by replications with a fixed warmup");
+		}
+	}
+	
+	/**
+	 * Gets the full name of a percentile, used for the summary
+	 * @param i Percentile index, in the order of SimulationReport.percentiles
+	 * @return Name
+	 */
+	public String percentileDescription ( int i )
+	{
+		double level = SimulationReport.PERCENTILES[i % SimulationReport.PERCENTILES.length];
+		int group = i / SimulationReport.PERCENTILES.length;
+		String name = (level == Math.rint(level)) ? "p" + (long) level : "p" + level;
+		
+		if ( group == 0 ) return name + " Time in System";
+		if ( group <= network.size() ) return name + " Waiting Time at " + network.station(group - 1).description;
+		return name + " Jobs Waiting at " + network.station(group - 1 - network.size()).description;
+	}
+	
+	/**
+	 * Formats the mean of a metric with its confidence interval
+	 * @param metric Running statistics of the metric
+	 * @return <mean> (<confidence>% CI <lower>, <upper>)
+	 */
+	public String confidenceInterval ( RunningStatistics metric )
+	{
+		double confidence = Constants.CONFIDENCE_LEVEL;
+		return metric.mean() + " (" + Math.round(confidence * 100) + "% CI " +
+				metric.lower(confidence) + ", " + metric.upper(confidence) + ")";
+	}
+	
+	/**
+	 * Used to easily check parameters between a confidence interval
+	 * @param x Actual value to check
+	 * @param lower Lower bounds for the value
+	 * @param upper Upper bounds for the value
+	 * @return String output with the x value, bounds and whether it is out of bounds
+	 */
+	public String checkBounds ( double x, double lower, double upper )
+	{
+		StringBuffer sb = new StringBuffer();
+		
+		sb.append(" - ");
+		sb.append("[" + lower + ", " + upper + "] ");
+		
+		// Checks the x value with the surrounding bounds
+		if ( x < lower || x > upper )
+		{
+			sb.append("OUT OF BOUNDS");
+		}
+		
+		return sb.toString();
+	}
+	
+}
@@ -0,0 +1,117 @@
+package printersimulation;
+
+import java.util.Arrays;
+
+/**
+ * Description of a processing station of the network: how long its
+ * service takes, how many jobs it can hold and where jobs go next.
+ */
+public class Station
+{
+	// Route of jobs leaving the system
+	public final static int EXIT = -1;
+	
+	// Position of the station within the network
+	public int id;
+	
+	// Short name used in the table of replications, for example Mac
+	public String name;
+	
+	// Full name used in the summary, for example Macintosh
+	public String description;
+	
+	// Distribution of the service times
+	public Distribution service;
+	
+	// Number of identical servers working in parallel
+	public int servers = 1;
+	
+	// Most jobs the station can hold at any time, in service or
+	// waiting, 0 for no limit
+	// Jobs arriving at a full station exit the system
+	public int capacity = 0;
+	
+	// Service time per page of jobs whose page count is known, which
+	// replaces the service distribution for them, 0 to always sample it
+	public double timePerPage = 0.0;
+	
+	// Stations jobs are routed to after service, EXIT to leave the system
+	private int[] routes = new int[0];
+	
+	// Cumulative probabilities of the routes
+	private double[] cumulative = new double[0];
+	
+	/**
+	 * Sets up a station with a single server which sends every job out of the system
+	 * @param name Short name
+	 * @param description Full name
+	 * @param service Distribution of the service times
+	 */
+	public Station ( String name, String description, Distribution service )
+	{
+		this.name = name;
+		this.description = description;
+		this.service = service;
+	}
+	
+	/**
+	 * Adds a route out of the station
+	 * @param target Station the jobs go to, EXIT to leave the system
+	 * @param probability Probability a job takes this route
+	 */
+	public void routeTo ( int target, double probability )
+	{
+		int n = routes.length;
+		routes = Arrays.copyOf(routes, n + 1);
+		cumulative = Arrays.copyOf(cumulative, n + 1);
+		
+		routes[n] = target;
+		cumulative[n] = (n > 0 ? cumulative[n - 1] : 0.0) + probability;
+	}
+	
+	/**
+	 * Checks whether the next station is a random choice
+	 * @return True if there is more than one route
+	 */
+	public boolean hasRandomRoute ()
+	{
+		return routes.length > 1;
+	}
+	
+	/**
+	 * Picks where a job goes after service
+	 * @param generator Routing stream of the station, only drawn from for random routes
+	 * @return Next station, EXIT to leave the system
+	 */
+	public int route ( NumberGenerator generator )
+	{
+		if ( routes.length == 0 ) return EXIT;
+		if ( routes.length == 1 ) return routes[0];
+		
+		double u = generator.randomNumberGenerator() * cumulative[routes.length - 1];
+		for ( int i = 0; i < routes.length - 1; i++ )
+		{
+			if ( u < cumulative[i] ) return routes[i];
+		}
+		return routes[routes.length - 1];
+	}
+	
+	/**
+	 * Gets the routes out of the station
+	 * @return Stations the jobs go to, EXIT to leave the system
+	 */
+	public int[] getRoutes ()
+	{
+		return routes;
+	}
+	
+	/**
+	 * Gets the probability of a route
+	 * @param i Index of the route
+	 * @return Probability
+	 */
+	public double routeProbability ( int i )
+	{
+		return (cumulative[i] - (i > 0 ? cumulative[i - 1] : 0.0)) / cumulative[routes.length - 1];
+	}
+}
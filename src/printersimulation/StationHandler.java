@@ -0,0 +1,58 @@
+package printersimulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Handles the events of one station of a replication. The simulator keeps
+ * a table of handlers indexed by station id, so an event is dispatched
+ * with a single array lookup whatever the size of the network.
+ */
+public interface StationHandler
+{
+	/**
+	 * A job arrives at the station at the current clock
+	 * @param report Report of the replication
+	 * @param jobs Jobs of the replication
+	 * @param j Handle of the job, not in the event list
+	 * @return True if the job was taken in, false if the station is full
+	 */
+	boolean arrive ( SimulationReport report, JobManager jobs, int j );
+	
+	/**
+	 * A job finishes its service at the station at the current clock
+	 * @param report Report of the replication
+	 * @param jobs Jobs of the replication
+	 * @param j Handle of the job, already removed from the event list
+	 * @return Station the job goes to next, Station.EXIT to leave the system
+	 */
+	int depart ( SimulationReport report, JobManager jobs, int j );
+	
+	/**
+	 * Gets a lower bound on the service of the next jobs the station starts,
+	 * so a partition of a ParallelRun knows how soon a job it has not started
+	 * yet could leave the station. Draws the next service times ahead if needed.
+	 * @return Shortest service the station can start next
+	 */
+	double lookahead ();
+	
+	/**
+	 * Empties the station before a new run
+	 */
+	void reset ();
+	
+	/**
+	 * Writes the jobs, servers and random number streams of the station to a checkpoint
+	 * @param out Checkpoint being written
+	 * @throws IOException
+	 */
+	void writeState ( DataOutput out ) throws IOException;
+	
+	/**
+	 * Puts the station back in the state written to a checkpoint
+	 * @param in Checkpoint being read
+	 * @throws IOException
+	 */
+	void readState ( DataInput in ) throws IOException;
+}
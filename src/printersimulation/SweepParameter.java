@@ -0,0 +1,93 @@
+package printersimulation;
+
+/**
+ * A parameter of the network varied by a ParameterSweep over a range of
+ * values, written as <name>=<low>:<high>:<levels>, for example
+ * service.LaserJet=5.0:7.0:5. The levels are only used by grid sweeps.
+ * Capacities and servers are whole numbers, so their values are rounded.
+ */
+public class SweepParameter
+{
+	// Name of the parameter, as taken by Network.setParameter
+	public String name;
+	
+	// Range of the values
+	public double low;
+	public double high;
+	
+	// Number of evenly spaced values of a grid sweep
+	public int levels;
+	
+	/**
+	 * Sets up a parameter
+	 * @param name Name of the parameter, as taken by Network.setParameter
+	 * @param low Lowest value
+	 * @param high Highest value
+	 * @param levels Number of evenly spaced values of a grid sweep
+	 */
+	public SweepParameter ( String name, double low, double high, int levels )
+	{
+		this.name = name;
+		this.low = low;
+		this.high = high;
+		this.levels = levels;
+	}
+	
+	/**
+	 * Parses a parameter from <name>=<low>:<high>:<levels>, the levels
+	 * can be left out and default to 2, a single value fixes the parameter
+	 * @param spec Text of the parameter
+	 * @return SweepParameter
+	 */
+	public static SweepParameter parse ( String spec )
+	{
+		int equals = spec.indexOf('=');
+		if ( equals < 0 )
+		{
+			throw new IllegalArgumentException("Sweep parameter " + spec + " is not <name>=<low>:<high>:<levels>");
+		}
+		
+		String name = spec.substring(0, equals).trim();
+		String[] range = spec.substring(equals + 1).split(":");
+		
+		double low = Double.parseDouble(range[0].trim());
+		double high = (range.length > 1) ? Double.parseDouble(range[1].trim()) : low;
+		int levels = (range.length > 2) ? Integer.parseInt(range[2].trim()) : (range.length > 1 ? 2 : 1);
+		
+		return new SweepParameter(name, low, high, levels);
+	}
+	
+	/**
+	 * Gets a value of a grid sweep
+	 * @param level Level starting at 0
+	 * @return Value
+	 */
+	public double level ( int level )
+	{
+		if ( levels <= 1 ) return simulated(low);
+		return simulated(low + (high - low) * level / (levels - 1));
+	}
+	
+	/**
+	 * Gets the value at a fraction of the range
+	 * @param fraction Fraction between 0 and 1
+	 * @return Value
+	 */
+	public double at ( double fraction )
+	{
+		return simulated(low + (high - low) * fraction);
+	}
+	
+	/**
+	 * Rounds capacities and servers the way Network.setParameter does, so
+	 * that the value recorded for a point is the value simulated
+	 * @param value Value within the range
+	 * @return Value the network is simulated with
+	 */
+	private double simulated ( double value )
+	{
+		if ( name.startsWith("capacity.") ) return Math.round(value);
+		if ( name.startsWith("servers.") ) return Math.max(1, Math.round(value));
+		return value;
+	}
+}
@@ -0,0 +1,25 @@
+package printersimulation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+/**
+ * Flight Recorder event sampling the event throughput of the simulation.
+ */
+@Name("printersimulation.Throughput")
+@Label("Simulation Throughput")
+@Category("Printer Simulation")
+@Period("1 s")
+public class ThroughputEvent extends jdk.jfr.Event
+{
+	@Label("Events Processed")
+	public long eventsProcessed;
+	
+	@Label("Events Per Second")
+	public double eventsPerSecond;
+	
+	@Label("Event List High Water Mark")
+	public int eventListHighWaterMark;
+}
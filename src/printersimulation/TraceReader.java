@@ -0,0 +1,153 @@
+package printersimulation;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Streams the records of an EventTrace back out as text, one segment
+ * mapped at a time so traces larger than memory can be read.
+ * Usage: TraceReader <prefix> [replication]
+ * Prints every record, or those of a single replication, in the order they
+ * were written. Records of a replication are in event order.
+ */
+public class TraceReader
+{
+	// Names of the kinds of events, indexed by kind
+	private final static String[] KINDS = { "PADDING", "ENTER", "MOVE", "EXIT", "REJECT" };
+	
+	/**
+	 * Prints a trace
+	 * @param args Prefix of the segment files, and optionally a replication to keep
+	 * @throws IOException If a segment can not be read
+	 */
+	public static void main ( String[] args ) throws IOException
+	{
+		if ( args.length < 1 )
+		{
+			System.err.println("Usage: TraceReader <prefix> [replication]");
+			System.exit(1);
+		}
+		
+		int only = (args.length > 1) ? Integer.parseInt(args[1]) : -1;
+		
+		// Sources are named as in the network of the settings the trace was written with
+		Network network = Network.printerNetwork();
+		
+		PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+		out.println("replication,antithetic,clock,job,source,kind,from,to,service");
+		for ( File segment : segments(args[0]) )
+		{
+			read(segment, only, network, out);
+		}
+		out.flush();
+	}
+	
+	/**
+	 * Finds the segment files of a trace in segment order
+	 * @param prefix Segment files are <prefix>-<n>.trace
+	 * @return Segment files
+	 */
+	public static File[] segments ( String prefix )
+	{
+		File base = new File(prefix);
+		File directory = (base.getParentFile() != null) ? base.getParentFile() : new File(".");
+		final String name = base.getName() + "-";
+		
+		ArrayList<File> found = new ArrayList<File>();
+		File[] files = directory.listFiles();
+		if ( files != null )
+		{
+			for ( File file : files )
+			{
+				if ( file.getName().startsWith(name) && file.getName().endsWith(".trace") ) found.add(file);
+			}
+		}
+		
+		File[] segments = found.toArray(new File[found.size()]);
+		Arrays.sort(segments, new Comparator<File>()
+		{
+			public int compare ( File a, File b )
+			{
+				return Integer.compare(number(a, name), number(b, name));
+			}
+		});
+		return segments;
+	}
+	
+	/**
+	 * Prints the records of a segment
+	 * @param segment Segment file
+	 * @param only Replication to keep, -1 for every replication
+	 * @param network Network whose sources the records refer to
+	 * @param out Where the records are printed
+	 * @throws IOException If the segment can not be read
+	 */
+	public static void read ( File segment, int only, Network network, PrintStream out ) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(segment, "r");
+		try
+		{
+			MappedByteBuffer b = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			b.order(ByteOrder.LITTLE_ENDIAN);
+			
+			if ( b.limit() < EventTrace.RECORD_SIZE || b.getLong(0) != EventTrace.MAGIC || b.getInt(8) != EventTrace.RECORD_SIZE )
+			{
+				throw new IOException(segment + " is not a trace segment");
+			}
+			
+			StringBuilder line = new StringBuilder();
+			for ( int p = EventTrace.RECORD_SIZE; p + EventTrace.RECORD_SIZE <= b.limit(); p += EventTrace.RECORD_SIZE )
+			{
+				byte kind = b.get(p + 29);
+				if ( kind == EventTrace.PADDING ) continue;
+				
+				int replication = b.getInt(p + 20);
+				if ( only >= 0 && replication != only ) continue;
+				
+				line.setLength(0);
+				line.append(replication).append(',')
+					.append((b.get(p + 30) & EventTrace.FLAG_ANTITHETIC) != 0).append(',')
+					.append(b.getDouble(p)).append(',')
+					.append(b.getInt(p + 16)).append(',')
+					.append(network.sourceName((b.get(p + 28) & 0xff) | ((b.get(p + 31) & 0xff) << 8))).append(',')
+					.append(KINDS[kind]).append(',')
+					.append(b.getShort(p + 24)).append(',')
+					.append(b.getShort(p + 26)).append(',')
+					.append(b.getDouble(p + 8));
+				out.println(line);
+			}
+		}
+		finally
+		{
+			raf.close();
+		}
+	}
+	
+	/**
+	 * Gets the segment number from the name of a segment file
+	 * @param file Segment file
+	 * @param name Start of the name before the number
+	 * @return Segment number
+	 */
+	private static int number ( File file, String name )
+	{
+		String n = file.getName().substring(name.length(), file.getName().length() - ".trace".length());
+		try
+		{
+			return Integer.parseInt(n);
+		}
+		catch ( NumberFormatException e )
+		{
+			return Integer.MAX_VALUE;
+		}
+	}
+}
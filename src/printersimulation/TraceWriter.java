@@ -0,0 +1,77 @@
+package printersimulation;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes the events of one run of a replication into chunks of an
+ * EventTrace. Only the thread running the replication touches it.
+ */
+public class TraceWriter
+{
+	// Trace the chunks are claimed from
+	private EventTrace trace;
+	
+	// Replication number and flags written into every record
+	private int replication;
+	private byte flags;
+	
+	// Chunk being filled, null until the first event
+	private ByteBuffer chunk = null;
+	
+	// Where the next record of the chunk goes
+	private int position;
+	
+	/**
+	 * Sets up a writer
+	 * @param trace Trace the chunks are claimed from
+	 * @param replication Replication number starting at 0
+	 * @param flags Flags written into every record
+	 */
+	TraceWriter ( EventTrace trace, int replication, byte flags )
+	{
+		this.trace = trace;
+		this.replication = replication;
+		this.flags = flags;
+	}
+	
+	/**
+	 * Writes a record of an event
+	 * @param kind Kind of event, one of the kinds of EventTrace
+	 * @param clock Clock of the event
+	 * @param store Store holding the job
+	 * @param j Handle of the job
+	 * @param from Station the job finished at, -1 for jobs arriving at the system
+	 * @param to Station the job goes to, -1 for jobs leaving the system
+	 * @param service Service time finished at the from station
+	 */
+	public void record ( byte kind, double clock, JobStore store, int j, int from, int to, double service )
+	{
+		if ( chunk == null || position == chunk.capacity() )
+		{
+			chunk = trace.claimChunk();
+			position = 0;
+		}
+		
+		ByteBuffer b = chunk;
+		int p = position;
+		b.putDouble(p, clock);
+		b.putDouble(p + 8, service);
+		b.putInt(p + 16, store.id[j]);
+		b.putInt(p + 20, replication);
+		b.putShort(p + 24, (short) from);
+		b.putShort(p + 26, (short) to);
+		b.put(p + 28, (byte) store.source[j]);
+		b.put(p + 29, kind);
+		b.put(p + 30, flags);
+		b.put(p + 31, (byte) (store.source[j] >> 8));
+		position = p + EventTrace.RECORD_SIZE;
+	}
+	
+	/**
+	 * Ends the run, the rest of the chunk stays padding
+	 */
+	public void close ()
+	{
+		chunk = null;
+	}
+}
@@ -0,0 +1,15 @@
+package printersimulation;
+
+/**
+ * Ways of turning the uniform numbers of a stream into exponential variates.
+ * Chosen at startup through Constants.VARIATES.
+ */
+public enum VariateMethod
+{
+	// -mean * log(U), one uniform and one logarithm per variate
+	INVERSION,
+	
+	// Marsaglia and Tsang ziggurat, one uniform and a table lookup for
+	// almost every variate and a logarithm only in the rare tail
+	ZIGGURAT
+}
@@ -0,0 +1,146 @@
+package printersimulation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * State of a simulation at the end of its warmup, which any number of
+ * replications branch off instead of each warming up an empty system.
+ */
+public class WarmStart
+{
+	/**
+	 * ===============================
+	 * Warm Start Documentation
+	 * ===============================
+	 * The warmup is run once and the warmed system is copied into a byte
+	 * array the same way a checkpoint saves the long run of the batch means
+	 * mode: the jobs and the event list, the pending arrivals, the queues and
+	 * servers of every station, how full the LaserJet buffer is and the
+	 * report accumulators. A replication reads a copy back into its own
+	 * context but keeps its own random number streams, so the measured runs
+	 * only share where they start from. The configurations of a comparison
+	 * branch off the same warmed system of the base configuration, which
+	 * takes the difference of their warmups out of the comparison.
+	 * A branch only fits a network of the same layout: the same stations
+	 * with the same servers and capacities, routed the same way, and the
+	 * same sources entering at the same stations. The mean times may
+	 * differ, the queues and idle servers of another layout can not be
+	 * carried over.
+	 */
+	
+	// Report and context at the end of the warmup
+	private byte[] state;
+	
+	// Number of jobs discarded as warmup
+	private int warmupJobs;
+	
+	// Layout of the network the warmup ran on
+	private String layout;
+	
+	/**
+	 * Copies the state of a warmed up replication
+	 * @param context Replication state at the end of the warmup
+	 * @param report Report of the warmup
+	 * @param warmupJobs Number of jobs the warmup ran
+	 */
+	public WarmStart ( SimulationContext context, SimulationReport report, int warmupJobs )
+	{
+		this.warmupJobs = warmupJobs;
+		this.layout = layout(context.network);
+		
+		try
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 12);
+			DataOutputStream out = new DataOutputStream(bytes);
+			report.writeState(out);
+			context.writeState(out);
+			out.flush();
+			state = bytes.toByteArray();
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not copy the warmed up system", e);
+		}
+	}
+	
+	/**
+	 * Gets the number of jobs discarded as warmup
+	 * @return Number of jobs
+	 */
+	public int getWarmupJobs ()
+	{
+		return warmupJobs;
+	}
+	
+	/**
+	 * Gets the size of the copied state
+	 * @return Number of bytes
+	 */
+	public int size ()
+	{
+		return state.length;
+	}
+	
+	/**
+	 * Checks whether replications of a network can branch off the warmed up system
+	 * @param network Network of the replications
+	 * @return True if the network has the layout the warmup ran on
+	 */
+	public boolean fits ( Network network )
+	{
+		return layout.equals(layout(network));
+	}
+	
+	/**
+	 * Describes the stations, servers, capacities, routes and sources of a network
+	 * @param network Network
+	 * @return Layout of the network
+	 */
+	private static String layout ( Network network )
+	{
+		StringBuilder layout = new StringBuilder();
+		for ( int s = 0; s < network.size(); s++ )
+		{
+			Station station = network.station(s);
+			layout.append(station.name).append(' ').append(station.servers).append(' ')
+					.append(station.capacity).append(' ').append(station.hasRandomRoute()).append(';');
+		}
+		for ( int source = 0; source < network.numberSources(); source++ )
+		{
+			layout.append(network.sourceName(source)).append(' ').append(network.entryStation(source)).append(';');
+		}
+		return layout.toString();
+	}
+	
+	/**
+	 * Puts a replication in the warmed up state, its streams carry on from where they are
+	 * @param context Replication state of a network of the same layout, reset
+	 * @return Report of the warmup to carry on measuring with
+	 */
+	public SimulationReport branch ( SimulationContext context )
+	{
+		if ( !fits(context.network) )
+		{
+			throw new IllegalArgumentException("The warmed up system has other stations, servers, capacities or sources than the network branching off it");
+		}
+		
+		SimulationReport report = new SimulationReport(0, context.network.size());
+		
+		try
+		{
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(state));
+			report.readState(in);
+			context.branch(in);
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException("Could not branch off the warmed up system", e);
+		}
+		
+		return report;
+	}
+}
@@ -0,0 +1,14 @@
+package printersimulation;
+
+/**
+ * Ways of finding the end of the warmup of a run.
+ * Chosen at startup through Constants.WARMUP.
+ */
+public enum WarmupMode
+{
+	// Discard a fixed number of jobs, Constants.NUMBER_JOBS_WARMUP
+	FIXED,
+	
+	// Discard the jobs before the MSER-5 truncation point of the run
+	MSER
+}
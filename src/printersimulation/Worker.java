@@ -0,0 +1,219 @@
+package printersimulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Worker process of a distributed simulation. Connects to a Coordinator,
+ * takes on its settings and runs the replications it is handed, several
+ * side by side, sending every report back as soon as it is done.
+ * Start one on any machine that can reach the coordinator with
+ * java printersimulation.Worker <host>:<port> [threads]
+ */
+public class Worker
+{
+	// Seconds a worker keeps trying to reach a coordinator that is not up yet
+	private final static int CONNECT_SECONDS = 60;
+	
+	// Streams of the socket to the coordinator
+	private DataInputStream in;
+	private DataOutputStream out;
+	
+	// Runs the replications
+	private ExecutorService pool;
+	
+	// Sweep of the settings of the coordinator, built on the first sweep point
+	private ParameterSweep sweep = null;
+	
+	// Simulator of every point of the sweep, kept so that a warm start
+	// is only run once by every worker, by point with -1 for Constants
+	private HashMap<Integer, Simulator> simulators = new HashMap<Integer, Simulator>();
+	
+	/**
+	 * Connects to a coordinator and runs its replications until told to stop
+	 * @param args <host>:<port> [threads]
+	 * @throws IOException
+	 */
+	public static void main ( String[] args ) throws IOException
+	{
+		if ( args.length < 1 || args[0].lastIndexOf(':') < 0 )
+		{
+			System.err.println("Usage: Worker <host>:<port> [threads]");
+			System.exit(1);
+		}
+		
+		String host = args[0].substring(0, args[0].lastIndexOf(':'));
+		int port = Integer.parseInt(args[0].substring(args[0].lastIndexOf(':') + 1));
+		int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		
+		new Worker().run(connect(host, port), threads);
+		System.exit(0);
+	}
+	
+	/**
+	 * Connects to the coordinator, waiting for it to come up
+	 * @param host Host of the coordinator
+	 * @param port Port of the coordinator
+	 * @return Socket to the coordinator
+	 * @throws IOException
+	 */
+	private static Socket connect ( String host, int port ) throws IOException
+	{
+		for ( int attempt = 1; ; attempt++ )
+		{
+			try
+			{
+				Socket socket = new Socket(host, port);
+				socket.setTcpNoDelay(true);
+				socket.setKeepAlive(true);
+				return socket;
+			}
+			catch ( IOException e )
+			{
+				if ( attempt >= CONNECT_SECONDS ) throw e;
+			}
+			
+			try
+			{
+				Thread.sleep(1000);
+			}
+			catch ( InterruptedException e )
+			{
+				throw new IOException("Interrupted while connecting to " + host + ":" + port);
+			}
+		}
+	}
+	
+	/**
+	 * Says hello, takes on the settings of the coordinator and runs its tasks
+	 * @param socket Socket to the coordinator
+	 * @param threads Number of replications run side by side
+	 * @throws IOException
+	 */
+	public void run ( Socket socket, int threads ) throws IOException
+	{
+		in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		
+		out.writeLong(Coordinator.MAGIC);
+		out.writeInt(Coordinator.PROTOCOL_VERSION);
+		out.writeInt(threads);
+		out.flush();
+		
+		// Constants reads these when it is first used, which is only after this
+		int count = in.readInt();
+		for ( int i = 0; i < count; i++ )
+		{
+			System.setProperty(in.readUTF(), in.readUTF());
+		}
+		
+		pool = Executors.newFixedThreadPool(threads);
+		try
+		{
+			while ( true )
+			{
+				byte message = in.readByte();
+				if ( message == Coordinator.STOP ) break;
+				
+				final int id = in.readInt();
+				final int point = in.readInt();
+				final int replication = in.readInt();
+				pool.execute(new Runnable()
+				{
+					public void run ()
+					{
+						runTask(id, point, replication);
+					}
+				});
+			}
+		}
+		catch ( EOFException e )
+		{
+			// The coordinator is gone, so is the work
+		}
+		finally
+		{
+			pool.shutdownNow();
+			socket.close();
+		}
+	}
+	
+	/**
+	 * Runs a replication and sends its report back
+	 * @param id Id of the task
+	 * @param point Point of the sweep, -1 for the network of Constants
+	 * @param replication Replication number starting at 0
+	 */
+	private void runTask ( int id, int point, int replication )
+	{
+		try
+		{
+			SimulationReport report;
+			try
+			{
+				report = simulator(point).runReplication(replication);
+			}
+			catch ( RuntimeException e )
+			{
+				synchronized ( out )
+				{
+					out.writeByte(Coordinator.FAILED);
+					out.writeInt(id);
+					out.writeUTF(String.valueOf(e));
+					out.flush();
+				}
+				return;
+			}
+			
+			synchronized ( out )
+			{
+				out.writeByte(Coordinator.RESULT);
+				out.writeInt(id);
+				out.writeInt(report.stationHistory.length);
+				report.writeState(out);
+				out.flush();
+			}
+		}
+		catch ( IOException e )
+		{
+			// The coordinator is gone, the main loop finds out as well
+		}
+	}
+	
+	/**
+	 * Gets the simulator of a task, set up by the first task of its point
+	 * @param point Point of the sweep, -1 for the network of Constants
+	 * @return Simulator
+	 */
+	private Simulator simulator ( int point )
+	{
+		synchronized ( simulators )
+		{
+			Simulator simulator = simulators.get(point);
+			if ( simulator == null )
+			{
+				simulator = (point < 0) ? new Simulator(Network.printerNetwork()) : sweep().simulator(point);
+				simulators.put(point, simulator);
+			}
+			return simulator;
+		}
+	}
+	
+	/**
+	 * Gets the sweep the points of the tasks belong to, set up by the first of them
+	 * @return ParameterSweep
+	 */
+	private synchronized ParameterSweep sweep ()
+	{
+		if ( sweep == null ) sweep = ParameterSweep.fromConstants();
+		return sweep;
+	}
+}
@@ -0,0 +1,136 @@
+package printersimulation;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the steady state event loop allocates nothing per event.
+ * A longer run may only allocate what a shorter run allocates plus a few
+ * doublings of the job store, which the thread allocation counter of the
+ * JVM tells apart from an allocation per event by orders of magnitude.
+ */
+public class AllocationTest
+{
+	// Bytes allowed per extra event, an allocation per event takes at least 16
+	private final static double BYTES_PER_EVENT = 0.1;
+	
+	// Runs before measuring, so the event loop is compiled
+	private final static int WARMUP_RUNS = 5;
+	
+	// Allocation counter of the threads of this JVM
+	private final static com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	
+	@Test
+	public void replicationAllocatesNothingPerEvent ()
+	{
+		Simulator shortRun = simulator(10000);
+		Simulator longRun = simulator(100000);
+		for ( int i = 0; i < WARMUP_RUNS; i++ )
+		{
+			shortRun.runReplication(1);
+			longRun.runReplication(1);
+		}
+		
+		long before = allocatedBytes();
+		SimulationReport shortReport = shortRun.runReplication(1);
+		long shortBytes = allocatedBytes() - before;
+		
+		before = allocatedBytes();
+		SimulationReport longReport = longRun.runReplication(1);
+		long longBytes = allocatedBytes() - before;
+		
+		long events = longReport.numberEvents - shortReport.numberEvents;
+		assertTrue(longBytes - shortBytes < BYTES_PER_EVENT * events,
+				"The long run allocated " + longBytes + " bytes, the short run " + shortBytes +
+				" bytes, for " + events + " more events");
+	}
+	
+	@Test
+	public void eventListsAllocateNothingPerEvent ()
+	{
+		for ( EventListType type : EventListType.values() )
+		{
+			JobManager jobs = new JobManager(type);
+			NumberGenerator generator = new NumberGenerator(12345);
+			for ( int i = 0; i < WARMUP_RUNS; i++ )
+			{
+				grow(jobs, generator);
+			}
+			
+			long before = allocatedBytes();
+			long events = 0;
+			for ( int i = 0; i < 20; i++ )
+			{
+				events += grow(jobs, generator);
+			}
+			long bytes = allocatedBytes() - before;
+			
+			assertTrue(bytes < BYTES_PER_EVENT * events,
+					type + " allocated " + bytes + " bytes for " + events + " events");
+		}
+	}
+	
+	/**
+	 * Fills the event list with jobs on top of the hold model and empties it
+	 * again, so that a calendar queue is resized up and down
+	 * @param jobs Event list
+	 * @param generator Generator of the increments of the jobs
+	 * @return Number of jobs taken off the event list
+	 */
+	private static long grow ( JobManager jobs, NumberGenerator generator )
+	{
+		JobStore store = jobs.getStore();
+		double clock = 0.0;
+		long events = 0;
+		
+		for ( int size = 1; size > 0; )
+		{
+			// Two jobs in for every one out while filling, then the other way round
+			boolean filling = events < 20000;
+			int j = jobs.getFirstJob();
+			if ( j != JobStore.NONE )
+			{
+				clock = store.arrivalTime[j];
+				store.release(j);
+				events++;
+			}
+			
+			for ( int k = (filling ? 2 : (events % 2 == 0 ? 1 : 0)); k > 0; k-- )
+			{
+				int next = store.allocate(0, 0, 0, clock);
+				store.arrivalTime[next] = clock + generator.exponentialRVG(100.0);
+				jobs.insert(next);
+			}
+			size = jobs.size();
+		}
+		
+		jobs.clear();
+		return events;
+	}
+	
+	/**
+	 * Gets the number of bytes the current thread has allocated
+	 * @return Bytes allocated since the thread started
+	 */
+	private static long allocatedBytes ()
+	{
+		return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	
+	/**
+	 * Sets up a simulation of the printer network with a fixed warmup
+	 * @param measuredJobs Number of jobs measured after the warmup
+	 * @return Simulator
+	 */
+	private static Simulator simulator ( int measuredJobs )
+	{
+		Scenario scenario = new Scenario("allocation");
+		scenario.warmupJobs = 1000;
+		scenario.measuredJobs = measuredJobs;
+		return new Simulator(scenario);
+	}
+}
@@ -0,0 +1,93 @@
+package printersimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the analytic solution against the Jackson network solution of the
+ * printer network and against single stations solved by hand, an M/M/c
+ * queue with the Erlang C formula and an M/M/c/K queue from its states.
+ */
+public class AnalyticSolverTest
+{
+	// Tolerance of the values solved by hand, which are exact
+	private final static double EXACT = 1e-9;
+	
+	@Test
+	public void printerNetworkIsTheJacksonSolution ()
+	{
+		Network network = Network.printerNetwork();
+		AnalyticSolution solution = AnalyticSolver.solve(network);
+		
+		assertTrue(solution.stable, "The printer network is stable");
+		assertTrue(solution.exact, "The printer network is solved exactly");
+		assertEquals(0.6975, solution.utilization[network.station("Mac").id], 5e-5);
+		assertEquals(0.775, solution.utilization[network.station("NeXT").id], 5e-5);
+		assertEquals(0.8536, solution.utilization[network.station("LaserJet").id], 5e-5);
+		assertEquals(63.998, solution.averageTime, 5e-4);
+		assertEquals(9.709, solution.averageNumberJobs, 5e-4);
+	}
+	
+	@Test
+	public void multiServerStationFollowsErlangC ()
+	{
+		// Arrivals at rate 2 to 3 servers of mean 1, so a = 2 and rho = 2/3.
+		// P0 = 1 / (1 + 2 + 2 + (8/6) / (1 - 2/3)) = 1/9 and the Erlang C
+		// probability of waiting is (8/6) / (1 - 2/3) * P0 = 4/9, which
+		// queues 4/9 * rho / (1 - rho) = 8/9 jobs, so L = 2 + 8/9 = 26/9.
+		AnalyticSolution solution = AnalyticSolver.solve(station(0.5, 3, 0));
+		
+		assertTrue(solution.stable, "The station is stable");
+		assertEquals(2.0, solution.throughput[0], EXACT);
+		assertEquals(2.0 / 3.0, solution.utilization[0], EXACT);
+		assertEquals(0.0, solution.lossProbability[0], EXACT);
+		assertEquals(26.0 / 9.0, solution.numberJobs[0], EXACT);
+		assertEquals(13.0 / 9.0, solution.averageTime, EXACT);
+	}
+	
+	@Test
+	public void finiteStationTurnsAwayArrivalsWhenFull ()
+	{
+		// Arrivals at rate 2 to 2 servers of mean 1 holding at most 3 jobs.
+		// The states are weighted 1, 2, 2 and 2, so the station is full
+		// 2/7 of the time and holds (2 + 4 + 6) / 7 = 12/7 jobs on average.
+		AnalyticSolution solution = AnalyticSolver.solve(station(0.5, 2, 3));
+		
+		assertTrue(solution.stable, "A finite station is always stable");
+		assertEquals(2.0 / 7.0, solution.lossProbability[0], EXACT);
+		assertEquals(10.0 / 7.0, solution.throughput[0], EXACT);
+		assertEquals(5.0 / 7.0, solution.utilization[0], EXACT);
+		assertEquals(12.0 / 7.0, solution.numberJobs[0], EXACT);
+	}
+	
+	@Test
+	public void overloadedStationIsUnstable ()
+	{
+		AnalyticSolution solution = AnalyticSolver.solve(station(0.5, 1, 0));
+		
+		assertFalse(solution.stable, "A single server of mean 1 can not keep up with arrivals at rate 2");
+		assertEquals(Double.POSITIVE_INFINITY, solution.averageNumberJobs);
+	}
+	
+	/**
+	 * Sets up a network of a single station with exponential service of
+	 * mean 1, which every job leaves after its visit
+	 * @param meanArrivalTime Mean time between two arrivals
+	 * @param servers Number of servers
+	 * @param capacity Most jobs the station holds, 0 for no limit
+	 * @return Network
+	 */
+	private static Network station ( double meanArrivalTime, int servers, int capacity )
+	{
+		Network network = new Network();
+		Station station = network.addStation(new Station("S", "Station", Distribution.exponential(1.0)));
+		station.servers = servers;
+		station.capacity = capacity;
+		station.routeTo(Station.EXIT, 1.0);
+		network.addSource("Source", meanArrivalTime, station.id);
+		return network;
+	}
+}
@@ -0,0 +1,127 @@
+package printersimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the long run of the batch means mode, stopped part way
+ * through and resumed from its checkpoint, ends with the same batches as
+ * the run which was never stopped.
+ */
+public class CheckpointTest
+{
+	// Jobs of the long run, long enough for many checkpoints
+	private final static int JOBS = 100000;
+	
+	// Snapshots taken before the run is stopped, a few of the many it would take
+	private final static int SNAPSHOTS = 5;
+	
+	// Longest wait for the writer to put a checkpoint on disk in milliseconds
+	private final static long WRITE_TIMEOUT = 10000;
+	
+	@Test
+	public void resumedRunEqualsUninterruptedRun () throws IOException, InterruptedException
+	{
+		Simulator uninterrupted = simulator();
+		uninterrupted.runBatchMeans();
+		
+		File file = File.createTempFile("checkpoint", ".bin");
+		file.delete();
+		file.deleteOnExit();
+		Simulator interrupted = simulator();
+		Checkpoint writer = new CrashingCheckpoint(file.getPath(), interrupted.getNetwork());
+		interrupted.setCheckpoint(writer);
+		try
+		{
+			interrupted.runBatchMeans();
+			fail("The run was not stopped part way through");
+		}
+		catch ( IllegalStateException e )
+		{
+			// The run stopped as if the process had been killed
+		}
+		
+		// The first snapshot is written off the event loop
+		long waited = 0;
+		while ( !file.exists() && waited < WRITE_TIMEOUT )
+		{
+			Thread.sleep(10);
+			waited += 10;
+		}
+		
+		Simulator resumed = simulator();
+		Checkpoint checkpoint = new Checkpoint(file.getPath(), resumed.getNetwork(), Constants.MASTER_SEED, 3600.0);
+		assertTrue(checkpoint.resume() && checkpoint.hasRun(), "The run was saved to " + file);
+		writer.finish();
+		resumed.setCheckpoint(checkpoint);
+		resumed.runBatchMeans();
+		checkpoint.finish();
+		
+		assertSameBatches(uninterrupted, resumed);
+	}
+	
+	/**
+	 * Checks that two runs recorded the same batches
+	 * @param expected Run which was never stopped
+	 * @param actual Run to compare with it
+	 */
+	private static void assertSameBatches ( Simulator expected, Simulator actual )
+	{
+		assertEquals(expected.statistics.count(), actual.statistics.count(), "Number of batches");
+		for ( int m = 0; m < expected.statistics.metrics.length; m++ )
+		{
+			RunningStatistics metric = expected.statistics.metrics[m];
+			assertEquals(metric.mean(), actual.statistics.metrics[m].mean(), 0.0,
+					"Mean of " + expected.getNetwork().metricName(m));
+			assertEquals(metric.halfWidth(0.95), actual.statistics.metrics[m].halfWidth(0.95), 0.0,
+					"Half width of " + expected.getNetwork().metricName(m));
+		}
+	}
+	
+	/**
+	 * Checkpoint due every time the event loop looks, which stops the run
+	 * once it has been saved a few times
+	 */
+	private static class CrashingCheckpoint extends Checkpoint
+	{
+		// Snapshots left before the run is stopped
+		private int snapshots = SNAPSHOTS;
+		
+		/**
+		 * Sets up the checkpoint
+		 * @param path File the checkpoint is written to
+		 * @param network Network of the simulation
+		 */
+		public CrashingCheckpoint ( String path, Network network )
+		{
+			super(path, network, Constants.MASTER_SEED, 0.0);
+		}
+		
+		/**
+		 * Saves the run, then stops it once enough snapshots were taken
+		 */
+		public void saveRun ( SimulationContext context, SimulationReport report, MeasurementSeries series, int completed )
+		{
+			super.saveRun(context, report, series, completed);
+			if ( --snapshots == 0 ) throw new IllegalStateException("Stopped after " + SNAPSHOTS + " snapshots");
+		}
+	}
+	
+	/**
+	 * Sets up a simulation of the printer network with a short long run
+	 * @return Simulator
+	 */
+	private static Simulator simulator ()
+	{
+		Scenario scenario = new Scenario("checkpoint");
+		scenario.warmupJobs = 1000;
+		scenario.batchMeansJobs = JOBS;
+		return new Simulator(scenario);
+	}
+}
@@ -0,0 +1,64 @@
+package printersimulation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a replication split into partitions running on threads of
+ * their own reports exactly what the sequential event loop reports, for
+ * the printer network whose jobs all cross over to the LaserJet.
+ */
+public class ParallelRunTest
+{
+	// Replications compared, each on its own streams
+	private final static int REPLICATIONS = 3;
+	
+	@Test
+	public void twoPartitionsMatchTheEventLoop ()
+	{
+		assertSameReports(2);
+	}
+	
+	@Test
+	public void threePartitionsMatchTheEventLoop ()
+	{
+		assertSameReports(3);
+	}
+	
+	/**
+	 * Checks that replications split into partitions report what they
+	 * report when run by the sequential event loop
+	 * @param partitions Number of partitions
+	 */
+	private static void assertSameReports ( int partitions )
+	{
+		Simulator sequential = simulator(1);
+		Simulator parallel = simulator(partitions);
+		for ( int r = 0; r < REPLICATIONS; r++ )
+		{
+			SimulationReport expected = sequential.runReplication(r);
+			SimulationReport actual = parallel.runReplication(r);
+			assertArrayEquals(expected.row(), actual.row(), 0.0,
+					"Replication " + r + " on " + partitions + " partitions");
+			assertEquals(expected.numberEvents, actual.numberEvents,
+					"Events of replication " + r + " on " + partitions + " partitions");
+		}
+	}
+	
+	/**
+	 * Sets up a simulation of the printer network
+	 * @param partitions Number of partitions, 1 for the event loop
+	 * @return Simulator
+	 */
+	private static Simulator simulator ( int partitions )
+	{
+		Scenario scenario = new Scenario("partitions");
+		scenario.warmupJobs = 1000;
+		scenario.measuredJobs = 10000;
+		Simulator simulator = new Simulator(scenario);
+		simulator.setPartitions(partitions);
+		return simulator;
+	}
+}